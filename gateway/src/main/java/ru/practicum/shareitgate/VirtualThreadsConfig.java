@@ -0,0 +1,56 @@
+package ru.practicum.shareitgate;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Виртуальные потоки сервлетного шлюза (Java 21, профиль сборки java21). В отличие от сервера, здесь их получают
+ * два исполнителя: коннектор Tomcat, где запрос к серверу через RestTemplate блокирует только виртуальный поток,
+ * и исполнитель асинхронных запросов MVC, из которого пишутся потоковые выгрузки. Число одновременных запросов
+ * к серверу по-прежнему ограничивает пул соединений. Реактивный шлюз обслуживает запросы в event loop Netty,
+ * а немногие блокирующие шаги - фоновое обновление кэша ответов и задержки повторов - выполняет
+ * в Schedulers.boundedElastic(), поэтому эта конфигурация к нему не применяется.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "shareit.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadsConfig implements WebMvcConfigurer {
+
+    // Модуль собирается и под Java 11, поэтому фабрика виртуальных потоков вызывается через рефлексию
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            log.info("Запросы обрабатываются в виртуальных потоках.");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads require Java 21, current version is "
+                    + System.getProperty("java.version"), e);
+        }
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandler(
+            ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    // Потоковые выгрузки пишутся в ответ из исполнителя асинхронных запросов MVC
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(virtualThreadExecutor()));
+    }
+}
@@ -2,15 +2,21 @@ package ru.practicum.shareitgate.booking;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareitgate.booking.dto.BookingState;
 import ru.practicum.shareitgate.booking.dto.CreateBookingDto;
+import ru.practicum.shareitgate.booking.dto.UpdateBookingStatusDto;
+import ru.practicum.shareitgate.cache.ResponseCaching;
 import ru.practicum.shareitgate.client.BaseClient;
+import ru.practicum.shareitgate.client.GetCoalescing;
+import ru.practicum.shareitgate.client.ServerTransportFactory;
+import ru.practicum.shareitgate.resilience.ServerResilience;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -18,45 +24,64 @@ public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(builder
-                .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                .build());
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, ServerTransportFactory<?> transports,
+                         ServerResilience resilience, GetCoalescing coalescing, ResponseCaching caching) {
+        super(caching.watch(resilience.protect("bookings", transports.create(serverUrl + API_PREFIX))),
+                coalescing.forFamily("bookings"));
     }
 
-    public ResponseEntity<Object> createBooking(Long bookerId, CreateBookingDto creationDto) {
+    public Mono<ResponseEntity<Object>> createBooking(Long bookerId, CreateBookingDto creationDto) {
         return post("", bookerId, creationDto);
     }
 
-    public ResponseEntity<Object> updateStatus(Long ownerId, Long bookingId, Boolean approved) {
+    public Mono<ResponseEntity<Object>> updateStatus(Long ownerId, Long bookingId, Boolean approved) {
         Map<String, Object> parameters = Map.of("approved", approved);
         return patch("/" + bookingId + "?approved={approved}", ownerId, parameters, null);
     }
 
-    public ResponseEntity<Object> delete(Long bookerId, Long bookingId) {
+    public Mono<ResponseEntity<Object>> updateStatuses(Long ownerId, List<UpdateBookingStatusDto> updates) {
+        return patch("/batch", ownerId, updates);
+    }
+
+    public Mono<ResponseEntity<Object>> delete(Long bookerId, Long bookingId) {
         return delete("/" + bookingId, bookerId);
     }
 
-    public ResponseEntity<Object> findById(Long userId, Long bookingId) {
-        return get("/" + bookingId, userId);
+    public Mono<ResponseEntity<Object>> findById(Long userId, Long bookingId, @Nullable String ifNoneMatch) {
+        return get("/" + bookingId, userId, null, ifNoneMatch);
+    }
+
+    public Mono<ResponseEntity<Object>> findAllByBooker(Long bookerId, BookingState state, Integer from, int size,
+                                                  String cursor) {
+        return get(pageQuery("", from, cursor), bookerId, pageParameters(state, from, size, cursor));
+    }
+
+    public Mono<ResponseEntity<Object>> findAllByOwner(Long ownerId, BookingState state, Integer from, int size,
+                                                 String cursor) {
+        return get(pageQuery("/owner", from, cursor), ownerId, pageParameters(state, from, size, cursor));
     }
 
-    public ResponseEntity<Object> findAllByBooker(Long bookerId, BookingState state, int from, int size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state,
-                "from", from,
-                "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", bookerId, parameters);
+    // Смещение from передаётся только по явному запросу клиента, иначе сервер отдаёт страницу по курсору
+    private static String pageQuery(String path, Integer from, String cursor) {
+        if (from != null) {
+            return path + "?state={state}&from={from}&size={size}";
+        }
+        if (cursor != null) {
+            return path + "?state={state}&size={size}&cursor={cursor}";
+        }
+        return path + "?state={state}&size={size}";
     }
 
-    public ResponseEntity<Object> findAllByOwner(Long ownerId, BookingState state, int from, int size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state,
-                "from", from,
-                "size", size
-        );
-        return get("/owner?state={state}&from={from}&size={size}", ownerId, parameters);
+    private static Map<String, Object> pageParameters(BookingState state, Integer from, int size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("state", state);
+        parameters.put("size", size);
+        if (from != null) {
+            parameters.put("from", from);
+        }
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+        }
+        return parameters;
     }
 }
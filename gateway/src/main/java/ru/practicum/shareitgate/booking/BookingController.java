@@ -2,17 +2,23 @@ package ru.practicum.shareitgate.booking;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareitgate.booking.dto.BookingState;
 import ru.practicum.shareitgate.booking.dto.CreateBookingDto;
+import ru.practicum.shareitgate.booking.dto.UpdateBookingStatusDto;
 import ru.practicum.shareitgate.exception.BadRequestException;
 import ru.practicum.shareitgate.exception.UnsupportedStatusException;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.util.List;
 
 @RestController
 @RequestMapping("/bookings")
@@ -23,7 +29,7 @@ public class BookingController {
     private final BookingClient bookingClient;
 
     @PostMapping
-    public ResponseEntity<Object> createBooking(@RequestHeader("X-Sharer-User-Id")
+    public Mono<ResponseEntity<Object>> createBooking(@RequestHeader("X-Sharer-User-Id")
                                                     @Positive(message = "User's id should be positive")
                                                     Long bookerId,
                                                 @RequestBody @Valid CreateBookingDto creationDto) {
@@ -37,7 +43,7 @@ public class BookingController {
     }
 
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<Object> updateStatus(@RequestHeader("X-Sharer-User-Id")
+    public Mono<ResponseEntity<Object>> updateStatus(@RequestHeader("X-Sharer-User-Id")
                                    @Positive(message = "User's id should be positive")
                                    Long ownerId,
                                    @PathVariable
@@ -48,8 +54,21 @@ public class BookingController {
         return bookingClient.updateStatus(ownerId, bookingId, approved);
     }
 
+    @PatchMapping("/batch")
+    public Mono<ResponseEntity<Object>> updateStatuses(@RequestHeader("X-Sharer-User-Id")
+                                                 @Positive(message = "User's id should be positive")
+                                                 Long ownerId,
+                                                 @RequestBody
+                                                 @NotEmpty(message = "List of updates shouldn't be empty")
+                                                 @Size(max = 500, message = "List of updates shouldn't contain more "
+                                                         + "than 500 bookings")
+                                                 List<@Valid UpdateBookingStatusDto> updates) {
+        log.info("Запрос обновления статуса {} бронирований от пользователя с id {}", updates.size(), ownerId);
+        return bookingClient.updateStatuses(ownerId, updates);
+    }
+
     @DeleteMapping("/{bookingId}")
-    public ResponseEntity<Object> delete(@RequestHeader("X-Sharer-User-Id")
+    public Mono<ResponseEntity<Object>> delete(@RequestHeader("X-Sharer-User-Id")
                                              @Positive(message = "User's id should be positive")
                                              Long bookerId,
                                          @PathVariable
@@ -60,14 +79,16 @@ public class BookingController {
     }
 
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> findById(@RequestHeader("X-Sharer-User-Id")
+    public Mono<ResponseEntity<Object>> findById(@RequestHeader("X-Sharer-User-Id")
                                @Positive(message = "User's id should be positive")
                                Long userId,
                                @PathVariable
                                @Positive(message = "Booking's id should be positive")
-                               Long bookingId) {
+                               Long bookingId,
+                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                               String ifNoneMatch) {
         log.info("Запрос получения бронирования с id {} от пользователя с id {}", bookingId, userId);
-        return bookingClient.findById(userId, bookingId);
+        return bookingClient.findById(userId, bookingId, ifNoneMatch);
     }
 
     private UnsupportedStatusException throwUnsupportedStatus(Long userId, String state) {
@@ -77,38 +98,40 @@ public class BookingController {
     }
 
     @GetMapping
-    public ResponseEntity<Object> findAllByBooker(@RequestHeader("X-Sharer-User-Id")
+    public Mono<ResponseEntity<Object>> findAllByBooker(@RequestHeader("X-Sharer-User-Id")
                                             @Positive(message = "User's id should be positive")
                                             Long bookerId,
                                             @RequestParam(name = "state", defaultValue = "ALL") String stateParam,
-                                            @RequestParam(defaultValue = "0")
+                                            @RequestParam(required = false)
                                             @PositiveOrZero(message = "Parameter 'from' should be positive or zero")
-                                            int from,
+                                            Integer from,
                                             @RequestParam(defaultValue = "10")
                                             @Positive(message = "Parameter 'size' should be positive")
-                                            int size) {
+                                            int size,
+                                            @RequestParam(required = false) String cursor) {
         BookingState state = BookingState.getState(stateParam).orElseThrow(
             () -> throwUnsupportedStatus(bookerId, stateParam)
         );
         log.info("Запрос получения всех бронирований пользователя с id {}", bookerId);
-        return bookingClient.findAllByBooker(bookerId, state, from, size);
+        return bookingClient.findAllByBooker(bookerId, state, from, size, cursor);
     }
 
     @GetMapping("/owner")
-    public ResponseEntity<Object> findAllByOwner(@RequestHeader("X-Sharer-User-Id")
+    public Mono<ResponseEntity<Object>> findAllByOwner(@RequestHeader("X-Sharer-User-Id")
                                            @Positive(message = "User's id should be positive")
                                            Long ownerId,
                                            @RequestParam(name = "state", defaultValue = "ALL") String stateParam,
-                                           @RequestParam(defaultValue = "0")
+                                           @RequestParam(required = false)
                                            @PositiveOrZero(message = "Parameter 'from' should be positive or zero")
-                                           int from,
+                                           Integer from,
                                            @RequestParam(defaultValue = "10")
                                            @Positive(message = "Parameter 'size' should be positive")
-                                           int size) {
+                                           int size,
+                                           @RequestParam(required = false) String cursor) {
         BookingState state = BookingState.getState(stateParam).orElseThrow(
                 () -> throwUnsupportedStatus(ownerId, stateParam)
         );
         log.info("Запрос получения всех бронирований владельца предметов с id {}", ownerId);
-        return bookingClient.findAllByOwner(ownerId, state, from, size);
+        return bookingClient.findAllByOwner(ownerId, state, from, size, cursor);
     }
 }
@@ -0,0 +1,17 @@
+package ru.practicum.shareitgate.booking.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+
+@Value
+@Builder
+public class UpdateBookingStatusDto {
+    @NotNull(message = "Booking's id shouldn't be null.")
+    @Positive(message = "Booking's id should be positive")
+    Long bookingId;
+    @NotNull(message = "Parameter 'approved' shouldn't be null.")
+    Boolean approved;
+}
@@ -0,0 +1,47 @@
+package ru.practicum.shareitgate.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareitgate.client.ServerTransport;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Передаёт запросы дальше и сбрасывает области кэша ответов по подсказке сервера в ответе,
+ * а саму подсказку убирает из ответа клиенту.
+ */
+class InvalidatingTransport implements ServerTransport {
+    private final ServerTransport delegate;
+    private final ResponseCaching caching;
+
+    InvalidatingTransport(ServerTransport delegate, ResponseCaching caching) {
+        this.delegate = delegate;
+        this.caching = caching;
+    }
+
+    @Override
+    public Mono<ResponseEntity<Object>> exchange(HttpMethod method, String path, HttpHeaders headers,
+                                                 @Nullable Map<String, Object> parameters, @Nullable Object body) {
+        return delegate.exchange(method, path, headers, parameters, body)
+                .map(response -> {
+                    List<String> regions = response.getHeaders().getValuesAsList(ResponseCaching.INVALIDATE_HEADER);
+                    if (regions.isEmpty()) return response;
+                    if (method != HttpMethod.GET) {
+                        caching.invalidate(regions);
+                    }
+                    return withoutHint(response);
+                });
+    }
+
+    // Подсказка предназначена только шлюзу и клиенту не передаётся
+    private static ResponseEntity<Object> withoutHint(ResponseEntity<Object> response) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(response.getHeaders());
+        headers.remove(ResponseCaching.INVALIDATE_HEADER);
+        return ResponseEntity.status(response.getStatusCodeValue()).headers(headers).body(response.getBody());
+    }
+}
@@ -0,0 +1,127 @@
+package ru.practicum.shareitgate.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.practicum.shareitgate.client.ServerResponses;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Область кэша успешных ответов сервера на GET-запросы. Свежий ответ отдаётся без обращения к серверу,
+ * устаревший ещё отдаётся, пока один фоновый запрос получает новый. В личной области ответ хранится
+ * для каждого пользователя отдельно: из него могут исключаться его собственные записи. Ответ общей области
+ * от пользователя не зависит и отдаётся всем, кому сервер уже отвечал успешно, а неизвестный пользователь
+ * идёт на сервер и получает от него 404, который не кэшируется.
+ */
+@Slf4j
+public class ResponseCache {
+    private final String region;
+    private final Cache<List<Object>, CachedResponse> cache;
+    // Пользователи, которым сервер успешно ответил в общей области; null для личной области
+    @Nullable
+    private final Cache<Long, Boolean> knownUsers;
+    private final long ttlNanos;
+    private final Ticker ticker;
+    private final Counter staleHits;
+    private final Counter invalidations;
+    private final Set<List<Object>> refreshing = ConcurrentHashMap.newKeySet();
+    // Счётчик сбросов не даёт положить в кэш ответ, запрошенный до изменения данных
+    private long modifications;
+
+    ResponseCache(String region, Cache<List<Object>, CachedResponse> cache, @Nullable Cache<Long, Boolean> knownUsers,
+                  Duration ttl, Ticker ticker, Counter staleHits, Counter invalidations) {
+        this.region = region;
+        this.cache = cache;
+        this.knownUsers = knownUsers;
+        this.ttlNanos = ttl.toNanos();
+        this.ticker = ticker;
+        this.staleHits = staleHits;
+        this.invalidations = invalidations;
+    }
+
+    public Mono<ResponseEntity<Object>> get(String path, @Nullable Long userId,
+                                            @Nullable Map<String, Object> parameters,
+                                            Supplier<Mono<ResponseEntity<Object>>> call) {
+        if (ttlNanos == 0) return call.get();
+
+        List<Object> key = knownUsers == null ? Arrays.asList(path, userId, parameters) : Arrays.asList(path, parameters);
+        return Mono.defer(() -> {
+            if (knownUsers != null && userId != null && knownUsers.getIfPresent(userId) == null) {
+                return load(key, userId, call);
+            }
+            CachedResponse cached = cache.getIfPresent(key);
+            if (cached == null) return load(key, userId, call);
+            if (ticker.read() - cached.getStoredAt() >= ttlNanos) {
+                staleHits.increment();
+                refresh(key, userId, call);
+            }
+            return Mono.just(cached.getResponse());
+        });
+    }
+
+    public synchronized void invalidate() {
+        modifications++;
+        cache.invalidateAll();
+        if (knownUsers != null) {
+            knownUsers.invalidateAll();
+        }
+        invalidations.increment();
+        log.debug("Сброс области {} кэша ответов по подсказке сервера.", region);
+    }
+
+    private Mono<ResponseEntity<Object>> load(List<Object> key, @Nullable Long userId,
+                                              Supplier<Mono<ResponseEntity<Object>>> call) {
+        long loadedAt = currentModifications();
+        // Кэшированный ответ отдаётся многим клиентам, поэтому его тело читается целиком
+        return call.get()
+                .flatMap(ServerResponses::buffered)
+                .doOnNext(response -> {
+                    if (response.getStatusCode().is2xxSuccessful()) {
+                        put(key, userId, response, loadedAt);
+                    }
+                });
+    }
+
+    // Блокирующий транспорт сервлетного шлюза не должен занимать поток, которому уже отдан устаревший ответ
+    private void refresh(List<Object> key, @Nullable Long userId, Supplier<Mono<ResponseEntity<Object>>> call) {
+        if (!refreshing.add(key)) return;
+        Mono.defer(() -> load(key, userId, call))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doFinally(signal -> refreshing.remove(key))
+                .subscribe(response -> { }, e -> log.warn("Не удалось обновить ответ GET {} в области {} кэша: {}",
+                        key.get(0), region, e.getMessage()));
+    }
+
+    private synchronized long currentModifications() {
+        return modifications;
+    }
+
+    private synchronized void put(List<Object> key, @Nullable Long userId, ResponseEntity<Object> response,
+                                  long loadedAt) {
+        if (modifications == loadedAt) {
+            cache.put(key, new CachedResponse(response, ticker.read()));
+            if (knownUsers != null && userId != null) {
+                knownUsers.put(userId, Boolean.TRUE);
+            }
+        }
+    }
+
+    @Value
+    static class CachedResponse {
+        ResponseEntity<Object> response;
+        long storedAt;
+    }
+}
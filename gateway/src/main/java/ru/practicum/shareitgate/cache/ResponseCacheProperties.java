@@ -0,0 +1,23 @@
+package ru.practicum.shareitgate.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки кэша ответов шлюза. Изменения, прошедшие через этот шлюз, сбрасывают кэш сразу,
+ * а изменения через другие экземпляры шлюза становятся видны не позже ttl + staleWhileRevalidate.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-server.cache")
+public class ResponseCacheProperties {
+    // Сколько ответов хранится в каждой области кэша
+    private long maximumSize = 1000;
+    // Сколько ответ считается свежим; 0 - кэш выключен
+    private Duration ttl = Duration.ofSeconds(5);
+    // Сколько после этого отдаётся устаревший ответ, пока в фоне запрашивается новый
+    private Duration staleWhileRevalidate = Duration.ofSeconds(30);
+}
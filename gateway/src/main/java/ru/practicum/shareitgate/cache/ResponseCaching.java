@@ -0,0 +1,87 @@
+package ru.practicum.shareitgate.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareitgate.client.ServerTransport;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Области кэша ответов для клиентов шлюза. Попадания, промахи и размер областей видны в /actuator/metrics
+ * как cache.gets, cache.puts и cache.size с тегами cache=gateway.responses и region, выдача устаревших
+ * ответов и сбросы - как gateway.cache.stale и gateway.cache.invalidations.
+ */
+@Component
+@EnableConfigurationProperties(ResponseCacheProperties.class)
+public class ResponseCaching {
+    // Сервер перечисляет в нём области, ответы которых устарели после изменяющего запроса
+    public static final String INVALIDATE_HEADER = "X-Shareit-Invalidate";
+
+    private final ResponseCacheProperties properties;
+    private final MeterRegistry registry;
+    private final Ticker ticker;
+    private final ConcurrentMap<String, ResponseCache> regions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ResponseCaching(ResponseCacheProperties properties, MeterRegistry registry) {
+        this(properties, registry, Ticker.systemTicker());
+    }
+
+    ResponseCaching(ResponseCacheProperties properties, MeterRegistry registry, Ticker ticker) {
+        this.properties = properties;
+        this.registry = registry;
+        this.ticker = ticker;
+    }
+
+    // Ответы области зависят от пользователя и хранятся для каждого отдельно
+    public ResponseCache region(String name) {
+        return regions.computeIfAbsent(name, regionName -> createRegion(regionName, false));
+    }
+
+    // Ответы области одинаковы для всех пользователей и хранятся один раз
+    public ResponseCache sharedRegion(String name) {
+        return regions.computeIfAbsent(name, regionName -> createRegion(regionName, true));
+    }
+
+    // Ответы на изменяющие запросы через этот транспорт сбрасывают названные сервером области
+    public ServerTransport watch(ServerTransport transport) {
+        return new InvalidatingTransport(transport, this);
+    }
+
+    void invalidate(List<String> names) {
+        for (String name : names) {
+            ResponseCache region = regions.get(name.trim());
+            if (region != null) {
+                region.invalidate();
+            }
+        }
+    }
+
+    private ResponseCache createRegion(String name, boolean shared) {
+        Duration lifetime = properties.getTtl().plus(properties.getStaleWhileRevalidate());
+        Cache<List<Object>, ResponseCache.CachedResponse> cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(lifetime)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "gateway.responses", "region", name);
+        Cache<Long, Boolean> knownUsers = !shared ? null : Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(lifetime)
+                .ticker(ticker)
+                .build();
+        return new ResponseCache(name, cache, knownUsers, properties.getTtl(), ticker,
+                registry.counter("gateway.cache.stale", "region", name),
+                registry.counter("gateway.cache.invalidations", "region", name));
+    }
+}
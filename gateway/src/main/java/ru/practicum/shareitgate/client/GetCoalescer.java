@@ -0,0 +1,75 @@
+package ru.practicum.shareitgate.client;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Одинаковые одновременные GET-запросы одного клиента шлюза получают один общий ответ сервера.
+ * Запросы одинаковы, если совпадают путь, параметры, класс видимости и заголовки Accept и условного запроса.
+ * Класс видимости выбирает клиент: пользователи одного класса видят одинаковый ответ, поэтому запрос
+ * к серверу идёт от имени любого из них. От If-None-Match и If-Modified-Since зависит, придёт ли тело или 304.
+ * Готовый успешный ответ ещё window отдаётся следующим таким же запросам, ошибки и ответы не 2xx
+ * достаются только запросам, объединённым с выполнявшимся. Общий ответ получают несколько клиентов,
+ * поэтому его тело читается в память целиком, а не передаётся потоком.
+ */
+@Slf4j
+public class GetCoalescer {
+    private final ConcurrentMap<List<Object>, Mono<ResponseEntity<Object>>> calls = new ConcurrentHashMap<>();
+    private final Duration window;
+    private final Counter upstreamCalls;
+    private final Counter coalescedCalls;
+
+    GetCoalescer(Duration window, Counter upstreamCalls, Counter coalescedCalls) {
+        this.window = window;
+        this.upstreamCalls = upstreamCalls;
+        this.coalescedCalls = coalescedCalls;
+    }
+
+    public Mono<ResponseEntity<Object>> coalesce(String path, @Nullable Object visibility, HttpHeaders headers,
+                                                 @Nullable Map<String, Object> parameters,
+                                                 Supplier<Mono<ResponseEntity<Object>>> call) {
+        List<Object> key = Arrays.asList(path, parameters, visibility, headers.getAccept(),
+                headers.getIfNoneMatch(), headers.getFirst(HttpHeaders.IF_MODIFIED_SINCE));
+        return Mono.defer(() -> {
+            boolean[] created = {false};
+            Mono<ResponseEntity<Object>> shared = calls.computeIfAbsent(key, k -> {
+                created[0] = true;
+                return call.get()
+                        .flatMap(ServerResponses::buffered)
+                        .doOnSuccess(response -> release(k, response))
+                        .doOnError(error -> calls.remove(k))
+                        .doOnCancel(() -> calls.remove(k))
+                        .cache();
+            });
+            if (created[0]) {
+                upstreamCalls.increment();
+            } else {
+                coalescedCalls.increment();
+                log.debug("Запрос GET {} пользователя с id {} объединён с выполняющимся, класс видимости {}.", path,
+                        headers.getFirst(ServerResponses.USER_HEADER), visibility);
+            }
+            return shared;
+        });
+    }
+
+    // Пока запись в карте, новые запросы с тем же ключом получают её ответ, поэтому удаляется всегда своя запись
+    private void release(List<Object> key, @Nullable ResponseEntity<Object> response) {
+        if (window.isZero() || response == null || response.getStatusCodeValue() / 100 != 2) {
+            calls.remove(key);
+        } else {
+            Mono.delay(window).subscribe(tick -> calls.remove(key));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package ru.practicum.shareitgate.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Объединение одинаковых GET-запросов для клиентов шлюза. Число запросов к серверу и объединённых
+ * запросов видно в /actuator/metrics как gateway.get.upstream и gateway.get.coalesced с тегом family.
+ */
+@Component
+public class GetCoalescing {
+    private final Duration window;
+    private final MeterRegistry registry;
+
+    public GetCoalescing(@Value("${shareit-server.coalescing.window:0ms}") Duration window,
+                         MeterRegistry registry) {
+        this.window = window;
+        this.registry = registry;
+    }
+
+    public GetCoalescer forFamily(String family) {
+        return new GetCoalescer(window,
+                registry.counter("gateway.get.upstream", "family", family),
+                registry.counter("gateway.get.coalesced", "family", family));
+    }
+}
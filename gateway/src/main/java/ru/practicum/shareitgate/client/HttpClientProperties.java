@@ -0,0 +1,29 @@
+package ru.practicum.shareitgate.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки общего пула соединений шлюза с сервером.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-server.http-client")
+public class HttpClientProperties {
+    // Все клиенты обращаются к одному серверу, поэтому почти весь пул приходится на один маршрут
+    private int maxTotal = 200;
+    private int maxPerRoute = 200;
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    // Наибольшая пауза между пакетами ответа, а не время всего ответа: выгрузки идут дольше
+    private Duration readTimeout = Duration.ofSeconds(30);
+    // Сколько запрос ждёт свободного соединения из пула
+    private Duration poolTimeout = Duration.ofSeconds(1);
+    // Сколько соединение живёт без Keep-Alive от сервера и сколько может простаивать до закрытия
+    private Duration keepAlive = Duration.ofSeconds(30);
+    private Duration idleTimeout = Duration.ofSeconds(30);
+    // Соединение, простоявшее дольше, проверяется перед выдачей из пула
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+}
@@ -0,0 +1,67 @@
+package ru.practicum.shareitgate.client;
+
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * Блокирующее обращение к серверу для сервлетного шлюза: запрос выполняется в потоке,
+ * который подписался на ответ, то есть в потоке обработки запроса клиента.
+ */
+public class RestTemplateTransport implements ServerTransport {
+    private final RestTemplate rest;
+
+    public RestTemplateTransport(RestTemplate rest) {
+        this.rest = rest;
+    }
+
+    @Override
+    public Mono<ResponseEntity<Object>> exchange(HttpMethod method, String path, HttpHeaders headers,
+                                                 @Nullable Map<String, Object> parameters, @Nullable Object body) {
+        return Mono.fromCallable(() -> send(method, path, headers, parameters, body));
+    }
+
+    // Тело ответа не читается в память: Spring MVC копирует его клиенту из открытого соединения.
+    // RestTemplate.exchange закрыл бы ответ до возврата, поэтому запрос выполняется через ту же фабрику
+    // запросов, а тело запроса пишется теми же конвертерами. Ответы с ошибкой передаются так же, как успешные
+    private ResponseEntity<Object> send(HttpMethod method, String path, HttpHeaders headers,
+                                        @Nullable Map<String, Object> parameters, @Nullable Object body) {
+        URI uri = parameters != null
+                ? rest.getUriTemplateHandler().expand(path, parameters)
+                : rest.getUriTemplateHandler().expand(path);
+        try {
+            ClientHttpRequest request = rest.getRequestFactory().createRequest(uri, method);
+            rest.httpEntityCallback(new HttpEntity<>(body, headers)).doWithRequest(request);
+            ClientHttpResponse response = request.execute();
+            return ServerResponses.relay(response.getRawStatusCode(), response.getHeaders(), streamedBody(response));
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error on " + method + " request for \"" + uri + "\": "
+                    + e.getMessage(), e);
+        }
+    }
+
+    // Закрытие потока тела закрывает ответ сервера и возвращает соединение в пул
+    @Nullable
+    private static InputStreamResource streamedBody(ClientHttpResponse response) throws IOException {
+        if (!ServerResponses.hasBody(response.getRawStatusCode(), response.getHeaders())) {
+            response.close();
+            return null;
+        }
+        return new InputStreamResource(new FilterInputStream(response.getBody()) {
+            @Override
+            public void close() {
+                response.close();
+            }
+        });
+    }
+}
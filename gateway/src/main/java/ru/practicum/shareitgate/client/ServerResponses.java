@@ -0,0 +1,112 @@
+package ru.practicum.shareitgate.client;
+
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Тело ответа сервера передаётся клиенту потоком: у сервлетного шлюза как InputStreamResource, который
+ * Spring MVC копирует в ответ клиенту, у реактивного как StreamedBody с буферами Netty. Соединение с сервером
+ * занято, пока тело не передано клиенту, не прочитано целиком или не отброшено.
+ */
+public final class ServerResponses {
+    static final String USER_HEADER = "X-Sharer-User-Id";
+
+    private static final Set<String> CONNECTION_HEADERS = Set.of("connection", "keep-alive", "transfer-encoding",
+            "te", "trailer", "upgrade", "content-length", "date");
+
+    private ServerResponses() {
+    }
+
+    static HttpHeaders requestHeaders(@Nullable Long userId) {
+        return requestHeaders(userId, null);
+    }
+
+    // If-None-Match клиента передаётся серверу, и на неизменившийся ресурс он отвечает 304 без тела
+    static HttpHeaders requestHeaders(@Nullable Long userId, @Nullable String ifNoneMatch) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        if (userId != null) {
+            headers.set(USER_HEADER, String.valueOf(userId));
+        }
+        if (ifNoneMatch != null) {
+            headers.set(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return headers;
+    }
+
+    // Тело ответа сервера передаётся клиенту как есть, без разбора JSON и повторной сериализации.
+    // Заголовки соединения не переносятся: их выставляет сам шлюз
+    static ResponseEntity<Object> relay(int status, @Nullable HttpHeaders serverHeaders, @Nullable Object body) {
+        HttpHeaders headers = new HttpHeaders();
+        if (serverHeaders != null) {
+            serverHeaders.forEach((name, values) -> {
+                if (!CONNECTION_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                    headers.put(name, values);
+                }
+            });
+        }
+        return ResponseEntity.status(status).headers(headers).body(body);
+    }
+
+    // У ответов 204 и 304 и ответов с нулевой длиной тела нет, соединение освобождается сразу
+    static boolean hasBody(int status, HttpHeaders headers) {
+        return status >= 200 && status != 204 && status != 304 && headers.getContentLength() != 0;
+    }
+
+    // Тело читается целиком, когда один ответ отдаётся нескольким клиентам: объединёнными запросами или из кэша
+    public static Mono<ResponseEntity<Object>> buffered(ResponseEntity<Object> response) {
+        Object body = response.getBody();
+        Mono<byte[]> content;
+        if (body instanceof InputStreamResource) {
+            content = Mono.fromCallable(() -> {
+                try (InputStream in = ((InputStreamResource) body).getInputStream()) {
+                    return StreamUtils.copyToByteArray(in);
+                }
+            });
+        } else if (body instanceof StreamedBody) {
+            content = DataBufferUtils.join(((StreamedBody) body).getContent())
+                    .map(ServerResponses::toBytes);
+        } else {
+            return Mono.just(response);
+        }
+        return content.defaultIfEmpty(new byte[0])
+                .map(bytes -> ResponseEntity.status(response.getStatusCodeValue())
+                        .headers(response.getHeaders())
+                        .body(bytes));
+    }
+
+    // Тело, которое не будет передано клиенту, дочитывается или закрывается, и соединение возвращается в пул
+    public static void discard(ResponseEntity<?> response) {
+        Object body = response.getBody();
+        if (body instanceof InputStreamResource) {
+            try {
+                ((InputStreamResource) body).getInputStream().close();
+            } catch (IOException | IllegalStateException e) {
+                // Тело уже прочитано или соединение уже закрыто
+            }
+        } else if (body instanceof StreamedBody) {
+            ((StreamedBody) body).getContent().subscribe(DataBufferUtils::release, e -> { });
+        }
+    }
+
+    private static byte[] toBytes(DataBuffer buffer) {
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        DataBufferUtils.release(buffer);
+        return bytes;
+    }
+}
@@ -0,0 +1,18 @@
+package ru.practicum.shareitgate.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Способ обращения шлюза к серверу. Реализация выбирается по типу веб-приложения при запуске:
+ * блокирующий RestTemplate для сервлетного шлюза и неблокирующий WebClient для реактивного.
+ */
+public interface ServerTransport {
+    Mono<ResponseEntity<Object>> exchange(HttpMethod method, String path, HttpHeaders headers,
+                                          @Nullable Map<String, Object> parameters, @Nullable Object body);
+}
@@ -0,0 +1,6 @@
+package ru.practicum.shareitgate.client;
+
+@FunctionalInterface
+public interface ServerTransportFactory<T extends ServerTransport> {
+    T create(String baseUrl);
+}
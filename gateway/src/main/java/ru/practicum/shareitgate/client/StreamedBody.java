@@ -0,0 +1,20 @@
+package ru.practicum.shareitgate.client;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.publisher.Flux;
+
+/**
+ * Тело ответа сервера в реактивном шлюзе: буферы передаются клиенту по мере получения от сервера.
+ * Отдельный тип нужен WebFlux, чтобы выбрать для тела StreamedBodyWriter, а не сериализацию в JSON.
+ */
+public final class StreamedBody {
+    private final Flux<DataBuffer> content;
+
+    StreamedBody(Flux<DataBuffer> content) {
+        this.content = content;
+    }
+
+    public Flux<DataBuffer> getContent() {
+        return content;
+    }
+}
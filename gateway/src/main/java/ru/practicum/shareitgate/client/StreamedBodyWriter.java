@@ -0,0 +1,36 @@
+package ru.practicum.shareitgate.client;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Передаёт буферы тела ответа сервера в ответ клиенту реактивного шлюза без разбора и копирования.
+ * Тип содержимого уже взят из ответа сервера, поэтому подходит любой.
+ */
+class StreamedBodyWriter implements HttpMessageWriter<StreamedBody> {
+
+    @Override
+    public List<MediaType> getWritableMediaTypes() {
+        return List.of(MediaType.ALL);
+    }
+
+    @Override
+    public boolean canWrite(ResolvableType elementType, @Nullable MediaType mediaType) {
+        return StreamedBody.class.isAssignableFrom(elementType.toClass());
+    }
+
+    @Override
+    public Mono<Void> write(Publisher<? extends StreamedBody> inputStream, ResolvableType elementType,
+                            @Nullable MediaType mediaType, ReactiveHttpOutputMessage message,
+                            Map<String, Object> hints) {
+        return message.writeWith(Mono.from(inputStream).flatMapMany(StreamedBody::getContent));
+    }
+}
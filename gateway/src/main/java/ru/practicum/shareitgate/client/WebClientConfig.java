@@ -0,0 +1,58 @@
+package ru.practicum.shareitgate.client;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Неблокирующий HTTP-клиент реактивного шлюза с теми же настройками пула, что и у сервлетного.
+ * Метрики пула публикуются как reactor.netty.connection.provider.* с именем shareit-server.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties(HttpClientProperties.class)
+public class WebClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider serverConnectionProvider(HttpClientProperties properties) {
+        return ConnectionProvider.builder("shareit-server")
+                .maxConnections(properties.getMaxTotal())
+                .pendingAcquireTimeout(properties.getPoolTimeout())
+                .maxIdleTime(properties.getIdleTimeout())
+                .evictInBackground(properties.getIdleTimeout())
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public ReactorClientHttpConnector serverHttpConnector(ConnectionProvider serverConnectionProvider,
+                                                          HttpClientProperties properties) {
+        HttpClient httpClient = HttpClient.create(serverConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .responseTimeout(properties.getReadTimeout());
+        return new ReactorClientHttpConnector(httpClient);
+    }
+
+    // Тела ответов сервера передаются клиентам реактивного шлюза буферами, без сериализации в JSON
+    @Bean
+    public CodecCustomizer streamedBodyCodec() {
+        return configurer -> configurer.customCodecs().register(new StreamedBodyWriter());
+    }
+
+    @Bean
+    public ServerTransportFactory<WebClientTransport> serverTransports(WebClient.Builder builder,
+                                                                       ReactorClientHttpConnector serverHttpConnector) {
+        return baseUrl -> new WebClientTransport(builder.clone()
+                .clientConnector(serverHttpConnector)
+                .uriBuilderFactory(new DefaultUriBuilderFactory(baseUrl))
+                .build());
+    }
+}
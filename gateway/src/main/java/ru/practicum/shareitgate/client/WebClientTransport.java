@@ -0,0 +1,51 @@
+package ru.practicum.shareitgate.client;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Неблокирующее обращение к серверу для реактивного шлюза: пока сервер готовит ответ,
+ * ни один поток шлюза не ждёт, а число одновременных запросов ограничено только пулом соединений.
+ */
+public class WebClientTransport implements ServerTransport {
+    private final WebClient webClient;
+
+    public WebClientTransport(WebClient webClient) {
+        this.webClient = webClient;
+    }
+
+    @Override
+    public Mono<ResponseEntity<Object>> exchange(HttpMethod method, String path, HttpHeaders headers,
+                                                 @Nullable Map<String, Object> parameters, @Nullable Object body) {
+        WebClient.RequestBodySpec request = webClient.method(method)
+                .uri(path, parameters != null ? parameters : Map.of())
+                .headers(requestHeaders -> requestHeaders.addAll(headers));
+        return (body != null ? request.bodyValue(body) : request)
+                .retrieve()
+                .onRawStatus(status -> true, response -> Mono.empty())
+                .toEntityFlux(DataBuffer.class)
+                .map(response -> ServerResponses.relay(response.getStatusCodeValue(), response.getHeaders(),
+                        streamedBody(response)));
+    }
+
+    // Буферы тела передаются клиенту по мере получения и не собираются в памяти, поэтому размер ответа
+    // не ограничен maxInMemorySize кодеков. Ответы с ошибкой передаются так же, как успешные
+    @Nullable
+    private static StreamedBody streamedBody(ResponseEntity<Flux<DataBuffer>> response) {
+        Flux<DataBuffer> content = response.getBody() != null ? response.getBody() : Flux.empty();
+        if (!ServerResponses.hasBody(response.getStatusCodeValue(), response.getHeaders())) {
+            content.subscribe(DataBufferUtils::release, e -> { });
+            return null;
+        }
+        return new StreamedBody(content);
+    }
+}
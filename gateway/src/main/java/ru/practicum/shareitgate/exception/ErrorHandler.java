@@ -7,7 +7,9 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 import ru.practicum.shareitgate.booking.BookingController;
+import ru.practicum.shareitgate.export.ExportController;
 import ru.practicum.shareitgate.item.ItemController;
 import ru.practicum.shareitgate.request.ItemRequestController;
 import ru.practicum.shareitgate.user.UserController;
@@ -22,7 +24,8 @@ import java.util.Map;
         UserController.class,
         ItemController.class,
         BookingController.class,
-        ItemRequestController.class})
+        ItemRequestController.class,
+        ExportController.class})
 public class ErrorHandler {
     private void log(Throwable e) {
         log.error("Исключение {}: {}", e, e.getMessage());
@@ -40,8 +43,20 @@ public class ErrorHandler {
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Map<String, String> handleValid(final MethodArgumentNotValidException e) {
         log(e);
+        return validationErrors(e.getBindingResult().getAllErrors());
+    }
+
+    // Ошибки валидации тела запроса в реактивном шлюзе
+    @ExceptionHandler(WebExchangeBindException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> handleValid(final WebExchangeBindException e) {
+        log(e);
+        return validationErrors(e.getBindingResult().getAllErrors());
+    }
+
+    private Map<String, String> validationErrors(List<ObjectError> errors) {
         List<String> details = new ArrayList<>();
-        for (ObjectError error : e.getBindingResult().getAllErrors()) {
+        for (ObjectError error : errors) {
             details.add(error.getDefaultMessage());
         }
         return Map.of("error", "Validation exception",
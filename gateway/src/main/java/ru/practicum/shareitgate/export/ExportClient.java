@@ -0,0 +1,46 @@
+package ru.practicum.shareitgate.export;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareitgate.client.ServerTransport;
+import ru.practicum.shareitgate.client.ServerTransportFactory;
+import ru.practicum.shareitgate.resilience.ServerResilience;
+
+import java.util.List;
+
+/**
+ * Потоковые выгрузки проходят через ту же защиту обращений к серверу, что и остальные запросы, но без
+ * объединения запросов и кэша: тело ответа передаётся клиенту по мере получения и не собирается в памяти.
+ * Повтор возможен только до того, как клиенту передан первый байт: повторяются ответы 502-504 и ошибки
+ * соединения, а тело такого ответа отбрасывается. Место в ограничителе одновременных вызовов занято
+ * до получения заголовков ответа, передача самой выгрузки его не держит.
+ */
+@Service
+public class ExportClient {
+    private final ServerTransport transport;
+
+    public ExportClient(@Value("${shareit-server.url}") String serverUrl, ServerTransportFactory<?> transports,
+                        ServerResilience resilience) {
+        transport = resilience.protect("export", transports.create(serverUrl));
+    }
+
+    public Mono<ResponseEntity<Object>> exportItemsByUser(long userId) {
+        return export("/items/export", userId);
+    }
+
+    public Mono<ResponseEntity<Object>> exportByOwner(long ownerId) {
+        return export("/bookings/owner/export", ownerId);
+    }
+
+    private Mono<ResponseEntity<Object>> export(String path, long userId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON));
+        headers.set("X-Sharer-User-Id", String.valueOf(userId));
+        return transport.exchange(HttpMethod.GET, path, headers, null, null);
+    }
+}
@@ -0,0 +1,40 @@
+package ru.practicum.shareitgate.export;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import javax.validation.constraints.Positive;
+
+/**
+ * Потоковые выгрузки. Тело ответа сервера передаётся клиенту так же, как в остальных контроллерах:
+ * сервлетным шлюзом из открытого соединения, реактивным буферами по мере получения.
+ */
+@RestController
+@RequiredArgsConstructor
+@Validated
+@Slf4j
+public class ExportController {
+    private final ExportClient exportClient;
+
+    @GetMapping("/items/export")
+    public Mono<ResponseEntity<Object>> exportItemsByUser(@RequestHeader("X-Sharer-User-Id")
+                                                          @Positive(message = "User's id should be positive")
+                                                          Long userId) {
+        log.info("Запрос выгрузки всех предметов пользователя с id {}", userId);
+        return exportClient.exportItemsByUser(userId);
+    }
+
+    @GetMapping("/bookings/owner/export")
+    public Mono<ResponseEntity<Object>> exportByOwner(@RequestHeader("X-Sharer-User-Id")
+                                                      @Positive(message = "User's id should be positive")
+                                                      Long ownerId) {
+        log.info("Запрос выгрузки всех бронирований владельца предметов с id {}", ownerId);
+        return exportClient.exportByOwner(ownerId);
+    }
+}
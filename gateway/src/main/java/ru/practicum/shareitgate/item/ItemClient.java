@@ -1,35 +1,55 @@
 package ru.practicum.shareitgate.item;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareitgate.cache.ResponseCache;
+import ru.practicum.shareitgate.cache.ResponseCaching;
 import ru.practicum.shareitgate.client.BaseClient;
+import ru.practicum.shareitgate.client.GetCoalescing;
+import ru.practicum.shareitgate.client.ServerTransportFactory;
+import ru.practicum.shareitgate.resilience.ServerResilience;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareitgate.item.dto.CreateCommentDto;
 import ru.practicum.shareitgate.item.dto.CreateItemDto;
 
 import javax.validation.ValidationException;
+import java.time.LocalDateTime;
 import java.util.Map;
 
 @Service
 public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
 
+    // Сервер называет в нём владельца вещи, клиенту заголовок не передаётся
+    static final String OWNER_HEADER = "X-Shareit-Owner";
+    private static final String OWNER_VISIBILITY = "owner";
+    private static final String NON_OWNER_VISIBILITY = "non-owner";
+
+    private final ResponseCache searchCache;
+    // Владелец вещи не меняется, поэтому запомненный по ответу сервера владелец остаётся верным
+    private final Cache<Long, Long> owners = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .build();
+
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(builder.uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                .build());
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, ServerTransportFactory<?> transports,
+                      ServerResilience resilience, GetCoalescing coalescing, ResponseCaching caching) {
+        super(caching.watch(resilience.protect("items", transports.create(serverUrl + API_PREFIX))),
+                coalescing.forFamily("items"));
+        searchCache = caching.sharedRegion("items");
     }
 
-    public ResponseEntity<Object> createItem(Long userId, CreateItemDto creationDto) {
+    public Mono<ResponseEntity<Object>> createItem(Long userId, CreateItemDto creationDto) {
         return post("", userId, creationDto);
     }
 
-    public ResponseEntity<Object> createComment(Long itemId, Long authorId, CreateCommentDto creationDto) {
+    public Mono<ResponseEntity<Object>> createComment(Long itemId, Long authorId, CreateCommentDto creationDto) {
         return post("/" + itemId + "/comment", authorId, creationDto);
     }
 
@@ -57,17 +77,43 @@ public class ItemClient extends BaseClient {
         });
     }
 
-    public ResponseEntity<Object> updateItem(Long itemId, Long userId, Map<String, Object> fields) {
+    public Mono<ResponseEntity<Object>> updateItem(Long itemId, Long userId, Map<String, Object> fields) {
         fields.remove("id");
         validateFields(fields);
         return patch("/" + itemId, userId, fields);
     }
 
-    public ResponseEntity<Object> getItemById(Long userId, Long itemId) {
-        return get("/" + itemId, userId);
+    public Mono<ResponseEntity<Object>> getItemById(Long userId, Long itemId, @Nullable String ifNoneMatch) {
+        return get("/" + itemId, userId, null, ifNoneMatch, visibility(itemId, userId))
+                .map(response -> rememberOwner(itemId, response));
+    }
+
+    // Владелец видит вещь с бронированиями, остальные - одинаково. Пока владелец вещи неизвестен,
+    // объединяются только запросы одного пользователя
+    private Object visibility(Long itemId, Long userId) {
+        Long ownerId = owners.getIfPresent(itemId);
+        if (ownerId == null) return userId;
+        return ownerId.equals(userId) ? OWNER_VISIBILITY : NON_OWNER_VISIBILITY;
     }
 
-    public ResponseEntity<Object> getItemsByUser(Long userId, int from, int size) {
+    private ResponseEntity<Object> rememberOwner(Long itemId, ResponseEntity<Object> response) {
+        String ownerId = response.getHeaders().getFirst(OWNER_HEADER);
+        if (ownerId == null) return response;
+        owners.put(itemId, Long.valueOf(ownerId));
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(response.getHeaders());
+        headers.remove(OWNER_HEADER);
+        return ResponseEntity.status(response.getStatusCodeValue()).headers(headers).body(response.getBody());
+    }
+
+    public Mono<ResponseEntity<Object>> getItemsByUser(Long userId, Long afterId, int from, int size) {
+        if (afterId != null) {
+            Map<String, Object> parameters = Map.of(
+                    "size", size,
+                    "afterId", afterId
+            );
+            return get("?size={size}&afterId={afterId}", userId, parameters);
+        }
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -75,16 +121,39 @@ public class ItemClient extends BaseClient {
         return get("?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> searchItems(Long userId, String text, int from, int size) {
+    public Mono<ResponseEntity<Object>> getAvailability(Long userId, Long itemId, LocalDateTime from, LocalDateTime to) {
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "to", to
+        );
+        return get("/" + itemId + "/availability?from={from}&to={to}", userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> getComments(Long userId, Long itemId, String cursor, int size) {
+        if (cursor != null) {
+            Map<String, Object> parameters = Map.of(
+                    "cursor", cursor,
+                    "size", size
+            );
+            return get("/" + itemId + "/comments?cursor={cursor}&size={size}", userId, parameters);
+        }
+        Map<String, Object> parameters = Map.of(
+                "size", size
+        );
+        return get("/" + itemId + "/comments?size={size}", userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> searchItems(Long userId, String text, int from, int size) {
         Map<String, Object> parameters = Map.of(
                 "text", text,
                 "from", from,
                 "size", size
         );
-        return get("/search?text={text}&from={from}&size={size}", userId, parameters);
+        String path = "/search?text={text}&from={from}&size={size}";
+        return searchCache.get(path, userId, parameters, () -> get(path, userId, parameters));
     }
 
-    public ResponseEntity<Object> deleteItem(Long userId, Long itemId) {
+    public Mono<ResponseEntity<Object>> deleteItem(Long userId, Long itemId) {
         return delete("/" + itemId, userId);
     }
 }
@@ -2,15 +2,21 @@ package ru.practicum.shareitgate.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareitgate.exception.BadRequestException;
 import ru.practicum.shareitgate.item.dto.CreateCommentDto;
 import ru.practicum.shareitgate.item.dto.CreateItemDto;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Map;
 
@@ -23,7 +29,7 @@ public class ItemController {
     private final ItemClient itemClient;
 
     @PostMapping
-    public ResponseEntity<Object> createItem(@RequestHeader("X-Sharer-User-Id")
+    public Mono<ResponseEntity<Object>> createItem(@RequestHeader("X-Sharer-User-Id")
                                                  @Positive(message = "User's id should be positive")
                                                  Long userId,
                                              @Valid @RequestBody CreateItemDto creationDto) {
@@ -32,7 +38,7 @@ public class ItemController {
     }
 
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> createComment(@PathVariable
+    public Mono<ResponseEntity<Object>> createComment(@PathVariable
                                     @Positive(message = "Item's id should be positive")
                                     Long itemId,
                                     @RequestHeader("X-Sharer-User-Id")
@@ -45,7 +51,7 @@ public class ItemController {
     }
 
     @PatchMapping("{itemId}")
-    public ResponseEntity<Object> updateItem(@PathVariable
+    public Mono<ResponseEntity<Object>> updateItem(@PathVariable
                               @Positive(message = "Item's id should be positive")
                               Long itemId,
                               @RequestHeader("X-Sharer-User-Id")
@@ -57,32 +63,80 @@ public class ItemController {
     }
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<Object> getItemById(@PathVariable
+    public Mono<ResponseEntity<Object>> getItemById(@PathVariable
                                @Positive(message = "Item's id should be positive")
                                Long itemId,
                                @RequestHeader("X-Sharer-User-Id")
                                @Positive(message = "User's id should be positive")
-                               Long userId) {
+                               Long userId,
+                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                               String ifNoneMatch) {
         log.info("Запрос получения предмета с id {} от пользователя с id {}", itemId, userId);
-        return itemClient.getItemById(userId, itemId);
+        return itemClient.getItemById(userId, itemId, ifNoneMatch);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getItemsByUser(@RequestHeader("X-Sharer-User-Id")
+    public Mono<ResponseEntity<Object>> getItemsByUser(@RequestHeader("X-Sharer-User-Id")
                                         @Positive(message = "User's id should be positive")
                                         Long userId,
-                                        @RequestParam(defaultValue = "0")
+                                        @RequestParam(required = false)
                                         @PositiveOrZero(message = "Parameter 'from' should be positive or zero")
-                                        int from,
+                                        Integer from,
                                         @RequestParam(defaultValue = "10")
                                         @Positive(message = "Parameter 'size' should be positive")
-                                        int size) {
+                                        int size,
+                                        @RequestParam(required = false)
+                                        @Positive(message = "Parameter 'afterId' should be positive")
+                                        Long afterId) {
+        if (from != null && afterId != null) {
+            log.error("BadRequest. Запрос предметов пользователя с id {} одновременно со смещением и после id.",
+                    userId);
+            throw new BadRequestException("Parameters 'from' and 'afterId' cannot be used together.");
+        }
         log.info("Запрос получения всех предметов пользователя с id {}", userId);
-        return itemClient.getItemsByUser(userId, from, size);
+        return itemClient.getItemsByUser(userId, afterId, from == null ? 0 : from, size);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public Mono<ResponseEntity<Object>> getAvailability(@PathVariable
+                                                  @Positive(message = "Item's id should be positive")
+                                                  Long itemId,
+                                                  @RequestHeader("X-Sharer-User-Id")
+                                                  @Positive(message = "User's id should be positive")
+                                                  Long userId,
+                                                  @RequestParam
+                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime from,
+                                                  @RequestParam
+                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            log.error("BadRequest. Начало периода позже окончания в запросе свободного времени предмета с id {}.",
+                    itemId);
+            throw new BadRequestException("The start of the period must be before the end.");
+        }
+        log.info("Запрос свободного времени предмета с id {} от пользователя с id {}", itemId, userId);
+        return itemClient.getAvailability(userId, itemId, from, to);
+    }
+
+    @GetMapping("/{itemId}/comments")
+    public Mono<ResponseEntity<Object>> getComments(@PathVariable
+                                              @Positive(message = "Item's id should be positive")
+                                              Long itemId,
+                                              @RequestHeader("X-Sharer-User-Id")
+                                              @Positive(message = "User's id should be positive")
+                                              Long userId,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "10")
+                                              @Positive(message = "Parameter 'size' should be positive")
+                                              @Max(value = 100, message = "Parameter 'size' shouldn't be more than 100")
+                                              int size) {
+        log.info("Запрос комментариев предмета с id {} от пользователя с id {}", itemId, userId);
+        return itemClient.getComments(userId, itemId, cursor, size);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Object> searchItems(@RequestHeader("X-Sharer-User-Id")
+    public Mono<ResponseEntity<Object>> searchItems(@RequestHeader("X-Sharer-User-Id")
                                                   @Positive(message = "User's id should be positive")
                                                   Long userId,
                                               @RequestParam String text,
@@ -94,14 +148,14 @@ public class ItemController {
                                                   int size) {
         log.info("Запрос поиска предметов от пользователя с id {}", userId);
         if (text.isBlank()) {
-            return ResponseEntity.ok(new ArrayList<>());
+            return Mono.just(ResponseEntity.ok(new ArrayList<>()));
         } else {
             return itemClient.searchItems(userId, text, from, size);
         }
     }
 
     @DeleteMapping("/{itemId}")
-    public ResponseEntity<Object> deleteItem(@RequestHeader("X-Sharer-User-Id")
+    public Mono<ResponseEntity<Object>> deleteItem(@RequestHeader("X-Sharer-User-Id")
                            @Positive(message = "User's id should be positive")
                            Long userId,
                            @PathVariable
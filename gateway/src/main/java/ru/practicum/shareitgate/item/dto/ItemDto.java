@@ -26,5 +26,6 @@ public class ItemDto {
     BookingItemDto lastBooking;
     BookingItemDto nextBooking;
     List<CommentDto> comments;
+    Long commentsCount;
     Long requestId;
 }
@@ -2,12 +2,16 @@ package ru.practicum.shareitgate.request;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareitgate.cache.ResponseCache;
+import ru.practicum.shareitgate.cache.ResponseCaching;
 import ru.practicum.shareitgate.client.BaseClient;
+import ru.practicum.shareitgate.client.GetCoalescing;
+import ru.practicum.shareitgate.client.ServerTransportFactory;
+import ru.practicum.shareitgate.resilience.ServerResilience;
 import ru.practicum.shareitgate.request.dto.CreateItemRequestDto;
 
 import java.util.Map;
@@ -16,30 +20,38 @@ import java.util.Map;
 public class ItemRequestClient extends BaseClient {
     private static final String API_PREFIX = "/requests";
 
+    private final ResponseCache allCache;
+
     @Autowired
-    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(builder.uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                .build());
+    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, ServerTransportFactory<?> transports,
+                             ServerResilience resilience, GetCoalescing coalescing, ResponseCaching caching) {
+        super(caching.watch(resilience.protect("requests", transports.create(serverUrl + API_PREFIX))),
+                coalescing.forFamily("requests"));
+        allCache = caching.region("requests");
     }
 
-    public ResponseEntity<Object> createRequest(Long userId, CreateItemRequestDto creationDto) {
+    public Mono<ResponseEntity<Object>> createRequest(Long userId, CreateItemRequestDto creationDto) {
         return post("", userId, creationDto);
     }
 
-    public ResponseEntity<Object> getById(Long userId, Long requestId) {
-        return get("/" + requestId, userId);
+    public Mono<ResponseEntity<Object>> getById(Long userId, Long requestId, @Nullable String ifNoneMatch) {
+        return get("/" + requestId, userId, null, ifNoneMatch);
     }
 
-    public ResponseEntity<Object> getByOwner(Long userId) {
-        return get("", userId);
+    public Mono<ResponseEntity<Object>> getByOwner(Long userId, int from, int size) {
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "size", size
+        );
+        return get("?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getAll(Long userId, int from, int size) {
+    public Mono<ResponseEntity<Object>> getAll(Long userId, int from, int size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
         );
-        return get("/all?from={from}&size={size}", userId, parameters);
+        String path = "/all?from={from}&size={size}";
+        return allCache.get(path, userId, parameters, () -> get(path, userId, parameters));
     }
 }
@@ -2,9 +2,11 @@ package ru.practicum.shareitgate.request;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareitgate.request.dto.CreateItemRequestDto;
 
 import javax.validation.Valid;
@@ -20,7 +22,7 @@ public class ItemRequestController {
     private final ItemRequestClient requestClient;
 
     @PostMapping
-    public ResponseEntity<Object> create(@RequestHeader("X-Sharer-User-Id")
+    public Mono<ResponseEntity<Object>> create(@RequestHeader("X-Sharer-User-Id")
                                              @Positive(message = "User's id should be positive")
                                              Long userId,
                                          @RequestBody @Valid CreateItemRequestDto creationDto) {
@@ -29,26 +31,34 @@ public class ItemRequestController {
     }
 
     @GetMapping("/{requestId}")
-    public ResponseEntity<Object> getById(@RequestHeader("X-Sharer-User-Id")
+    public Mono<ResponseEntity<Object>> getById(@RequestHeader("X-Sharer-User-Id")
                                   @Positive(message = "User's id should be positive")
                                   Long userId,
                                   @PathVariable
                                   @Positive(message = "Request's id should be positive")
-                                  Long requestId) {
+                                  Long requestId,
+                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                  String ifNoneMatch) {
         log.info("Запрос получения запроса с id {} от пользователя с id {}", requestId, userId);
-        return requestClient.getById(userId, requestId);
+        return requestClient.getById(userId, requestId, ifNoneMatch);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getByOwner(@RequestHeader("X-Sharer-User-Id")
+    public Mono<ResponseEntity<Object>> getByOwner(@RequestHeader("X-Sharer-User-Id")
                                            @Positive(message = "User's id should be positive")
-                                           Long userId) {
+                                           Long userId,
+                                           @RequestParam(defaultValue = "0")
+                                           @PositiveOrZero(message = "Parameter 'from' should be positive or zero")
+                                           int from,
+                                           @RequestParam(defaultValue = "10")
+                                           @Positive(message = "Parameter 'size' should be positive")
+                                           int size) {
         log.info("Запрос получения запросов пользователя с id {}", userId);
-        return requestClient.getByOwner(userId);
+        return requestClient.getByOwner(userId, from, size);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Object> getAll(@RequestHeader("X-Sharer-User-Id")
+    public Mono<ResponseEntity<Object>> getAll(@RequestHeader("X-Sharer-User-Id")
                                        @Positive(message = "User's id should be positive")
                                        Long userId,
                                        @RequestParam(defaultValue = "0")
@@ -0,0 +1,118 @@
+package ru.practicum.shareitgate.resilience;
+
+import java.time.Duration;
+
+/**
+ * Предохранитель по доле неудачных вызовов в окне последних вызовов. Разомкнутый предохранитель
+ * отклоняет вызовы, после паузы пропускает несколько пробных и замыкается, если все они прошли.
+ */
+class CircuitBreaker {
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final boolean[] window;
+    private final int minimumNumberOfCalls;
+    private final int failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    private State state = State.CLOSED;
+    private int position;
+    private int recorded;
+    private int failures;
+    private long openedAt;
+    private int probes;
+    private int probeSuccesses;
+
+    CircuitBreaker(ResilienceProperties properties) {
+        window = new boolean[properties.getSlidingWindowSize()];
+        minimumNumberOfCalls = Math.min(properties.getMinimumNumberOfCalls(), window.length);
+        failureRateThreshold = properties.getFailureRateThreshold();
+        openNanos = properties.getOpenDuration().toNanos();
+        halfOpenCalls = properties.getHalfOpenCalls();
+    }
+
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probes = 0;
+            probeSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probes >= halfOpenCalls) {
+                return false;
+            }
+            probes++;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++probeSuccesses >= halfOpenCalls) {
+                close();
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumNumberOfCalls && failures * 100 >= failureRateThreshold * recorded) {
+                open();
+            }
+        }
+    }
+
+    // Отменённый пробный вызов не даёт результата, поэтому его место отдаётся следующему
+    synchronized void onCancel() {
+        if (state == State.HALF_OPEN && probes > probeSuccesses) {
+            probes--;
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    Duration remainingOpen() {
+        long remaining;
+        synchronized (this) {
+            remaining = state == State.OPEN ? openNanos - (System.nanoTime() - openedAt) : 0;
+        }
+        return Duration.ofNanos(Math.max(remaining, 0));
+    }
+
+    private void record(boolean failure) {
+        if (recorded == window.length) {
+            if (window[position]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[position] = failure;
+        if (failure) {
+            failures++;
+        }
+        position = (position + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        position = 0;
+        recorded = 0;
+        failures = 0;
+    }
+}
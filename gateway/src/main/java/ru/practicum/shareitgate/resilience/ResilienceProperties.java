@@ -0,0 +1,32 @@
+package ru.practicum.shareitgate.resilience;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки защиты шлюза от медленного или недоступного сервера. Ограничения действуют
+ * отдельно для каждого семейства запросов: вещей, бронирований, пользователей и запросов вещей.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-server.resilience")
+public class ResilienceProperties {
+    // Сколько запросов семейства одновременно ждут сервер, остальные сразу получают 503
+    private int maxConcurrentCalls = 50;
+    // Предохранитель размыкается, если среди последних вызовов доля неудачных не меньше порога
+    private int slidingWindowSize = 20;
+    private int minimumNumberOfCalls = 10;
+    private int failureRateThreshold = 50;
+    private Duration openDuration = Duration.ofSeconds(10);
+    // Сколько пробных вызовов пропускается после паузы и сколько из них должно пройти для замыкания
+    private int halfOpenCalls = 3;
+    // Повторяются только GET-запросы при ошибке соединения и ответах 502, 503 и 504
+    private int maxRetries = 2;
+    private Duration retryBackoff = Duration.ofMillis(100);
+    // Каждый запрос пополняет бюджет повторов на retryRatio, бюджет не больше retryBudget повторов
+    private double retryRatio = 0.1;
+    private int retryBudget = 10;
+}
@@ -0,0 +1,165 @@
+package ru.practicum.shareitgate.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+import ru.practicum.shareitgate.client.ServerResponses;
+import ru.practicum.shareitgate.client.ServerTransport;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Обращения одного семейства запросов к серверу через ограничитель одновременных вызовов, предохранитель
+ * и повторы. Когда сервер не успевает, лишние запросы сразу получают 503 и не занимают потоки шлюза.
+ */
+@Slf4j
+public class ResilientTransport implements ServerTransport {
+    private static final Set<Integer> UNAVAILABLE_STATUSES = Set.of(502, 503, 504);
+
+    private final String family;
+    private final ServerTransport delegate;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryBudget retryBudget;
+    private final Retry retry;
+    private final Counter bulkheadRejections;
+    private final Counter circuitRejections;
+
+    public ResilientTransport(String family, ServerTransport delegate, ResilienceProperties properties,
+                              MeterRegistry registry) {
+        this.family = family;
+        this.delegate = delegate;
+        bulkhead = new Semaphore(properties.getMaxConcurrentCalls());
+        circuitBreaker = new CircuitBreaker(properties);
+        retryBudget = new RetryBudget(properties);
+        Counter retries = registry.counter("gateway.retries", "family", family);
+        // Повтор выполняется в отдельном потоке: сервлетный транспорт блокирует поток на время запроса
+        retry = Retry.backoff(properties.getMaxRetries(), properties.getRetryBackoff())
+                .jitter(0.5)
+                .scheduler(Schedulers.boundedElastic())
+                .filter(e -> isRetryable(e) && retryBudget.tryRetry())
+                .doBeforeRetry(signal -> {
+                    retries.increment();
+                    discard(signal.failure());
+                })
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+
+        bulkheadRejections = registry.counter("gateway.calls.rejected", "family", family, "reason", "bulkhead");
+        circuitRejections = registry.counter("gateway.calls.rejected", "family", family, "reason", "circuit");
+        registry.gauge("gateway.bulkhead.available.calls", Tags.of("family", family),
+                bulkhead, Semaphore::availablePermits);
+        registry.gauge("gateway.circuit.state", Tags.of("family", family),
+                circuitBreaker, breaker -> breaker.getState().ordinal());
+        registry.gauge("gateway.retry.budget", Tags.of("family", family),
+                retryBudget, RetryBudget::getBalance);
+    }
+
+    @Override
+    public Mono<ResponseEntity<Object>> exchange(HttpMethod method, String path, HttpHeaders headers,
+                                                 @Nullable Map<String, Object> parameters, @Nullable Object body) {
+        return Mono.defer(() -> {
+            if (!bulkhead.tryAcquire()) {
+                bulkheadRejections.increment();
+                log.warn("Запрос {} {} отклонён: превышено число одновременных запросов к серверу ({}).",
+                        method, path, family);
+                return Mono.just(unavailable("Too many concurrent requests to the server", null));
+            }
+            retryBudget.onRequest();
+            Mono<ResponseEntity<Object>> call = attempt(method, path, headers, parameters, body);
+            if (method == HttpMethod.GET) {
+                call = call.retryWhen(retry);
+            }
+            return call
+                    .onErrorResume(UnavailableResponseException.class, e -> Mono.just(e.getResponse()))
+                    .onErrorResume(CallNotPermittedException.class, e -> {
+                        circuitRejections.increment();
+                        return Mono.just(unavailable("The server is unavailable, try again later",
+                                circuitBreaker.remainingOpen().toSeconds() + 1));
+                    })
+                    .doFinally(signal -> bulkhead.release());
+        });
+    }
+
+    private Mono<ResponseEntity<Object>> attempt(HttpMethod method, String path, HttpHeaders headers,
+                                                 @Nullable Map<String, Object> parameters, @Nullable Object body) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                return Mono.error(new CallNotPermittedException());
+            }
+            return delegate.exchange(method, path, headers, parameters, body)
+                    .doOnNext(response -> {
+                        if (response.getStatusCodeValue() >= 500) {
+                            circuitBreaker.onFailure();
+                        } else {
+                            circuitBreaker.onSuccess();
+                        }
+                    })
+                    .doOnError(e -> circuitBreaker.onFailure())
+                    .doOnCancel(circuitBreaker::onCancel)
+                    // Ошибка создаётся отложенно: готовую Mono.error flatMap применяет сразу и отменяет ответ,
+                    // тогда WebClient сам освобождает его тело, и discard перед повтором читал бы его второй раз
+                    .flatMap(response -> UNAVAILABLE_STATUSES.contains(response.getStatusCodeValue())
+                            ? Mono.defer(() -> Mono.error(new UnavailableResponseException(response)))
+                            : Mono.just(response));
+        });
+    }
+
+    // Ответ, который заменит повтор, клиенту не передаётся, и его тело освобождает соединение с сервером
+    private static void discard(Throwable e) {
+        if (e instanceof UnavailableResponseException) {
+            ServerResponses.discard(((UnavailableResponseException) e).getResponse());
+        }
+    }
+
+    private static boolean isRetryable(Throwable e) {
+        return e instanceof UnavailableResponseException
+                || e instanceof ResourceAccessException
+                || e instanceof WebClientRequestException;
+    }
+
+    private static ResponseEntity<Object> unavailable(String message, @Nullable Long retryAfterSeconds) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (retryAfterSeconds != null) {
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        }
+        byte[] body = ("{\"error\":\"Service unavailable\",\"errorMessage\":\"" + message + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).headers(headers).body(body);
+    }
+
+    private static class CallNotPermittedException extends RuntimeException {
+        CallNotPermittedException() {
+            super(null, null, false, false);
+        }
+    }
+
+    // Ответ сервера о недоступности, который можно повторить; после последней попытки передаётся клиенту
+    private static class UnavailableResponseException extends RuntimeException {
+        private final ResponseEntity<Object> response;
+
+        UnavailableResponseException(ResponseEntity<Object> response) {
+            super(null, null, false, false);
+            this.response = response;
+        }
+
+        ResponseEntity<Object> getResponse() {
+            return response;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ru.practicum.shareitgate.resilience;
+
+/**
+ * Бюджет повторов: повторов не больше заданной доли от запросов, чтобы при сбое сервера
+ * шлюз не умножал нагрузку на него.
+ */
+class RetryBudget {
+    private final double ratio;
+    private final double capacity;
+    private double balance;
+
+    RetryBudget(ResilienceProperties properties) {
+        ratio = properties.getRetryRatio();
+        capacity = properties.getRetryBudget();
+        balance = capacity;
+    }
+
+    synchronized void onRequest() {
+        balance = Math.min(capacity, balance + ratio);
+    }
+
+    synchronized boolean tryRetry() {
+        if (balance < 1) {
+            return false;
+        }
+        balance--;
+        return true;
+    }
+
+    synchronized double getBalance() {
+        return balance;
+    }
+}
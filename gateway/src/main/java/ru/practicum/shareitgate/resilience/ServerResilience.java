@@ -0,0 +1,24 @@
+package ru.practicum.shareitgate.resilience;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareitgate.client.ServerTransport;
+
+/**
+ * Выдаёт каждому клиенту шлюза свою защиту обращений к серверу. Состояние видно в /actuator/metrics:
+ * gateway.bulkhead.available.calls, gateway.circuit.state (0 - замкнут, 1 - разомкнут, 2 - пробные вызовы),
+ * gateway.calls.rejected, gateway.retries и gateway.retry.budget с тегом family.
+ */
+@Component
+@RequiredArgsConstructor
+@EnableConfigurationProperties(ResilienceProperties.class)
+public class ServerResilience {
+    private final ResilienceProperties properties;
+    private final MeterRegistry registry;
+
+    public ServerTransport protect(String family, ServerTransport transport) {
+        return new ResilientTransport(family, transport, properties, registry);
+    }
+}
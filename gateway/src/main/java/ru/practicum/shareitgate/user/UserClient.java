@@ -3,12 +3,15 @@ package ru.practicum.shareitgate.user;
 import org.apache.commons.validator.routines.EmailValidator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareitgate.cache.ResponseCaching;
 import ru.practicum.shareitgate.client.BaseClient;
+import ru.practicum.shareitgate.client.GetCoalescing;
+import ru.practicum.shareitgate.client.ServerTransportFactory;
+import ru.practicum.shareitgate.resilience.ServerResilience;
 import ru.practicum.shareitgate.user.dto.UserDto;
 
 import javax.validation.ValidationException;
@@ -19,13 +22,13 @@ public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
 
     @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(builder.uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                .build());
+    public UserClient(@Value("${shareit-server.url}") String serverUrl, ServerTransportFactory<?> transports,
+                      ServerResilience resilience, GetCoalescing coalescing, ResponseCaching caching) {
+        super(caching.watch(resilience.protect("users", transports.create(serverUrl + API_PREFIX))),
+                coalescing.forFamily("users"));
     }
 
-    public ResponseEntity<Object> createUser(UserDto userDto) {
+    public Mono<ResponseEntity<Object>> createUser(UserDto userDto) {
         return post("", userDto);
     }
 
@@ -49,21 +52,21 @@ public class UserClient extends BaseClient {
         });
     }
 
-    public ResponseEntity<Object> updateUser(Long id, Map<String, Object> fields) {
+    public Mono<ResponseEntity<Object>> updateUser(Long id, Map<String, Object> fields) {
         fields.remove("id");
         validateFields(fields);
         return patch("/" + id, fields);
     }
 
-    public ResponseEntity<Object> getAllUsers() {
+    public Mono<ResponseEntity<Object>> getAllUsers() {
         return get("");
     }
 
-    public ResponseEntity<Object> getUserById(Long id) {
-        return get("/" + id);
+    public Mono<ResponseEntity<Object>> getUserById(Long id, @Nullable String ifNoneMatch) {
+        return get("/" + id, null, null, ifNoneMatch);
     }
 
-    public ResponseEntity<Object> deleteUserById(Long id) {
+    public Mono<ResponseEntity<Object>> deleteUserById(Long id) {
         return delete("/" + id);
     }
 }
@@ -2,9 +2,11 @@ package ru.practicum.shareitgate.user;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareitgate.user.dto.UserDto;
 
 import javax.validation.Valid;
@@ -20,13 +22,13 @@ public class UserController {
     private final UserClient userClient;
 
     @PostMapping
-    public ResponseEntity<Object> createUser(@Valid @RequestBody UserDto userDto) {
+    public Mono<ResponseEntity<Object>> createUser(@Valid @RequestBody UserDto userDto) {
         log.info("Запрос создания пользователя");
         return userClient.createUser(userDto);
     }
 
     @PatchMapping("/{id}")
-    public ResponseEntity<Object> updateUser(@PathVariable
+    public Mono<ResponseEntity<Object>> updateUser(@PathVariable
                                              @Positive(message = "User's id should be positive")
                                              Long id,
                                              @RequestBody Map<String, Object> fields) {
@@ -35,21 +37,23 @@ public class UserController {
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAllUsers() {
+    public Mono<ResponseEntity<Object>> getAllUsers() {
         log.info("Запрос получения всех пользователей");
         return userClient.getAllUsers();
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Object> getUserById(@PathVariable
+    public Mono<ResponseEntity<Object>> getUserById(@PathVariable
                                              @Positive(message = "User's id should be positive")
-                                             Long id) {
+                                             Long id,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                             String ifNoneMatch) {
         log.info("Запрос получения пользователя с id {}", id);
-        return userClient.getUserById(id);
+        return userClient.getUserById(id, ifNoneMatch);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Object> deleteUserById(@PathVariable
+    public Mono<ResponseEntity<Object>> deleteUserById(@PathVariable
                                @Positive(message = "User's id should be positive")
                                Long id) {
         log.info("Запрос удаления пользователя с id {}", id);
@@ -0,0 +1,71 @@
+package ru.practicum.shareitgate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareitgate.resilience.StubServer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Выгрузки проходят через защиту обращений к серверу: ответ о недоступности повторяется до того,
+ * как клиенту передан первый байт, а тело успешного ответа передаётся как есть.
+ */
+class ExportRelayTest {
+    private static final String EXPORT = "{\"id\":1,\"name\":\"item\"}\n{\"id\":2,\"name\":\"item\"}\n";
+
+    private StubServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        server = new StubServer();
+        server.contentType("application/x-ndjson");
+        server.body(EXPORT.getBytes(StandardCharsets.UTF_8));
+        client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    @AfterEach
+    void afterEach() {
+        server.close();
+    }
+
+    @DisplayName("Выгрузка повторяется после ответа о недоступности и передаётся клиенту целиком")
+    @ParameterizedTest
+    @EnumSource(value = WebApplicationType.class, names = {"SERVLET", "REACTIVE"})
+    void shouldRetryExportBeforeFirstByte(WebApplicationType type) throws Exception {
+        server.respond(503, 200);
+        try (ConfigurableApplicationContext gateway = new SpringApplicationBuilder(ShareItGateway.class)
+                .web(type)
+                .run("--server.port=0",
+                        "--shareit-server.url=" + server.url(),
+                        "--shareit.virtual-threads.enabled=false",
+                        "--spring.main.web-application-type=" + type,
+                        "--shareit-server.resilience.retry-backoff=10ms")) {
+            final String url = "http://localhost:" + gateway.getEnvironment().getProperty("local.server.port");
+
+            final HttpResponse<String> exported = client.send(HttpRequest.newBuilder(URI.create(url + "/items/export"))
+                    .header("X-Sharer-User-Id", "1")
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, exported.statusCode());
+            assertEquals(EXPORT, exported.body());
+            assertEquals("application/x-ndjson", exported.headers().firstValue("Content-Type").orElseThrow());
+            assertEquals(2, server.requests());
+        }
+    }
+}
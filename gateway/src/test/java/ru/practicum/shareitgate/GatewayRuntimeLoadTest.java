@@ -0,0 +1,138 @@
+package ru.practicum.shareitgate;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareitgate.resilience.StubServer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Сравнение сервлетного и реактивного шлюза перед медленным сервером. Сервлетный шлюз держит поток Tomcat
+ * на всё время запроса к серверу, поэтому одновременно обслуживает не больше запросов, чем потоков, а остальные
+ * ждут в очереди. Реактивный шлюз ожидает ответы сервера без потоков, и его задержка не растёт с нагрузкой.
+ */
+@Slf4j
+class GatewayRuntimeLoadTest {
+    // Ожидание сервера должно быть заметно дольше обработки запросов: на одном ядре клиент, шлюз и заглушка
+    // делят процессор, и при коротком ожидании оба шлюза упираются в него, а не в потоки
+    private static final Duration SERVER_DELAY = Duration.ofSeconds(1);
+    private static final int TOMCAT_THREADS = 20;
+    private static final int REQUESTS = 200;
+
+    private StubServer server;
+    private ExecutorService executor;
+    private HttpClient client;
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        server = new StubServer();
+        server.delay(SERVER_DELAY);
+        executor = Executors.newCachedThreadPool();
+        client = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    @AfterEach
+    void afterEach() {
+        executor.shutdownNow();
+        server.close();
+    }
+
+    @DisplayName("Реактивный шлюз выдерживает больше одновременных запросов к медленному серверу")
+    @Test
+    void shouldServeSlowServerWithLowerTailLatencyOnReactiveRuntime() throws Exception {
+        final LoadResult servlet = load(WebApplicationType.SERVLET);
+        final LoadResult reactive = load(WebApplicationType.REACTIVE);
+        log.info("Шлюз перед сервером с задержкой {} мс, {} одновременных запросов: servlet {}, reactive {}",
+                SERVER_DELAY.toMillis(), REQUESTS, servlet, reactive);
+
+        assertEquals(2 * (REQUESTS + 1), server.requests());
+        // Запросы сверх числа потоков Tomcat ждут освобождения потока, то есть несколько задержек сервера
+        assertTrue(servlet.p99 >= 4 * SERVER_DELAY.toMillis(), "servlet " + servlet);
+        assertTrue(reactive.p99 < servlet.p99, "servlet " + servlet + ", reactive " + reactive);
+        assertTrue(reactive.throughput > servlet.throughput, "servlet " + servlet + ", reactive " + reactive);
+    }
+
+    private LoadResult load(WebApplicationType type) throws Exception {
+        try (ConfigurableApplicationContext gateway = new SpringApplicationBuilder(ShareItGateway.class)
+                .web(type)
+                // Аргументы запуска, в отличие от свойств по умолчанию, перекрывают application.properties
+                .run("--server.port=0",
+                        // Тип приложения задан и в application.properties, без аргумента оба замера шли бы на Tomcat
+                        "--spring.main.web-application-type=" + type,
+                        "--shareit-server.url=" + server.url(),
+                        "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                        "--shareit.virtual-threads.enabled=false",
+                        "--shareit-server.resilience.max-concurrent-calls=" + REQUESTS,
+                        "--shareit-server.cache.ttl=0s")) {
+            final String url = "http://localhost:" + gateway.getEnvironment().getProperty("local.server.port");
+            // Прогрев: соединения с сервером и обработчики запросов создаются до замера
+            send(url + "/users/1").join();
+
+            final long[] latencies = new long[REQUESTS];
+            final List<CompletableFuture<Void>> responses = new ArrayList<>();
+            final long started = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                final int index = i;
+                // У каждого запроса свой id, чтобы шлюз не объединял одинаковые GET
+                responses.add(send(url + "/users/" + (i + 1)).thenAccept(status -> {
+                    assertEquals(200, status);
+                    latencies[index] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                }));
+            }
+            CompletableFuture.allOf(responses.toArray(new CompletableFuture[0])).get(60, TimeUnit.SECONDS);
+            final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            Arrays.sort(latencies);
+            return new LoadResult(latencies[REQUESTS / 2], latencies[REQUESTS * 99 / 100],
+                    REQUESTS * 1000.0 / elapsed);
+        }
+    }
+
+    private CompletableFuture<Integer> send(String url) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("X-Sharer-User-Id", "1")
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenApply(HttpResponse::statusCode);
+    }
+
+    private static class LoadResult {
+        private final long p50;
+        private final long p99;
+        private final double throughput;
+
+        LoadResult(long p50, long p99, double throughput) {
+            this.p50 = p50;
+            this.p99 = p99;
+            this.throughput = throughput;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("p50 %d мс, p99 %d мс, %.0f запросов/с", p50, p99, throughput);
+        }
+    }
+}
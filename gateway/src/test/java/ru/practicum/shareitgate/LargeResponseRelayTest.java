@@ -0,0 +1,85 @@
+package ru.practicum.shareitgate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareitgate.resilience.StubServer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Шлюз передаёт клиенту ответ сервера больше буферов кодеков: WebFlux по умолчанию собирает в памяти
+ * не больше 256 КБ тела, сервлетный транспорт копирует тело блоками по 8 КБ.
+ */
+class LargeResponseRelayTest {
+    private static final int BODY_SIZE = 4 * 1024 * 1024;
+
+    private StubServer server;
+    private HttpClient client;
+    private byte[] body;
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        server = new StubServer();
+        body = new byte[BODY_SIZE];
+        Arrays.fill(body, (byte) 'a');
+        body[0] = '"';
+        body[BODY_SIZE - 1] = '"';
+        server.body(body);
+        client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    @AfterEach
+    void afterEach() {
+        server.close();
+    }
+
+    @DisplayName("Тело ответа сервера больше буфера передаётся клиенту целиком")
+    @ParameterizedTest
+    @EnumSource(value = WebApplicationType.class, names = {"SERVLET", "REACTIVE"})
+    void shouldRelayBodyLargerThanBuffer(WebApplicationType type) throws Exception {
+        try (ConfigurableApplicationContext gateway = new SpringApplicationBuilder(ShareItGateway.class)
+                .web(type)
+                // Тип приложения задан и в application.properties, поэтому передаётся ещё и аргументом запуска
+                .run("--server.port=0",
+                        "--shareit-server.url=" + server.url(),
+                        "--shareit.virtual-threads.enabled=false",
+                        "--spring.main.web-application-type=" + type,
+                        "--shareit-server.cache.ttl=0s")) {
+            final String url = "http://localhost:" + gateway.getEnvironment().getProperty("local.server.port");
+
+            // Ответ на изменяющий запрос передаётся потоком
+            final HttpResponse<byte[]> created = client.send(HttpRequest.newBuilder(URI.create(url + "/users"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"user\",\"email\":\"user@email.ru\"}",
+                            StandardCharsets.UTF_8))
+                    .build(), HttpResponse.BodyHandlers.ofByteArray());
+            assertEquals(200, created.statusCode());
+            assertArrayEquals(body, created.body());
+
+            // Ответ на GET проходит через объединение запросов и читается целиком
+            final HttpResponse<byte[]> found = client.send(HttpRequest.newBuilder(URI.create(url + "/users/1"))
+                    .header("X-Sharer-User-Id", "1")
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofByteArray());
+            assertEquals(200, found.statusCode());
+            assertArrayEquals(body, found.body());
+            assertEquals("application/json", found.headers().firstValue("Content-Type").orElseThrow());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.shareitgate.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareitgate.client.ServerTransport;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvalidatingTransportTest {
+    private MeterRegistry registry;
+    private ResponseCaching caching;
+    private ServerTransport transport;
+
+    @BeforeEach
+    void beforeEach() {
+        registry = new SimpleMeterRegistry();
+        caching = new ResponseCaching(new ResponseCacheProperties(), registry);
+        caching.sharedRegion("items");
+        caching.region("requests");
+        transport = caching.watch((method, path, headers, parameters, body) -> Mono.just(ResponseEntity.ok()
+                .header(ResponseCaching.INVALIDATE_HEADER, "items, requests")
+                .header(HttpHeaders.ETAG, "\"1\"")
+                .body((Object) "{}")));
+    }
+
+    private double invalidations(String region) {
+        return registry.get("gateway.cache.invalidations").tag("region", region).counter().count();
+    }
+
+    @DisplayName("Изменяющий запрос сбрасывает названные сервером области, а подсказка не доходит до клиента")
+    @Test
+    void shouldInvalidateRegionsAndStripHint() {
+        final ResponseEntity<Object> response = transport.exchange(HttpMethod.POST, "", new HttpHeaders(), null, "{}")
+                .block(Duration.ofSeconds(5));
+
+        assertFalse(response.getHeaders().containsKey(ResponseCaching.INVALIDATE_HEADER));
+        assertEquals("\"1\"", response.getHeaders().getETag());
+        assertEquals("{}", response.getBody());
+        assertEquals(1.0, invalidations("items"));
+        assertEquals(1.0, invalidations("requests"));
+    }
+
+    @DisplayName("GET-запрос не сбрасывает кэш, но подсказка всё равно убирается")
+    @Test
+    void shouldNotInvalidateOnGet() {
+        final ResponseEntity<Object> response = transport.exchange(HttpMethod.GET, "", new HttpHeaders(), null, null)
+                .block(Duration.ofSeconds(5));
+
+        assertFalse(response.getHeaders().containsKey(ResponseCaching.INVALIDATE_HEADER));
+        assertEquals(0.0, invalidations("items"));
+    }
+}
@@ -0,0 +1,206 @@
+package ru.practicum.shareitgate.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+    private static final String PATH = "/search?text={text}&from={from}&size={size}";
+    private static final Map<String, Object> PARAMETERS = Map.of("text", "drill", "from", 0, "size", 10);
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger upstream = new AtomicInteger();
+    private ResponseCacheProperties properties;
+    private MeterRegistry registry;
+
+    @BeforeEach
+    void beforeEach() {
+        properties = new ResponseCacheProperties();
+        registry = new SimpleMeterRegistry();
+    }
+
+    private ResponseCaching caching() {
+        return new ResponseCaching(properties, registry, now::get);
+    }
+
+    private Supplier<Mono<ResponseEntity<Object>>> call(Object body) {
+        return call(HttpStatus.OK, body);
+    }
+
+    private Supplier<Mono<ResponseEntity<Object>>> call(HttpStatus status, Object body) {
+        return () -> Mono.fromCallable(() -> {
+            upstream.incrementAndGet();
+            return ResponseEntity.status(status).body(body);
+        });
+    }
+
+    private static Object get(ResponseCache cache, long userId, Supplier<Mono<ResponseEntity<Object>>> call) {
+        return cache.get(PATH, userId, PARAMETERS, call).block(Duration.ofSeconds(5)).getBody();
+    }
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+
+    private double counter(String name) {
+        return registry.get(name).tag("region", "items").counter().count();
+    }
+
+    @DisplayName("Свежий ответ отдаётся без обращения к серверу")
+    @Test
+    void shouldServeFreshResponse() {
+        final ResponseCache cache = caching().sharedRegion("items");
+
+        assertEquals("first", get(cache, 1L, call("first")));
+        advance(Duration.ofSeconds(4));
+        assertEquals("first", get(cache, 1L, call("second")));
+
+        assertEquals(1, upstream.get());
+        assertEquals(0.0, counter("gateway.cache.stale"));
+    }
+
+    @DisplayName("Ответ общей области один для всех пользователей, которым сервер уже отвечал")
+    @Test
+    void shouldShareResponseBetweenKnownUsers() {
+        final ResponseCache cache = caching().sharedRegion("items");
+
+        assertEquals("first", get(cache, 1L, call("first")));
+        // Второго пользователя проверяет сервер, его ответ кэшируется для всех
+        assertEquals("second", get(cache, 2L, call("second")));
+        assertEquals("second", get(cache, 2L, call("third")));
+        assertEquals("second", get(cache, 1L, call("third")));
+
+        assertEquals(2, upstream.get());
+    }
+
+    @DisplayName("Неизвестный пользователь получает от сервера 404, который не кэшируется")
+    @Test
+    void shouldPassNotFoundThrough() {
+        final ResponseCache cache = caching().sharedRegion("items");
+        get(cache, 1L, call("first"));
+
+        for (int i = 0; i < 2; i++) {
+            final ResponseEntity<Object> response = cache.get(PATH, 3L, PARAMETERS,
+                    call(HttpStatus.NOT_FOUND, "missing")).block(Duration.ofSeconds(5));
+            assertEquals(404, response.getStatusCodeValue());
+        }
+
+        assertEquals(3, upstream.get());
+        assertEquals("first", get(cache, 1L, call("second")));
+    }
+
+    @DisplayName("Ответы личной области хранятся для каждого пользователя отдельно")
+    @Test
+    void shouldKeepResponsesPerUser() {
+        final ResponseCache cache = caching().region("items");
+
+        assertEquals("first", get(cache, 1L, call("first")));
+        assertEquals("second", get(cache, 2L, call("second")));
+        assertEquals("first", get(cache, 1L, call("third")));
+        assertEquals("second", get(cache, 2L, call("third")));
+
+        assertEquals(2, upstream.get());
+    }
+
+    @DisplayName("Устаревший ответ отдаётся сразу, а новый запрашивается одним фоновым запросом")
+    @Test
+    void shouldRefreshStaleResponseInBackground() throws Exception {
+        final ResponseCache cache = caching().sharedRegion("items");
+        get(cache, 1L, call("first"));
+        advance(Duration.ofSeconds(6));
+
+        final CountDownLatch served = new CountDownLatch(1);
+        final CountDownLatch refreshed = new CountDownLatch(1);
+        // Фоновый запрос ждёт, пока оба чтения получат устаревший ответ
+        final Supplier<Mono<ResponseEntity<Object>>> refresh = () -> Mono
+                .fromCallable(() -> served.await(5, TimeUnit.SECONDS))
+                .then(call("second").get())
+                .doFinally(signal -> refreshed.countDown());
+        assertEquals("first", get(cache, 1L, refresh));
+        assertEquals("first", get(cache, 1L, refresh));
+        served.countDown();
+        assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+
+        assertEquals("second", get(cache, 1L, call("third")));
+        assertEquals(2, upstream.get());
+        assertEquals(2.0, counter("gateway.cache.stale"));
+
+        // После ttl + staleWhileRevalidate ответ уже не отдаётся
+        advance(Duration.ofSeconds(36));
+        assertEquals("fourth", get(cache, 1L, call("fourth")));
+        assertEquals(3, upstream.get());
+    }
+
+    @DisplayName("Ответ, запрошенный до сброса области, не попадает в кэш")
+    @Test
+    void shouldNotStoreResponseLoadedBeforeInvalidation() {
+        final ResponseCache cache = caching().sharedRegion("items");
+        final Sinks.One<ResponseEntity<Object>> response = Sinks.one();
+        final List<Object> received = new ArrayList<>();
+
+        cache.get(PATH, 1L, PARAMETERS, () -> {
+            upstream.incrementAndGet();
+            return response.asMono();
+        }).subscribe(entity -> received.add(entity.getBody()));
+        cache.invalidate();
+        response.tryEmitValue(ResponseEntity.ok("before"));
+
+        assertEquals(List.of("before"), received);
+        assertEquals("after", get(cache, 1L, call("after")));
+        assertEquals(2, upstream.get());
+        assertEquals(1.0, counter("gateway.cache.invalidations"));
+    }
+
+    @DisplayName("Под параллельной нагрузкой кэш сокращает число запросов к серверу")
+    @Test
+    void shouldReduceUpstreamCallsUnderLoad() throws Exception {
+        properties.setTtl(Duration.ZERO);
+        assertEquals(2000, upstreamCallsUnderLoad(caching().sharedRegion("items"), 2000));
+
+        upstream.set(0);
+        properties.setTtl(Duration.ofSeconds(5));
+        registry = new SimpleMeterRegistry();
+        final int cached = upstreamCallsUnderLoad(caching().sharedRegion("items"), 2000);
+        assertTrue(cached < 100, "upstream calls with cache: " + cached);
+    }
+
+    // 8 потоков, 4 пользователя и 2 разных поиска
+    private int upstreamCallsUnderLoad(ResponseCache cache, int requests) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Callable<Object>> tasks = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                final long userId = i % 4;
+                final Map<String, Object> parameters = Map.of("text", "item" + i % 2, "from", 0, "size", 10);
+                tasks.add(() -> cache.get(PATH, userId, parameters, () -> Mono.fromCallable(() -> {
+                    upstream.incrementAndGet();
+                    Thread.sleep(1);
+                    return ResponseEntity.ok((Object) parameters.get("text"));
+                })).block(Duration.ofSeconds(5)));
+            }
+            for (Future<Object> result : executor.invokeAll(tasks)) {
+                assertNotNull(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return upstream.get();
+    }
+}
@@ -0,0 +1,188 @@
+package ru.practicum.shareitgate.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GetCoalescerTest {
+    private MeterRegistry registry;
+    private AtomicInteger upstream;
+    private List<Sinks.One<ResponseEntity<Object>>> responses;
+
+    @BeforeEach
+    void beforeEach() {
+        registry = new SimpleMeterRegistry();
+        upstream = new AtomicInteger();
+        responses = new ArrayList<>();
+    }
+
+    // Ответ сервера приходит, только когда тест его отправит
+    private Supplier<Mono<ResponseEntity<Object>>> deferredCall() {
+        return () -> {
+            upstream.incrementAndGet();
+            Sinks.One<ResponseEntity<Object>> response = Sinks.one();
+            responses.add(response);
+            return response.asMono();
+        };
+    }
+
+    private GetCoalescer coalescer(Duration window) {
+        return new GetCoalescing(window, registry).forFamily("items");
+    }
+
+    private static Mono<ResponseEntity<Object>> get(GetCoalescer coalescer, long userId,
+                                                    Supplier<Mono<ResponseEntity<Object>>> call) {
+        return coalescer.coalesce("/items/{id}", userId, ServerResponses.requestHeaders(userId), Map.of("id", 1), call);
+    }
+
+    private double counter(String name) {
+        return registry.get(name).tag("family", "items").counter().count();
+    }
+
+    @DisplayName("Одинаковые одновременные запросы получают один ответ сервера")
+    @Test
+    void shouldShareInFlightCall() {
+        final GetCoalescer coalescer = coalescer(Duration.ZERO);
+        final List<ResponseEntity<Object>> received = new ArrayList<>();
+
+        get(coalescer, 1L, deferredCall()).subscribe(received::add);
+        get(coalescer, 1L, deferredCall()).subscribe(received::add);
+        assertEquals(1, upstream.get());
+        assertTrue(received.isEmpty());
+
+        final ResponseEntity<Object> response = ResponseEntity.ok("item");
+        responses.get(0).tryEmitValue(response);
+
+        assertEquals(2, received.size());
+        assertSame(response, received.get(0));
+        assertSame(response, received.get(1));
+        assertEquals(1.0, counter("gateway.get.upstream"));
+        assertEquals(1.0, counter("gateway.get.coalesced"));
+    }
+
+    @DisplayName("Запросы разных пользователей не объединяются")
+    @Test
+    void shouldNotShareCallsOfDifferentUsers() {
+        final GetCoalescer coalescer = coalescer(Duration.ZERO);
+
+        get(coalescer, 1L, deferredCall()).subscribe();
+        get(coalescer, 2L, deferredCall()).subscribe();
+
+        assertEquals(2, upstream.get());
+        assertEquals(2.0, counter("gateway.get.upstream"));
+        assertEquals(0.0, counter("gateway.get.coalesced"));
+    }
+
+    @DisplayName("Запросы разных пользователей одного класса видимости объединяются, если совпадают условия запроса")
+    @Test
+    void shouldShareCallsWithinVisibilityClass() {
+        final GetCoalescer coalescer = coalescer(Duration.ZERO);
+        final List<ResponseEntity<Object>> received = new ArrayList<>();
+
+        for (long userId = 1; userId <= 3; userId++) {
+            coalescer.coalesce("/items/1", "non-owner", ServerResponses.requestHeaders(userId), null, deferredCall())
+                    .subscribe(received::add);
+        }
+        coalescer.coalesce("/items/1", "non-owner", ServerResponses.requestHeaders(4L, "\"1\""), null,
+                deferredCall()).subscribe(received::add);
+        assertEquals(2, upstream.get());
+
+        responses.get(0).tryEmitValue(ResponseEntity.ok("item"));
+        assertEquals(3, received.size());
+        assertEquals(2.0, counter("gateway.get.upstream"));
+        assertEquals(2.0, counter("gateway.get.coalesced"));
+    }
+
+    @DisplayName("После ответа следующий такой же запрос снова идёт на сервер")
+    @Test
+    void shouldReleaseCallAfterResponse() {
+        final GetCoalescer coalescer = coalescer(Duration.ZERO);
+
+        get(coalescer, 1L, deferredCall()).subscribe();
+        responses.get(0).tryEmitValue(ResponseEntity.ok("first"));
+
+        final List<ResponseEntity<Object>> received = new ArrayList<>();
+        get(coalescer, 1L, deferredCall()).subscribe(received::add);
+        assertEquals(2, upstream.get());
+        responses.get(1).tryEmitValue(ResponseEntity.ok("second"));
+        assertEquals("second", received.get(0).getBody());
+    }
+
+    @DisplayName("Ошибка получают все объединённые запросы, а следующий запрос идёт на сервер")
+    @Test
+    void shouldReleaseCallAfterError() {
+        final GetCoalescer coalescer = coalescer(Duration.ZERO);
+        final List<Throwable> errors = new ArrayList<>();
+
+        get(coalescer, 1L, deferredCall()).subscribe(response -> { }, errors::add);
+        get(coalescer, 1L, deferredCall()).subscribe(response -> { }, errors::add);
+        responses.get(0).tryEmitError(new IllegalStateException("server is down"));
+
+        assertEquals(2, errors.size());
+        assertSame(errors.get(0), errors.get(1));
+
+        get(coalescer, 1L, deferredCall()).subscribe();
+        assertEquals(2, upstream.get());
+        assertEquals(2.0, counter("gateway.get.upstream"));
+        assertEquals(1.0, counter("gateway.get.coalesced"));
+    }
+
+    @DisplayName("Готовый ответ отдаётся следующим запросам, пока не истекло окно")
+    @Test
+    void shouldKeepResponseForWindow() throws Exception {
+        final GetCoalescer coalescer = coalescer(Duration.ofMillis(200));
+
+        get(coalescer, 1L, deferredCall()).subscribe();
+        responses.get(0).tryEmitValue(ResponseEntity.ok("first"));
+
+        final ResponseEntity<Object> cached = get(coalescer, 1L, deferredCall()).block(Duration.ofSeconds(1));
+        assertEquals("first", cached.getBody());
+        assertEquals(1, upstream.get());
+        assertEquals(1.0, counter("gateway.get.coalesced"));
+
+        Thread.sleep(400);
+        get(coalescer, 1L, deferredCall()).subscribe();
+        assertEquals(2, upstream.get());
+    }
+
+    @DisplayName("Ошибки и ответы не 2xx не отдаются следующим запросам в течение окна")
+    @Test
+    void shouldNotKeepFailuresForWindow() {
+        final GetCoalescer coalescer = coalescer(Duration.ofMinutes(1));
+
+        get(coalescer, 1L, deferredCall()).subscribe();
+        responses.get(0).tryEmitValue(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("unavailable"));
+
+        get(coalescer, 1L, deferredCall()).subscribe(response -> { }, error -> { });
+        assertEquals(2, upstream.get());
+        responses.get(1).tryEmitError(new IllegalStateException("server is down"));
+
+        final List<ResponseEntity<Object>> received = new ArrayList<>();
+        get(coalescer, 1L, deferredCall()).subscribe(received::add);
+        assertEquals(3, upstream.get());
+        responses.get(2).tryEmitValue(ResponseEntity.ok("item"));
+        assertEquals("item", received.get(0).getBody());
+
+        // Успешный ответ остаётся на всё окно
+        get(coalescer, 1L, deferredCall()).subscribe();
+        assertEquals(3, upstream.get());
+        assertEquals(3.0, counter("gateway.get.upstream"));
+        assertEquals(1.0, counter("gateway.get.coalesced"));
+    }
+}
@@ -0,0 +1,100 @@
+package ru.practicum.shareitgate.item;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Sinks;
+import ru.practicum.shareitgate.cache.ResponseCacheProperties;
+import ru.practicum.shareitgate.cache.ResponseCaching;
+import ru.practicum.shareitgate.client.GetCoalescing;
+import ru.practicum.shareitgate.client.ServerTransport;
+import ru.practicum.shareitgate.resilience.ResilienceProperties;
+import ru.practicum.shareitgate.resilience.ServerResilience;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemClientTest {
+    private static final long OWNER_ID = 1L;
+    private static final int USERS = 20;
+
+    private final List<Sinks.One<ResponseEntity<Object>>> responses = new CopyOnWriteArrayList<>();
+    private final List<String> requestUsers = new CopyOnWriteArrayList<>();
+    private ItemClient client;
+
+    @BeforeEach
+    void beforeEach() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        // Ответ сервера приходит, только когда тест его отправит
+        final ServerTransport transport = (method, path, headers, parameters, body) -> {
+            assertEquals(HttpMethod.GET, method);
+            requestUsers.add(headers.getFirst("X-Sharer-User-Id"));
+            final Sinks.One<ResponseEntity<Object>> response = Sinks.one();
+            responses.add(response);
+            return response.asMono();
+        };
+        client = new ItemClient("http://server", baseUrl -> transport,
+                new ServerResilience(new ResilienceProperties(), registry),
+                new GetCoalescing(Duration.ZERO, registry),
+                new ResponseCaching(new ResponseCacheProperties(), registry));
+    }
+
+    private static ResponseEntity<Object> item() {
+        return ResponseEntity.ok()
+                .header(ItemClient.OWNER_HEADER, String.valueOf(OWNER_ID))
+                .body("item".getBytes());
+    }
+
+    @DisplayName("Одновременные запросы одной вещи от разных пользователей, кроме владельца, дают один запрос к серверу")
+    @Test
+    void shouldCoalesceItemReadsOfNonOwners() throws Exception {
+        // Первый ответ называет владельца вещи
+        client.getItemById(OWNER_ID, 1L, null).subscribe();
+        responses.get(0).tryEmitValue(item());
+        requestUsers.clear();
+        responses.clear();
+
+        final List<ResponseEntity<Object>> received = new CopyOnWriteArrayList<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(USERS);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<?>> calls = new ArrayList<>();
+            for (long userId = 2; userId < 2 + USERS; userId++) {
+                final long user = userId;
+                calls.add(executor.submit(() -> {
+                    start.await();
+                    client.getItemById(user, 1L, null).subscribe(received::add);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> call : calls) {
+                call.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, responses.size());
+        responses.get(0).tryEmitValue(item());
+        assertEquals(USERS, received.size());
+        for (ResponseEntity<Object> response : received) {
+            assertEquals(200, response.getStatusCodeValue());
+            assertFalse(response.getHeaders().containsKey(ItemClient.OWNER_HEADER));
+        }
+        assertEquals(1, requestUsers.size());
+        assertNotEquals(String.valueOf(OWNER_ID), requestUsers.get(0));
+
+        // Владелец получает свой ответ отдельным запросом
+        client.getItemById(OWNER_ID, 1L, null).subscribe();
+        assertEquals(2, responses.size());
+    }
+}
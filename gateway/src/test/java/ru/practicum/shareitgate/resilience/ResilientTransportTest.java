@@ -0,0 +1,242 @@
+package ru.practicum.shareitgate.resilience;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Hooks;
+import ru.practicum.shareitgate.client.RestTemplateTransport;
+import ru.practicum.shareitgate.client.ServerResponses;
+import ru.practicum.shareitgate.client.WebClientTransport;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilientTransportTest {
+    private StubServer server;
+    private ResilienceProperties properties;
+    private MeterRegistry registry;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        server = new StubServer();
+        properties = new ResilienceProperties();
+        properties.setRetryBackoff(Duration.ofMillis(10));
+        registry = new SimpleMeterRegistry();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void afterEach() {
+        executor.shutdownNow();
+        server.close();
+    }
+
+    private ResilientTransport transport() {
+        RestTemplateTransport delegate = new RestTemplateTransport(new RestTemplateBuilder()
+                .uriTemplateHandler(new DefaultUriBuilderFactory(server.url()))
+                .build());
+        return new ResilientTransport("items", delegate, properties, registry);
+    }
+
+    private static int call(ResilientTransport transport, HttpMethod method) {
+        ResponseEntity<Object> response = transport.exchange(method, "/items", new HttpHeaders(), null, null)
+                .block(Duration.ofSeconds(10));
+        assertNotNull(response);
+        return response.getStatusCodeValue();
+    }
+
+    private double rejected(String reason) {
+        return registry.get("gateway.calls.rejected").tag("reason", reason).counter().count();
+    }
+
+    private double circuitState() {
+        return registry.get("gateway.circuit.state").gauge().value();
+    }
+
+    @DisplayName("Запросы сверх лимита одновременных вызовов сразу получают 503")
+    @Test
+    void shouldRejectCallsOverBulkhead() throws Exception {
+        properties.setMaxConcurrentCalls(2);
+        final ResilientTransport transport = transport();
+        server.hold();
+
+        final List<Future<Integer>> inFlight = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            inFlight.add(executor.submit(() -> call(transport, HttpMethod.GET)));
+        }
+        assertTrue(server.awaitArrivals(2));
+
+        assertEquals(503, call(transport, HttpMethod.GET));
+        assertEquals(2, server.requests());
+        assertEquals(1.0, rejected("bulkhead"));
+
+        server.release();
+        for (Future<Integer> call : inFlight) {
+            assertEquals(200, call.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(200, call(transport, HttpMethod.GET));
+        assertEquals(2.0, registry.get("gateway.bulkhead.available.calls").gauge().value());
+    }
+
+    @DisplayName("Предохранитель размыкается при доле ошибок не меньше порога и отвечает 503 без обращения к серверу")
+    @Test
+    void shouldOpenCircuitOnFailures() {
+        properties.setSlidingWindowSize(4);
+        properties.setMinimumNumberOfCalls(4);
+        properties.setOpenDuration(Duration.ofMinutes(1));
+        final ResilientTransport transport = transport();
+        server.respond(200, 200, 500);
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(200, call(transport, HttpMethod.POST));
+        }
+        assertEquals(500, call(transport, HttpMethod.POST));
+        assertEquals(0.0, circuitState());
+        assertEquals(500, call(transport, HttpMethod.POST));
+        assertEquals(1.0, circuitState());
+
+        final ResponseEntity<Object> rejectedResponse = transport
+                .exchange(HttpMethod.POST, "/items", new HttpHeaders(), null, null)
+                .block(Duration.ofSeconds(10));
+        assertEquals(503, rejectedResponse.getStatusCodeValue());
+        assertNotNull(rejectedResponse.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(4, server.requests());
+        assertEquals(1.0, rejected("circuit"));
+    }
+
+    @DisplayName("После паузы предохранитель пропускает один пробный вызов и замыкается, когда он прошёл")
+    @Test
+    void shouldCloseCircuitAfterSuccessfulProbe() throws Exception {
+        properties.setSlidingWindowSize(2);
+        properties.setMinimumNumberOfCalls(2);
+        properties.setOpenDuration(Duration.ofMillis(200));
+        properties.setHalfOpenCalls(1);
+        final ResilientTransport transport = transport();
+        server.respond(500);
+        call(transport, HttpMethod.POST);
+        call(transport, HttpMethod.POST);
+        assertEquals(1.0, circuitState());
+
+        server.respond(200);
+        assertEquals(503, call(transport, HttpMethod.POST));
+        Thread.sleep(300);
+
+        server.hold();
+        final Future<Integer> probe = executor.submit(() -> call(transport, HttpMethod.POST));
+        assertTrue(server.awaitArrivals(3));
+        assertEquals(2.0, circuitState());
+        // Пока пробный вызов не завершился, остальные отклоняются
+        assertEquals(503, call(transport, HttpMethod.POST));
+
+        server.release();
+        assertEquals(200, probe.get(10, TimeUnit.SECONDS));
+        assertEquals(0.0, circuitState());
+        assertEquals(200, call(transport, HttpMethod.POST));
+        assertEquals(4, server.requests());
+    }
+
+    @DisplayName("Неудачный пробный вызов снова размыкает предохранитель")
+    @Test
+    void shouldReopenCircuitAfterFailedProbe() throws Exception {
+        properties.setSlidingWindowSize(2);
+        properties.setMinimumNumberOfCalls(2);
+        properties.setOpenDuration(Duration.ofMillis(200));
+        properties.setHalfOpenCalls(1);
+        final ResilientTransport transport = transport();
+        server.respond(500);
+        call(transport, HttpMethod.POST);
+        call(transport, HttpMethod.POST);
+        Thread.sleep(300);
+
+        assertEquals(500, call(transport, HttpMethod.POST));
+        assertEquals(1.0, circuitState());
+        assertEquals(503, call(transport, HttpMethod.POST));
+        assertEquals(3, server.requests());
+    }
+
+    @DisplayName("Повторяются только GET-запросы, получившие 502, 503 или 504")
+    @Test
+    void shouldRetryOnlyGets() {
+        properties.setMaxRetries(2);
+        final ResilientTransport transport = transport();
+
+        server.respond(503, 502, 200);
+        assertEquals(200, call(transport, HttpMethod.GET));
+        assertEquals(3, server.requests());
+
+        server.respond(503, 200);
+        assertEquals(503, call(transport, HttpMethod.POST));
+        assertEquals(4, server.requests());
+
+        server.respond(500, 200);
+        assertEquals(500, call(transport, HttpMethod.GET));
+        assertEquals(5, server.requests());
+        assertEquals(2.0, registry.get("gateway.retries").counter().count());
+    }
+
+    @DisplayName("Тело ответа 503, заменённого повтором, реактивный транспорт освобождает один раз")
+    @Test
+    void shouldDiscardRetriedReactiveResponseOnce() {
+        final List<Throwable> dropped = new CopyOnWriteArrayList<>();
+        Hooks.onErrorDropped(dropped::add);
+        try {
+            final ResilientTransport transport = new ResilientTransport("items",
+                    new WebClientTransport(WebClient.builder().baseUrl(server.url()).build()), properties, registry);
+            server.respond(503, 200);
+
+            final ResponseEntity<Object> response = transport
+                    .exchange(HttpMethod.GET, "/items", new HttpHeaders(), null, null)
+                    .flatMap(ServerResponses::buffered)
+                    .block(Duration.ofSeconds(10));
+            assertEquals(200, response.getStatusCodeValue());
+            assertArrayEquals("{}".getBytes(), (byte[]) response.getBody());
+            assertEquals(2, server.requests());
+            assertEquals(List.of(), dropped);
+        } finally {
+            Hooks.resetOnErrorDropped();
+        }
+    }
+
+    @DisplayName("Исчерпанный бюджет повторов запрещает повторы до пополнения новыми запросами")
+    @Test
+    void shouldStopRetryingWhenBudgetIsExhausted() {
+        properties.setMaxRetries(5);
+        properties.setRetryBudget(2);
+        properties.setRetryRatio(0.5);
+        properties.setMinimumNumberOfCalls(20);
+        final ResilientTransport transport = transport();
+        server.respond(503);
+
+        // Бюджет полон: два повтора, дальше повторять нечем
+        assertEquals(503, call(transport, HttpMethod.GET));
+        assertEquals(3, server.requests());
+        assertEquals(0.0, registry.get("gateway.retry.budget").gauge().value());
+
+        // Запрос пополнил бюджет на половину повтора - этого мало
+        assertEquals(503, call(transport, HttpMethod.GET));
+        assertEquals(4, server.requests());
+
+        // Ещё половина - один повтор
+        assertEquals(503, call(transport, HttpMethod.GET));
+        assertEquals(6, server.requests());
+        assertEquals(3.0, registry.get("gateway.retries").counter().count());
+    }
+}
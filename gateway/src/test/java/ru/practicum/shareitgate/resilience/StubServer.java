@@ -0,0 +1,105 @@
+package ru.practicum.shareitgate.resilience;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Заглушка сервера для проверки защиты шлюза: отвечает заданными статусами и может задерживать ответы.
+ */
+public class StubServer implements AutoCloseable {
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final Semaphore arrivals = new Semaphore(0);
+    private final Queue<Integer> statuses = new ConcurrentLinkedQueue<>();
+    private volatile int lastStatus = 200;
+    private volatile CountDownLatch release = new CountDownLatch(0);
+    private volatile Duration delay = Duration.ZERO;
+    private volatile byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+    private volatile String contentType = "application/json";
+
+    public StubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    // Статусы отдаются по очереди, последний повторяется для всех следующих запросов
+    public void respond(int... codes) {
+        statuses.clear();
+        for (int i = 0; i < codes.length - 1; i++) {
+            statuses.add(codes[i]);
+        }
+        lastStatus = codes[codes.length - 1];
+    }
+
+    // Каждый ответ задерживается, как у медленного сервера; запросы обрабатываются параллельно без ограничений
+    public void delay(Duration delay) {
+        this.delay = delay;
+    }
+
+    // Тело всех следующих ответов
+    public void body(byte[] body) {
+        this.body = body;
+    }
+
+    public void contentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    void hold() {
+        release = new CountDownLatch(1);
+    }
+
+    void release() {
+        release.countDown();
+    }
+
+    boolean awaitArrivals(int count) throws InterruptedException {
+        return arrivals.tryAcquire(count, 5, TimeUnit.SECONDS);
+    }
+
+    public int requests() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        release();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        arrivals.release();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Integer status = statuses.poll();
+        byte[] content = body;
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status == null ? lastStatus : status, content.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(content);
+        }
+    }
+}
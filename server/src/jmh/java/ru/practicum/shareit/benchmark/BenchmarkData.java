@@ -0,0 +1,95 @@
+package ru.practicum.shareit.benchmark;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Наполнение базы для бенчмарков пакетными вставками в обход сервисов: данные готовы до первого замера,
+ * кэши и проекция бронирований заполняются уже при измеряемых чтениях.
+ */
+final class BenchmarkData {
+    private static final int BATCH = 1000;
+
+    private final JdbcTemplate jdbc;
+
+    BenchmarkData(ApplicationContext context) {
+        jdbc = context.getBean(JdbcTemplate.class);
+    }
+
+    JdbcTemplate jdbc() {
+        return jdbc;
+    }
+
+    long user(String name) {
+        return users(name, 1)[0];
+    }
+
+    // Пользователи prefix0, prefix1, ... в порядке создания
+    long[] users(String prefix, int count) {
+        long lastId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM users", Long.class);
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{prefix + i, prefix + i + "@email.ru"});
+        }
+        insert("INSERT INTO users (name, email) VALUES (?, ?)", rows);
+        return ids("SELECT id FROM users WHERE id > ? ORDER BY id", lastId);
+    }
+
+    long[] items(long ownerId, int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{"item" + i, "description of item " + i, true, ownerId});
+        }
+        insert("INSERT INTO items (name, description, available, owner_id) VALUES (?, ?, ?, ?)", rows);
+        return ids("SELECT id FROM items WHERE owner_id = ? ORDER BY id", ownerId);
+    }
+
+    // Подтверждённые бронирования по часу, у каждой вещи perItem штук с началом first, first + step, ...
+    void bookings(long[] itemIds, long ownerId, long bookerId, int perItem, LocalDateTime first, Duration step) {
+        List<Object[]> rows = new ArrayList<>(BATCH);
+        for (long itemId : itemIds) {
+            LocalDateTime start = first;
+            for (int i = 0; i < perItem; i++) {
+                rows.add(new Object[]{Timestamp.valueOf(start), Timestamp.valueOf(start.plusHours(1)),
+                        itemId, bookerId, ownerId});
+                start = start.plus(step);
+                if (rows.size() == BATCH) {
+                    insertBookings(rows);
+                    rows.clear();
+                }
+            }
+        }
+        insertBookings(rows);
+    }
+
+    void comments(long[] itemIds, long authorId, int perItem, LocalDateTime created) {
+        List<Object[]> rows = new ArrayList<>(itemIds.length * perItem);
+        for (long itemId : itemIds) {
+            for (int i = 0; i < perItem; i++) {
+                rows.add(new Object[]{"comment " + i, itemId, authorId, Timestamp.valueOf(created.plusMinutes(i))});
+            }
+        }
+        insert("INSERT INTO comments (text, item_id, author_id, created_date) VALUES (?, ?, ?, ?)", rows);
+    }
+
+    private void insertBookings(List<Object[]> rows) {
+        insert("INSERT INTO bookings (start_date, end_date, item_id, booker_id, item_owner_id, status) " +
+                "VALUES (?, ?, ?, ?, ?, 'APPROVED')", rows);
+    }
+
+    private void insert(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH) {
+            jdbc.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH, rows.size())));
+        }
+    }
+
+    private long[] ids(String sql, Object arg) {
+        return jdbc.queryForList(sql, Long.class, arg).stream().mapToLong(Long::longValue).toArray();
+    }
+}
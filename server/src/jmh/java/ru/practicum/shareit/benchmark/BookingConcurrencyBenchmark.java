@@ -0,0 +1,102 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.CreateBookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.summary.ItemBookingSummary;
+import ru.practicum.shareit.exception.BadRequestException;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Параллельное бронирование с подтверждением горячих вещей. Пропускная способность и число конфликтов
+ * в секунду печатаются отдельными счётчиками approved и conflicts. Узкое окно windowHours быстро
+ * заполняется, и большинство вызовов заканчивается конфликтом, поэтому перед каждой итерацией
+ * бронирования удаляются. Число потоков задаётся параметром -t.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class BookingConcurrencyBenchmark {
+    private static final int BOOKERS = 64;
+
+    @Param({"1", "16"})
+    public int hotItems;
+
+    @Param({"24", "10000"})
+    public int windowHours;
+
+    private ConfigurableApplicationContext context;
+    private BenchmarkData data;
+    private BookingService bookingService;
+    private ItemBookingSummary summary;
+    private long ownerId;
+    private long[] bookerIds;
+    private long[] itemIds;
+    private LocalDateTime start;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Outcomes {
+        public long approved;
+        public long conflicts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            approved = 0;
+            conflicts = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        // Отказы в бронировании пишутся в журнал с уровнем ERROR и при таком потоке только мешают
+        context = ServerBenchmarks.start("--logging.level.ru.practicum.shareit=OFF");
+        bookingService = context.getBean(BookingService.class);
+        summary = context.getBean(ItemBookingSummary.class);
+        data = new BenchmarkData(context);
+        ownerId = data.user("owner");
+        bookerIds = data.users("booker", BOOKERS);
+        itemIds = data.items(ownerId, hotItems);
+        start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearBookings() {
+        data.jdbc().update("DELETE FROM bookings");
+        summary.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void createAndApprove(Outcomes outcomes, ThreadParams thread) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDateTime bookingStart = start.plusHours(random.nextInt(windowHours));
+        CreateBookingDto creationDto = CreateBookingDto.builder()
+                .itemId(itemIds[random.nextInt(hotItems)])
+                .start(bookingStart)
+                .end(bookingStart.plusHours(1 + random.nextInt(3)))
+                .build();
+        try {
+            BookingDto created = bookingService.create(bookerIds[thread.getThreadIndex() % BOOKERS], creationDto);
+            bookingService.updateStatus(ownerId, created.getId(), true);
+            outcomes.approved++;
+        } catch (BadRequestException e) {
+            outcomes.conflicts++;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.pagination.KeysetCursor;
+import ru.practicum.shareit.pagination.KeysetPage;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Страница бронирований пользователя с длинной историей на глубине depth: по смещению from/size и по курсору.
+ * Курсор страницы вычисляется заранее, как если бы клиент дошёл до неё, листая с первой страницы.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BookingPageBenchmark {
+    private static final int SIZE = 10;
+    private static final int ITEMS = 100;
+    private static final int BOOKINGS_PER_ITEM = 1001;
+
+    @Param({"1", "100", "10000"})
+    public int depth;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private long bookerId;
+    private String cursor;
+    private LocalDateTime now;
+
+    @Setup
+    public void setUp() {
+        context = ServerBenchmarks.start();
+        bookingService = context.getBean(BookingService.class);
+
+        BenchmarkData data = new BenchmarkData(context);
+        long ownerId = data.user("owner");
+        bookerId = data.user("booker");
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        data.bookings(data.items(ownerId, ITEMS), ownerId, bookerId, BOOKINGS_PER_ITEM,
+                now.minusDays(500), Duration.ofHours(12));
+
+        if (depth > 1) {
+            cursor = data.jdbc().queryForObject("SELECT start_date, id FROM bookings WHERE booker_id = ? " +
+                            "ORDER BY start_date DESC, id DESC LIMIT 1 OFFSET ?",
+                    (rs, rowNum) -> new KeysetCursor(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2)),
+                    bookerId, (depth - 1) * SIZE - 1).encode();
+        }
+        // Оба способа должны вернуть одну и ту же страницу
+        if (!offset().equals(keyset().getItems())) {
+            throw new IllegalStateException("Страницы по смещению и по курсору на глубине " + depth + " различаются");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<BookingDto> offset() {
+        return bookingService.findAllByBooker(bookerId, "ALL", now, PageRequest.of(depth - 1, SIZE));
+    }
+
+    @Benchmark
+    public KeysetPage<BookingDto> keyset() {
+        return bookingService.findAllByBooker(bookerId, "ALL", now, cursor, SIZE);
+    }
+}
@@ -0,0 +1,95 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.booking.summary.ItemBookingSummary;
+import ru.practicum.shareit.booking.summary.ItemBookingTimeline;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Последнее и следующее бронирование для страницы вещей: из проекции бронирований и прежним запросом
+ * с DISTINCT ON, который теперь выполняет только сверка проекции. projectionLoad каждый раз загружает
+ * шкалы страницы из базы, как при первом обращении к вещам или после вытеснения из проекции.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ItemBookingSummaryBenchmark {
+    private static final int ITEMS = 100;
+
+    @Param({"1", "20", "100"})
+    public int pageSize;
+
+    @Param({"10", "200"})
+    public int bookingsPerItem;
+
+    private ConfigurableApplicationContext context;
+    private ItemBookingSummary summary;
+    private BookingStorage bookingStorage;
+    private TransactionTemplate readOnly;
+    private long[] page;
+    private List<Long> pageIds;
+    private LocalDateTime now;
+
+    @Setup
+    public void setUp() {
+        context = ServerBenchmarks.start();
+        summary = context.getBean(ItemBookingSummary.class);
+        bookingStorage = context.getBean(BookingStorage.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        BenchmarkData data = new BenchmarkData(context);
+        long ownerId = data.user("owner");
+        long bookerId = data.user("booker");
+        long[] itemIds = data.items(ownerId, ITEMS);
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        // Бронирования каждой вещи через шесть часов, половина уже закончилась
+        Duration step = Duration.ofHours(6);
+        data.bookings(itemIds, ownerId, bookerId, bookingsPerItem,
+                now.minus(step.multipliedBy(bookingsPerItem / 2)).plusMinutes(30), step);
+
+        page = Arrays.copyOf(itemIds, pageSize);
+        pageIds = Arrays.stream(page).boxed().collect(Collectors.toList());
+        summary.getAll(page);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void projection(Blackhole blackhole) {
+        for (ItemBookingTimeline timeline : summary.getAll(page)) {
+            blackhole.consume(timeline.last(now));
+            blackhole.consume(timeline.next(now));
+        }
+    }
+
+    @Benchmark
+    public void projectionLoad(Blackhole blackhole) {
+        summary.clear();
+        projection(blackhole);
+    }
+
+    @Benchmark
+    public List<Booking> query() {
+        return readOnly.execute(status -> bookingStorage.findLastAndNextForItem(pageIds, now));
+    }
+}
@@ -0,0 +1,92 @@
+package ru.practicum.shareit.benchmark;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.summary.ItemBookingSummary;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Список вещей владельца с последним и следующим бронированием и комментариями. После каждой итерации
+ * печатается число SQL-запросов на вызов, выделение памяти на вызов показывает запуск с -prof gc.
+ * coldSummary перед вызовом сбрасывает проекцию бронирований, и шкалы вещей загружаются из базы.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OwnerItemsBenchmark {
+    @Param({"1000", "5000"})
+    public int items;
+
+    @Param({"20", "1000"})
+    public int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private ItemBookingSummary summary;
+    private Statistics statistics;
+    private long ownerId;
+    private LocalDateTime now;
+    private long calls;
+
+    @Setup
+    public void setUp() {
+        context = ServerBenchmarks.start("--spring.jpa.properties.hibernate.generate_statistics=true");
+        itemService = context.getBean(ItemService.class);
+        summary = context.getBean(ItemBookingSummary.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        BenchmarkData data = new BenchmarkData(context);
+        ownerId = data.user("owner");
+        long bookerId = data.user("booker");
+        long[] itemIds = data.items(ownerId, items);
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        // У каждой вещи два прошедших и два будущих бронирования и по два комментария
+        data.bookings(itemIds, ownerId, bookerId, 4, now.minusDays(2).plusMinutes(30), Duration.ofDays(1));
+        data.comments(itemIds, bookerId, 2, now.minusDays(1));
+    }
+
+    @Setup(Level.Iteration)
+    public void resetStatistics() {
+        statistics.clear();
+        calls = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void printStatistics() {
+        if (calls > 0) {
+            System.out.printf("SQL-запросов на вызов: %.2f%n", (double) statistics.getPrepareStatementCount() / calls);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ItemDto> warmSummary() {
+        calls++;
+        return itemService.getAllByUser(ownerId, null, now, PageRequest.of(0, pageSize));
+    }
+
+    @Benchmark
+    public List<ItemDto> coldSummary() {
+        calls++;
+        summary.clear();
+        return itemService.getAllByUser(ownerId, null, now, PageRequest.of(0, pageSize));
+    }
+}
@@ -0,0 +1,85 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.ReflectionUtils;
+import ru.practicum.shareit.item.mapper.ItemPatcher;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.mapper.UserPatcher;
+import ru.practicum.shareit.user.model.User;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Применение PATCH-запроса к вещи и пользователю: через патчеры и прежним способом, поиском поля
+ * по имени и записью через рефлексию на каждый ключ запроса. Контекст Spring не нужен.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatchBenchmark {
+    private final ItemPatcher itemPatcher = new ItemPatcher();
+    private final UserPatcher userPatcher = new UserPatcher();
+    private final Map<String, Object> itemFields = Map.of(
+            "name", "new name",
+            "description", "new description",
+            "available", false);
+    private final Map<String, Object> userFields = Map.of(
+            "name", "new name",
+            "email", "new@email.ru");
+
+    private Item item;
+    private User user;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        item = Item.builder()
+                .id(1L)
+                .name("item")
+                .description("description")
+                .available(true)
+                .ownerId(1L)
+                .build();
+        user = User.builder()
+                .id(1L)
+                .name("user")
+                .email("user@email.ru")
+                .build();
+    }
+
+    private static void reflectivePatch(Object target, Map<String, Object> fields) {
+        fields.forEach((k, v) -> {
+            Field field = ReflectionUtils.findField(target.getClass(), k);
+            field.setAccessible(true);
+            ReflectionUtils.setField(field, target, v);
+        });
+    }
+
+    @Benchmark
+    public Item itemPatcher() {
+        itemPatcher.patch(item, itemFields);
+        return item;
+    }
+
+    @Benchmark
+    public Item itemReflection() {
+        reflectivePatch(item, itemFields);
+        return item;
+    }
+
+    @Benchmark
+    public User userPatcher() {
+        userPatcher.patch(user, userFields);
+        return user;
+    }
+
+    @Benchmark
+    public User userReflection() {
+        reflectivePatch(user, userFields);
+        return user;
+    }
+}
@@ -0,0 +1,109 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.mapper.UserMapper;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.user.storage.UserStorage;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Большие страницы пользователей и бронирований: проекциями, как читают сервисы, и прежним способом,
+ * загрузкой сущностей в контекст постоянства и преобразованием через MapStruct в транзакции только для чтения.
+ * Память на вызов показывает запуск с -prof gc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReadProjectionBenchmark {
+    private static final int ITEMS = 10;
+
+    @Param({"100", "1000"})
+    public int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private BookingService bookingService;
+    private UserStorage userStorage;
+    private UserMapper userMapper;
+    private BookingMapper bookingMapper;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnly;
+    private long bookerId;
+    private LocalDateTime now;
+
+    @Setup
+    public void setUp() {
+        context = ServerBenchmarks.start();
+        userService = context.getBean(UserService.class);
+        bookingService = context.getBean(BookingService.class);
+        userStorage = context.getBean(UserStorage.class);
+        userMapper = context.getBean(UserMapper.class);
+        bookingMapper = context.getBean(BookingMapper.class);
+        entityManager = context.getBean(EntityManager.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        // Всего pageSize пользователей и pageSize бронирований у одного из них
+        BenchmarkData data = new BenchmarkData(context);
+        long[] userIds = data.users("user", pageSize);
+        long ownerId = userIds[0];
+        bookerId = userIds[1];
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        data.bookings(data.items(ownerId, ITEMS), ownerId, bookerId, pageSize / ITEMS,
+                now.minusDays(pageSize), Duration.ofDays(1));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<UserDto> usersProjection() {
+        return userService.getAll();
+    }
+
+    @Benchmark
+    public List<UserDto> usersEntities() {
+        return readOnly.execute(status -> userStorage.findAll().stream()
+                .map(userMapper::toDto)
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<BookingDto> bookingsProjection() {
+        return bookingService.findAllByBooker(bookerId, "ALL", now, PageRequest.of(0, pageSize));
+    }
+
+    @Benchmark
+    public List<BookingDto> bookingsEntities() {
+        return readOnly.execute(status -> entityManager.createQuery("select b from Booking b " +
+                        "join fetch b.item join fetch b.booker " +
+                        "where b.booker.id = :bookerId " +
+                        "order by b.startDate desc, b.id desc", Booking.class)
+                .setParameter("bookerId", bookerId)
+                .setMaxResults(pageSize)
+                .getResultStream()
+                .map(bookingMapper::toDto)
+                .collect(Collectors.toList()));
+    }
+}
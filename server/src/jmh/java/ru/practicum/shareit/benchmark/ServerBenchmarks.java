@@ -0,0 +1,39 @@
+package ru.practicum.shareit.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.ShareItServer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Запуск сервера для бенчмарков: профиль test с базой H2 в памяти, без вывода SQL и журнала транзакций,
+ * сверка проекции бронирований с базой не вмешивается в замеры.
+ */
+final class ServerBenchmarks {
+    private ServerBenchmarks() {
+    }
+
+    static ConfigurableApplicationContext start(String... args) {
+        return start(WebApplicationType.NONE, args);
+    }
+
+    static ConfigurableApplicationContext start(WebApplicationType type, String... args) {
+        List<String> all = new ArrayList<>(List.of(
+                "--spring.profiles.active=test",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.orm.jpa=WARN",
+                "--logging.level.org.springframework.transaction=WARN",
+                "--logging.level.org.springframework.transaction.interceptor=WARN",
+                "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+                "--shareit.booking-summary.check-interval=PT24H"));
+        all.addAll(Arrays.asList(args));
+        return new SpringApplicationBuilder(ShareItServer.class)
+                .web(type)
+                .run(all.toArray(new String[0]));
+    }
+}
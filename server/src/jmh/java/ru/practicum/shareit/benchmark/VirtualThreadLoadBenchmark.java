@@ -0,0 +1,103 @@
+package ru.practicum.shareit.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузка на сервер по HTTP: каждый поток JMH - клиент, который читает страницу бронирований из БД.
+ * Сервер обрабатывает запросы в пуле потоков Tomcat или в виртуальных потоках (virtualThreads=true,
+ * нужна Java 21). Throughput даёт пропускную способность, SampleTime - p99. Число клиентов задаётся
+ * параметром -t, для 10 000 клиентов стоит уменьшить стек потоков: -jvmArgsAppend -Xss256k.
+ * После каждой итерации печатается ожидание соединения HikariCP и число ответов с ошибкой:
+ * пул соединений должен оставаться узким местом в обоих режимах.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Threads(100)
+@Fork(1)
+public class VirtualThreadLoadBenchmark {
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private Timer acquire;
+    private HttpClient client;
+    private HttpRequest request;
+    private long acquiredBefore;
+    private double acquireMillisBefore;
+
+    @Setup
+    public void setUp() {
+        // Число соединений Tomcat не должно ограничивать клиентов раньше пула потоков и пула HikariCP
+        context = ServerBenchmarks.start(WebApplicationType.SERVLET,
+                "--server.port=0",
+                "--server.tomcat.max-connections=20000",
+                "--server.tomcat.accept-count=10000",
+                "--shareit.virtual-threads.enabled=" + virtualThreads);
+        acquire = context.getBean(MeterRegistry.class).get("hikaricp.connections.acquire").timer();
+
+        BenchmarkData data = new BenchmarkData(context);
+        long ownerId = data.user("owner");
+        long bookerId = data.user("booker");
+        data.bookings(data.items(ownerId, 10), ownerId, bookerId, 100,
+                LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusDays(100), Duration.ofDays(1));
+
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:"
+                        + context.getEnvironment().getProperty("local.server.port") + "/bookings?state=ALL&size=10"))
+                .header("X-Sharer-User-Id", String.valueOf(bookerId))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+    }
+
+    @Setup(Level.Iteration)
+    public void snapshotMetrics() {
+        failures.set(0);
+        acquiredBefore = acquire.count();
+        acquireMillisBefore = acquire.totalTime(TimeUnit.MILLISECONDS);
+    }
+
+    @TearDown(Level.Iteration)
+    public void printMetrics() {
+        long acquired = acquire.count() - acquiredBefore;
+        double acquireMillis = acquire.totalTime(TimeUnit.MILLISECONDS) - acquireMillisBefore;
+        System.out.printf("Ожидание соединения HikariCP: среднее %.3f мс, максимум %.3f мс; ответов с ошибкой: %d%n",
+                acquired == 0 ? 0 : acquireMillis / acquired, acquire.max(TimeUnit.MILLISECONDS), failures.get());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getBookings() throws IOException, InterruptedException {
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != 200) {
+            failures.incrementAndGet();
+        }
+        return status;
+    }
+}
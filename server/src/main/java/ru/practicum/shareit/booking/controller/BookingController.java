@@ -1,15 +1,23 @@
 package ru.practicum.shareit.booking.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
 import ru.practicum.shareit.booking.dto.CreateBookingDto;
+import ru.practicum.shareit.booking.dto.UpdateBookingStatusDto;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.export.NdjsonWriter;
+import ru.practicum.shareit.pagination.KeysetPage;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -19,6 +27,7 @@ import java.util.List;
 @Validated
 public class BookingController {
     private final BookingService bookingService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public BookingDto createBooking(@RequestHeader("X-Sharer-User-Id") Long bookerId,
@@ -33,6 +42,12 @@ public class BookingController {
         return bookingService.updateStatus(ownerId, bookingId, approved);
     }
 
+    @PatchMapping("/batch")
+    public List<BookingStatusResultDto> updateStatuses(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                                       @RequestBody List<UpdateBookingStatusDto> updates) {
+        return bookingService.updateStatuses(ownerId, updates);
+    }
+
     @DeleteMapping("/{bookingId}")
     public Long delete(@RequestHeader("X-Sharer-User-Id") Long bookerId,
                        @PathVariable Long bookingId) {
@@ -41,29 +56,54 @@ public class BookingController {
 
     @GetMapping("/{bookingId}")
     public BookingDto findById(@RequestHeader("X-Sharer-User-Id") Long userId,
-                               @PathVariable Long bookingId) {
+                               @PathVariable Long bookingId,
+                               WebRequest request) {
+        if (request.checkNotModified(bookingService.getTag(userId, bookingId))) return null;
         return bookingService.findById(userId, bookingId);
     }
 
+    // Без параметра from список отдаётся по курсору, from оставлен для совместимости со смещением
     @GetMapping
-    public List<BookingDto> findAllByBooker(@RequestHeader("X-Sharer-User-Id") Long bookerId,
-                                            @RequestParam String state,
-                                            @RequestParam int from,
-                                            @RequestParam int size) {
+    public ResponseEntity<List<BookingDto>> findAllByBooker(@RequestHeader("X-Sharer-User-Id") Long bookerId,
+                                                            @RequestParam String state,
+                                                            @RequestParam(required = false) Integer from,
+                                                            @RequestParam int size,
+                                                            @RequestParam(required = false) String cursor) {
         LocalDateTime currentTime = LocalDateTime.now();
-        int page = from / size;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "startDate"));
-        return bookingService.findAllByBooker(bookerId, state, currentTime, pageable);
+        if (from != null) {
+            Pageable pageable = PageRequest.of(from / size, size);
+            return ResponseEntity.ok(bookingService.findAllByBooker(bookerId, state, currentTime, pageable));
+        }
+        return toResponse(bookingService.findAllByBooker(bookerId, state, currentTime, cursor, size));
     }
 
     @GetMapping("/owner")
-    public List<BookingDto> findAllByOwner(@RequestHeader("X-Sharer-User-Id") Long ownerId,
-                                           @RequestParam String state,
-                                           @RequestParam int from,
-                                           @RequestParam int size) {
+    public ResponseEntity<List<BookingDto>> findAllByOwner(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                                           @RequestParam String state,
+                                                           @RequestParam(required = false) Integer from,
+                                                           @RequestParam int size,
+                                                           @RequestParam(required = false) String cursor) {
         LocalDateTime currentTime = LocalDateTime.now();
-        int page = from / size;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "startDate"));
-        return bookingService.findAllByOwnerItems(ownerId, state, currentTime, pageable);
+        if (from != null) {
+            Pageable pageable = PageRequest.of(from / size, size);
+            return ResponseEntity.ok(bookingService.findAllByOwnerItems(ownerId, state, currentTime, pageable));
+        }
+        return toResponse(bookingService.findAllByOwnerItems(ownerId, state, currentTime, cursor, size));
+    }
+
+    @GetMapping("/owner/export")
+    public void exportByOwner(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                              HttpServletResponse response) throws IOException {
+        NdjsonWriter<BookingDto> writer = new NdjsonWriter<>(objectMapper, response);
+        bookingService.exportByOwnerItems(ownerId, writer);
+        writer.finish();
+    }
+
+    private static ResponseEntity<List<BookingDto>> toResponse(KeysetPage<BookingDto> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(KeysetPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
 }
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.*;
+
+@Value
+@Builder
+public class BookingStatusResultDto {
+    Long bookingId;
+    int status;
+    BookingDto booking;
+    String errorMessage;
+}
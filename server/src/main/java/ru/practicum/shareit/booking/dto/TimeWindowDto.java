@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class TimeWindowDto {
+    LocalDateTime start;
+    LocalDateTime end;
+}
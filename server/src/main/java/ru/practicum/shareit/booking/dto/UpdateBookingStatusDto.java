@@ -0,0 +1,10 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.*;
+
+@Value
+@Builder
+public class UpdateBookingStatusDto {
+    Long bookingId;
+    Boolean approved;
+}
@@ -5,28 +5,49 @@ import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingItemDto;
 import ru.practicum.shareit.booking.dto.CreateBookingDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingRow;
+import ru.practicum.shareit.booking.summary.BookingSlot;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 
+import java.util.ArrayList;
+
 @Mapper(uses = {UserMapper.class, ItemMapper.class}, componentModel = "spring",
-        unmappedTargetPolicy = ReportingPolicy.IGNORE)
+        unmappedTargetPolicy = ReportingPolicy.IGNORE, imports = {ArrayList.class})
 public interface BookingMapper {
     @Mapping(source = "booking.startDate", target = "start")
     @Mapping(source = "booking.endDate", target = "end")
     BookingDto toDto(Booking booking);
 
+    @Mapping(source = "startDate", target = "start")
+    @Mapping(source = "endDate", target = "end")
+    @Mapping(source = "itemId", target = "item.id")
+    @Mapping(source = "itemName", target = "item.name")
+    @Mapping(source = "itemDescription", target = "item.description")
+    @Mapping(source = "itemAvailable", target = "item.available")
+    @Mapping(source = "itemRequestId", target = "item.requestId")
+    @Mapping(target = "item.comments", expression = "java(new ArrayList<>())")
+    @Mapping(source = "bookerId", target = "booker.id")
+    @Mapping(source = "bookerName", target = "booker.name")
+    @Mapping(source = "bookerEmail", target = "booker.email")
+    BookingDto toDto(BookingRow row);
+
     @Mapping(source = "booking.startDate", target = "start")
     @Mapping(source = "booking.endDate", target = "end")
     @Mapping(source = "booker.id", target = "bookerId")
     BookingItemDto toItemDto(Booking booking);
 
+    BookingItemDto toItemDto(BookingSlot slot);
+
     @Mapping(target = "id", expression = "java(null)")
     @Mapping(source = "booker", target = "booker")
     @Mapping(source = "item", target = "item")
+    @Mapping(source = "item.ownerId", target = "itemOwnerId")
     @Mapping(source = "dto.start", target = "startDate")
     @Mapping(source = "dto.end", target = "endDate")
     @Mapping(target = "status", constant = "WAITING")
+    @Mapping(target = "version", ignore = true)
     Booking toBooking(CreateBookingDto dto, User booker, Item item);
 }
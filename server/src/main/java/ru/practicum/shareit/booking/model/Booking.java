@@ -2,6 +2,7 @@ package ru.practicum.shareit.booking.model;
 
 import lombok.*;
 import org.hibernate.Hibernate;
+import ru.practicum.shareit.booking.summary.BookingSummaryListener;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
@@ -17,6 +18,7 @@ import java.util.Objects;
 @Generated
 @Entity
 @Table(name = "bookings")
+@EntityListeners(BookingSummaryListener.class)
 public class Booking {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -31,8 +33,20 @@ public class Booking {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "booker_id")
     private User booker;
+    // Владелец вещи хранится в бронировании, чтобы выборки владельца не обращались к таблице вещей
+    @Column(name = "item_owner_id", nullable = false)
+    private Long itemOwnerId;
     @Enumerated(EnumType.STRING)
     private BookingStatus status;
+    @Version
+    private Long version;
+
+    @PrePersist
+    private void fillItemOwnerId() {
+        if (itemOwnerId == null && item != null) {
+            itemOwnerId = item.getOwnerId();
+        }
+    }
 
     @Override
     public boolean equals(Object o) {
@@ -2,20 +2,29 @@ package ru.practicum.shareit.booking.service;
 
 import org.springframework.data.domain.Pageable;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
 import ru.practicum.shareit.booking.dto.CreateBookingDto;
+import ru.practicum.shareit.booking.dto.UpdateBookingStatusDto;
+import ru.practicum.shareit.pagination.KeysetPage;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingService {
     BookingDto create(Long bookerId, CreateBookingDto requestDto);
 
     BookingDto updateStatus(Long ownerId, Long bookingId, Boolean status);
 
+    List<BookingStatusResultDto> updateStatuses(Long ownerId, List<UpdateBookingStatusDto> updates);
+
     Long delete(Long ownerId, Long bookingId);
 
     BookingDto findById(Long userId, Long bookingId);
 
+    // ETag бронирования или null, если его нет или оно не видно пользователю
+    String getTag(Long userId, Long bookingId);
+
     List<BookingDto> findAllByBooker(Long bookerId,
                                      String state,
                                      LocalDateTime currentTime,
@@ -25,4 +34,19 @@ public interface BookingService {
                                          String state,
                                          LocalDateTime currentTime,
                                          Pageable pageable);
+
+    KeysetPage<BookingDto> findAllByBooker(Long bookerId,
+                                           String state,
+                                           LocalDateTime currentTime,
+                                           String cursor,
+                                           int size);
+
+    KeysetPage<BookingDto> findAllByOwnerItems(Long ownerId,
+                                               String state,
+                                               LocalDateTime currentTime,
+                                               String cursor,
+                                               int size);
+
+    // Выгрузка всех бронирований вещей владельца, строки передаются потребителю по мере чтения
+    void exportByOwnerItems(Long ownerId, Consumer<? super BookingDto> consumer);
 }
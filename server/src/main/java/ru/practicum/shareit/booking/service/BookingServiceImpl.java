@@ -2,36 +2,67 @@ package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
 import ru.practicum.shareit.booking.dto.CreateBookingDto;
+import ru.practicum.shareit.booking.dto.UpdateBookingStatusDto;
+import ru.practicum.shareit.booking.storage.BookingRow;
 import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.booking.summary.BookingSlot;
+import ru.practicum.shareit.booking.summary.ItemBookingSummary;
+import ru.practicum.shareit.booking.summary.ItemBookingTimeline;
+import ru.practicum.shareit.etag.EntityTag;
 import ru.practicum.shareit.exception.NoAccessException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.pagination.KeysetCursor;
+import ru.practicum.shareit.pagination.KeysetPage;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserStorage;
 
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @Transactional
 @RequiredArgsConstructor
 public class BookingServiceImpl  implements BookingService {
+    // Курсор первой страницы лежит позже любого бронирования
+    private static final KeysetCursor FIRST_PAGE =
+            new KeysetCursor(LocalDateTime.of(9999, 12, 31, 0, 0), Long.MAX_VALUE);
+
     private final BookingStorage bookingStorage;
     private final ItemStorage itemStorage;
     private final UserStorage userStorage;
+    private final ItemBookingSummary bookingSummary;
     private final BookingMapper mapper;
+    private final ItemLocks itemLocks;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    @Value("${shareit.booking.max-attempts:3}")
+    private int maxAttempts;
 
     @Transactional(readOnly = true)
     private User getUser(Long userId) {
@@ -41,10 +72,76 @@ public class BookingServiceImpl  implements BookingService {
         });
     }
 
+    // Пересечение проверяется одним запросом по индексу под блокировкой вещи, в PostgreSQL его дополнительно
+    // исключает ограничение таблицы. Шкала проекции для этой проверки не используется
+    private boolean isOccupied(Long itemId, LocalDateTime start, LocalDateTime end) {
+        return bookingStorage.existsByItemIdAndStatusAndStartDateBeforeAndEndDateAfter(itemId,
+                BookingStatus.APPROVED, end, start);
+    }
+
+    private void checkNotOccupied(Long itemId, LocalDateTime start, LocalDateTime end) {
+        if (isOccupied(itemId, start, end)) {
+            log.error("BadRequest. Запрос бронирования предмета с id {} на занятое время с {} по {}.",
+                    itemId, start, end);
+            throw new BadRequestException(
+                    String.format("Item with id %d is already booked for this time.", itemId)
+            );
+        }
+    }
+
+    // Параллельно подтверждённое пересекающееся бронирование отклоняется ограничением базы
+    private Booking saveNotOverlapping(Booking booking) {
+        try {
+            return bookingStorage.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException e) {
+            log.error("BadRequest. Бронирование предмета с id {} пересекается с подтверждённым бронированием.",
+                    booking.getItem().getId());
+            throw new BadRequestException(
+                    String.format("Item with id %d is already booked for this time.", booking.getItem().getId())
+            );
+        }
+    }
+
+    // Версия вещи увеличится при фиксации: параллельное изменение её бронирований на другом узле
+    // завершится конфликтом версий
+    private void incrementVersion(Item item) {
+        entityManager.lock(item, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+    }
+
+    // Операции с бронированиями вещи выполняются под блокировкой вещи, которая охватывает транзакцию целиком,
+    // поэтому следующая операция видит и базу, и проекцию бронирований уже после фиксации предыдущей.
+    // Между узлами конфликт обнаруживается по версиям вещи и бронирования, и операция повторяется
+    private <T> T inItemTransaction(Long itemId, Supplier<T> action) {
+        return inItemsTransaction(List.of(itemId), action);
+    }
+
+    private <T> T inItemsTransaction(Collection<Long> itemIds, Supplier<T> action) {
+        return itemLocks.withLocks(itemIds, () -> {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return transactionTemplate.execute(transaction -> action.get());
+                } catch (OptimisticLockingFailureException e) {
+                    if (attempt >= maxAttempts) {
+                        log.error("Conflict. Не удалось изменить бронирования вещей с id {} за {} попыток.",
+                                itemIds, attempt);
+                        throw e;
+                    }
+                    log.warn("Конфликт версий при изменении бронирований вещей с id {}, попытка {}.", itemIds, attempt);
+                    itemIds.forEach(bookingSummary::evict);
+                }
+            }
+        });
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @Override
     public BookingDto create(Long bookerId, CreateBookingDto requestDto) {
         log.info("Запрос на создание бронирования от пользователя с id {}", bookerId);
 
+        return inItemTransaction(requestDto.getItemId(), () -> doCreate(bookerId, requestDto));
+    }
+
+    private BookingDto doCreate(Long bookerId, CreateBookingDto requestDto) {
         User booker = getUser(bookerId);
         Item item = itemStorage.findById(requestDto.getItemId()).orElseThrow(() -> {
             log.error("NotFound. Запрос забронировать несуществующий предмет с id {}.", requestDto.getItemId());
@@ -57,6 +154,8 @@ public class BookingServiceImpl  implements BookingService {
                     bookerId, requestDto.getItemId());
             throw new NotFoundException("Item cannot be reserved.");
         } else if (item.getAvailable()) {
+            checkNotOccupied(item.getId(), requestDto.getStart(), requestDto.getEnd());
+            incrementVersion(item);
             Booking booking = bookingStorage.save(mapper.toBooking(requestDto, booker, item));
             return mapper.toDto(booking);
         } else {
@@ -67,10 +166,23 @@ public class BookingServiceImpl  implements BookingService {
         }
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @Override
     public BookingDto updateStatus(Long ownerId, Long bookingId, Boolean status) {
         log.info("Запрос на изменение статуса бронирования с id {} от пользователя с id {}", bookingId, ownerId);
 
+        // Вне блокировки запрос выполняется в собственной короткой транзакции, чтобы не удерживать соединение
+        Optional<Long> optionalItemId = transactionTemplate.execute(transaction -> bookingStorage.findItemIdById(bookingId));
+        Long itemId = optionalItemId.orElseThrow(() -> {
+            log.error("NotFound. Запрос обновить статус несуществующего бронирования с id {}.", bookingId);
+            return new NotFoundException(
+                    String.format("Booking with id %d is not exist.", bookingId)
+            );
+        });
+        return inItemTransaction(itemId, () -> doUpdateStatus(ownerId, bookingId, status));
+    }
+
+    private BookingDto doUpdateStatus(Long ownerId, Long bookingId, Boolean status) {
         Booking booking = bookingStorage.findById(bookingId).orElseThrow(() -> {
             log.error("NotFound. Запрос обновить статус несуществующего бронирования с id {}.", bookingId);
             return new NotFoundException(
@@ -82,8 +194,10 @@ public class BookingServiceImpl  implements BookingService {
                     bookingId, ownerId);
             throw new NotFoundException("You haven't access to update this booking.");
         } else if (status && booking.getStatus().equals(BookingStatus.WAITING)) {
+            incrementVersion(booking.getItem());
+            checkNotOccupied(booking.getItem().getId(), booking.getStartDate(), booking.getEndDate());
             booking.setStatus(BookingStatus.APPROVED);
-            bookingStorage.save(booking);
+            saveNotOverlapping(booking);
         } else if (!status && booking.getStatus().equals(BookingStatus.WAITING)) {
             booking.setStatus(BookingStatus.REJECTED);
             bookingStorage.save(booking);
@@ -94,15 +208,108 @@ public class BookingServiceImpl  implements BookingService {
         return mapper.toDto(booking);
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
+    public List<BookingStatusResultDto> updateStatuses(Long ownerId, List<UpdateBookingStatusDto> updates) {
+        // Пустой список проверяет и шлюз, но к серверу можно обратиться напрямую, а запрос с пустым IN () не строится
+        if (updates == null || updates.isEmpty() || updates.stream().anyMatch(Objects::isNull)) {
+            log.error("BadRequest. Пустой пакет изменений статуса от пользователя с id {}.", ownerId);
+            throw new BadRequestException("List of updates shouldn't be empty.");
+        }
+        log.info("Запрос на изменение статуса {} бронирований от пользователя с id {}", updates.size(), ownerId);
+
+        Set<Long> bookingIds = updates.stream()
+                .map(UpdateBookingStatusDto::getBookingId)
+                .collect(Collectors.toSet());
+        List<Long> itemIds = transactionTemplate.execute(transaction -> bookingStorage.findItemIdsByIdIn(bookingIds));
+        try {
+            return inItemsTransaction(itemIds, () -> doUpdateStatuses(ownerId, updates, bookingIds));
+        } catch (DataIntegrityViolationException e) {
+            log.error("BadRequest. Пакет изменений статуса от пользователя с id {} пересекается с подтверждёнными "
+                    + "бронированиями.", ownerId);
+            throw new BadRequestException("Some of the bookings overlap approved bookings, no status was changed.");
+        }
+    }
+
+    // Все бронирования пакета загружаются одним запросом, изменения статусов уходят в базу пакетом при фиксации.
+    // Каждое подтверждение проверяется запросом к базе и по шкале подтверждений, сделанных ранее в этом же пакете
+    private List<BookingStatusResultDto> doUpdateStatuses(Long ownerId,
+                                                          List<UpdateBookingStatusDto> updates,
+                                                          Set<Long> bookingIds) {
+        Map<Long, Booking> bookings = new HashMap<>();
+        for (Booking booking : bookingStorage.findWithItemByIdIn(bookingIds)) {
+            bookings.put(booking.getId(), booking);
+        }
+        Map<Long, ItemBookingTimeline> approvedInBatch = new HashMap<>();
+        List<BookingStatusResultDto> results = new ArrayList<>(updates.size());
+        for (UpdateBookingStatusDto update : updates) {
+            Long bookingId = update.getBookingId();
+            Booking booking = bookings.get(bookingId);
+            if (booking == null || !booking.getItem().getOwnerId().equals(ownerId)) {
+                results.add(failure(bookingId, HttpStatus.NOT_FOUND,
+                        String.format("Booking with id %d is not exist.", bookingId)));
+            } else if (update.getApproved() == null) {
+                results.add(failure(bookingId, HttpStatus.BAD_REQUEST,
+                        "Parameter 'approved' shouldn't be null."));
+            } else if (!booking.getStatus().equals(BookingStatus.WAITING)) {
+                results.add(failure(bookingId, HttpStatus.BAD_REQUEST,
+                        "The status of this booking has already been changed"));
+            } else if (Boolean.TRUE.equals(update.getApproved())) {
+                Long itemId = booking.getItem().getId();
+                ItemBookingTimeline timeline = approvedInBatch.getOrDefault(itemId,
+                        ItemBookingTimeline.of(List.of()));
+                if (timeline.isOccupied(booking.getStartDate(), booking.getEndDate())
+                        || isOccupied(itemId, booking.getStartDate(), booking.getEndDate())) {
+                    results.add(failure(bookingId, HttpStatus.BAD_REQUEST,
+                            String.format("Item with id %d is already booked for this time.", itemId)));
+                    continue;
+                }
+                booking.setStatus(BookingStatus.APPROVED);
+                approvedInBatch.put(itemId, timeline.with(new BookingSlot(itemId, bookingId, booking.getStartDate(),
+                        booking.getEndDate(), booking.getStatus(), booking.getBooker().getId())));
+                incrementVersion(booking.getItem());
+                results.add(success(booking));
+            } else {
+                booking.setStatus(BookingStatus.REJECTED);
+                results.add(success(booking));
+            }
+        }
+        return results;
+    }
+
+    private BookingStatusResultDto success(Booking booking) {
+        return BookingStatusResultDto.builder()
+                .bookingId(booking.getId())
+                .status(HttpStatus.OK.value())
+                .booking(mapper.toDto(booking))
+                .build();
+    }
+
+    private BookingStatusResultDto failure(Long bookingId, HttpStatus status, String errorMessage) {
+        log.error("Не удалось изменить статус бронирования с id {}: {}", bookingId, errorMessage);
+        return BookingStatusResultDto.builder()
+                .bookingId(bookingId)
+                .status(status.value())
+                .errorMessage(errorMessage)
+                .build();
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @Override
     public Long delete(Long ownerId, Long bookingId) {
         log.info("Запрос на удаление бронирования с id {} от пользователя с id {}", bookingId, ownerId);
 
+        Optional<Long> optionalItemId = transactionTemplate.execute(transaction -> bookingStorage.findItemIdById(bookingId));
+        if (optionalItemId.isEmpty()) return bookingId;
+        return inItemTransaction(optionalItemId.get(), () -> doDelete(ownerId, bookingId));
+    }
+
+    private Long doDelete(Long ownerId, Long bookingId) {
         Optional<Booking> optionalBooking = bookingStorage.findById(bookingId);
         if (optionalBooking.isPresent()) {
             Booking booking = optionalBooking.get();
             if (booking.getBooker().getId().equals(ownerId)) {
-                bookingStorage.deleteById(bookingId);
+                bookingStorage.delete(booking);
             } else {
                 log.error("NoAccess. Запрос пользователя с id {} на удаление бронирования с id {}.", ownerId, bookingId);
                 throw new NoAccessException("You haven't access to delete this booking.");
@@ -131,88 +338,148 @@ public class BookingServiceImpl  implements BookingService {
         }
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public String getTag(Long userId, Long bookingId) {
+        return bookingStorage.findVersionRowById(bookingId)
+                .filter(row -> row.getBookerId().equals(userId) || row.getOwnerId().equals(userId))
+                .map(row -> EntityTag.of(row.getVersion(), row.getItemVersion(), row.getBookerVersion()))
+                .orElse(null);
+    }
+
     @Transactional(readOnly = true)
     @Override
     public List<BookingDto> findAllByBooker(Long bookerId,
                                             String state,
                                             LocalDateTime currentTime,
                                             Pageable pageable) {
-        User booker = getUser(bookerId);
-        List<Booking> bookings = new ArrayList<>();
+        return findByBooker(bookerId, state, currentTime, FIRST_PAGE, withoutSort(pageable)).stream()
+                .map(mapper::toDto)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public KeysetPage<BookingDto> findAllByBooker(Long bookerId,
+                                                  String state,
+                                                  LocalDateTime currentTime,
+                                                  String cursor,
+                                                  int size) {
+        KeysetCursor position = cursor == null ? FIRST_PAGE : KeysetCursor.decode(cursor);
+        List<BookingRow> bookings = findByBooker(bookerId, state, currentTime, position, PageRequest.of(0, size + 1));
+        return KeysetPage.of(bookings, size, BookingServiceImpl::cursorOf)
+                .map(mapper::toDto);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<BookingDto> findAllByOwnerItems(Long ownerId,
+                                                String state,
+                                                LocalDateTime currentTime,
+                                                Pageable pageable) {
+        return findByOwner(ownerId, state, currentTime, FIRST_PAGE, withoutSort(pageable)).stream()
+                .map(mapper::toDto)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public KeysetPage<BookingDto> findAllByOwnerItems(Long ownerId,
+                                                      String state,
+                                                      LocalDateTime currentTime,
+                                                      String cursor,
+                                                      int size) {
+        KeysetCursor position = cursor == null ? FIRST_PAGE : KeysetCursor.decode(cursor);
+        List<BookingRow> bookings = findByOwner(ownerId, state, currentTime, position, PageRequest.of(0, size + 1));
+        return KeysetPage.of(bookings, size, BookingServiceImpl::cursorOf)
+                .map(mapper::toDto);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void exportByOwnerItems(Long ownerId, Consumer<? super BookingDto> consumer) {
+        log.info("Запрос от владельца вещей с id {} на выгрузку всех бронирований.", ownerId);
+
+        getUser(ownerId);
+        try (Stream<BookingRow> bookings = bookingStorage.streamByOwner(ownerId)) {
+            bookings.map(mapper::toDto).forEach(consumer);
+        }
+    }
+
+    private static KeysetCursor cursorOf(BookingRow booking) {
+        return new KeysetCursor(booking.getStartDate(), booking.getId());
+    }
+
+    // Порядок списков задаётся самими запросами
+    private static Pageable withoutSort(Pageable pageable) {
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+    }
+
+    private List<BookingRow> findByBooker(Long bookerId,
+                                          String state,
+                                          LocalDateTime currentTime,
+                                          KeysetCursor cursor,
+                                          Pageable pageable) {
+        getUser(bookerId);
+        LocalDateTime cursorStart = cursor.getTime();
+        Long cursorId = cursor.getId();
         switch (state) {
             case "CURRENT":
                 log.info("Запрос от бронирующего с id {} получить список текущих бронирований.", bookerId);
-                bookings = bookingStorage.findCurrentByBookerId(bookerId, currentTime, pageable);
-                break;
+                return bookingStorage.findCurrentByBookerId(bookerId, currentTime, cursorStart, cursorId, pageable);
             case "FUTURE":
                 log.info("Запрос от бронирующего с id {} получить список будущих бронирований.", bookerId);
-                bookings = bookingStorage.findByBookerIdAndStartDateIsAfter(bookerId, currentTime, pageable);
-                break;
+                return bookingStorage.findFutureByBookerId(bookerId, currentTime, cursorStart, cursorId, pageable);
             case "WAITING":
                 log.info("Запрос от бронирующего с id {} получить список бронирований, ожидающих подтверждения.",
                         bookerId);
-                bookings = bookingStorage.findByBookerIdAndStatusIs(bookerId, BookingStatus.WAITING, pageable);
-                break;
+                return bookingStorage.findByBookerIdAndStatus(bookerId, BookingStatus.WAITING,
+                        cursorStart, cursorId, pageable);
             case "REJECTED":
                 log.info("Запрос от бронирующего с id {} получить список отклонённых бронирований.", bookerId);
-                bookings = bookingStorage.findByBookerIdAndStatusIs(bookerId, BookingStatus.REJECTED, pageable);
-                break;
+                return bookingStorage.findByBookerIdAndStatus(bookerId, BookingStatus.REJECTED,
+                        cursorStart, cursorId, pageable);
             case "PAST":
                 log.info("Запрос от бронирующего с id {} получить список завершённых бронирований.", bookerId);
                 Set<BookingStatus> statuses = Set.of(BookingStatus.WAITING, BookingStatus.REJECTED);
-                bookings = bookingStorage.findByBookerIdAndEndDateIsBeforeAndStatusNotIn(bookerId,
-                        currentTime, pageable, statuses);
-                break;
+                return bookingStorage.findPastByBookerId(bookerId, currentTime, statuses,
+                        cursorStart, cursorId, pageable);
             default:
                 log.info("Запрос от бронирующего с id {} получить список всех бронирований.", bookerId);
-                bookings = bookingStorage.findByBookerId(bookerId, pageable);
-                break;
+                return bookingStorage.findByBookerId(bookerId, cursorStart, cursorId, pageable);
         }
-        return bookings.stream()
-                .map(mapper::toDto)
-                .collect(Collectors.toList());
     }
 
-    @Transactional(readOnly = true)
-    @Override
-    public List<BookingDto> findAllByOwnerItems(Long ownerId,
-                                                String state,
-                                                LocalDateTime currentTime,
-                                                Pageable pageable) {
-        User owner = getUser(ownerId);
-        if (owner.getItems().isEmpty()) {
-            return new ArrayList<>();
-        }
-        List<Booking> bookings = new ArrayList<>();
+    private List<BookingRow> findByOwner(Long ownerId,
+                                         String state,
+                                         LocalDateTime currentTime,
+                                         KeysetCursor cursor,
+                                         Pageable pageable) {
+        getUser(ownerId);
+        LocalDateTime cursorStart = cursor.getTime();
+        Long cursorId = cursor.getId();
         switch (state) {
             case "CURRENT":
                 log.info("Запрос от владельца вещей с id {} получить список текущих бронирований.", ownerId);
-                bookings = bookingStorage.findCurrentByOwner(ownerId, currentTime, pageable);
-                break;
+                return bookingStorage.findCurrentByOwner(ownerId, currentTime, cursorStart, cursorId, pageable);
             case "FUTURE":
                 log.info("Запрос от владельца вещей с id {} получить список будущих бронирований.", ownerId);
-                bookings = bookingStorage.findFutureByOwner(ownerId, currentTime, pageable);
-                break;
+                return bookingStorage.findFutureByOwner(ownerId, currentTime, cursorStart, cursorId, pageable);
             case "WAITING":
                 log.info("Запрос от владельца вещей с id {} получить список бронирований, ожидающих подтверждения.",
                         ownerId);
-                bookings = bookingStorage.findByOwnerByStatus(ownerId, BookingStatus.WAITING, pageable);
-                break;
+                return bookingStorage.findByOwnerByStatus(ownerId, BookingStatus.WAITING,
+                        cursorStart, cursorId, pageable);
             case "REJECTED":
                 log.info("Запрос от владельца вещей с id {} получить список отклонённых бронирований.", ownerId);
-                bookings = bookingStorage.findByOwnerByStatus(ownerId, BookingStatus.REJECTED, pageable);
-                break;
+                return bookingStorage.findByOwnerByStatus(ownerId, BookingStatus.REJECTED,
+                        cursorStart, cursorId, pageable);
             case "PAST":
                 log.info("Запрос от владельца вещей с id {} получить список завершённых бронирований.", ownerId);
-                bookings = bookingStorage.findPastByOwner(ownerId, currentTime, pageable);
-                break;
+                return bookingStorage.findPastByOwner(ownerId, currentTime, cursorStart, cursorId, pageable);
             default:
                 log.info("Запрос от владельца вещей с id {} получить список всех бронирований.", ownerId);
-                bookings = bookingStorage.findAllByOwner(ownerId, pageable);
-                break;
+                return bookingStorage.findAllByOwner(ownerId, cursorStart, cursorId, pageable);
         }
-        return bookings.stream()
-                .map(mapper::toDto)
-                .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,66 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Полосатые блокировки по id вещи: операции над бронированиями одной вещи на этом узле выполняются по очереди,
+ * а операции над разными вещами почти никогда не ждут друг друга.
+ */
+@Component
+public class ItemLocks {
+    private final ReentrantLock[] stripes;
+
+    public ItemLocks(@Value("${shareit.booking.lock-stripes:64}") int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T withLock(Long itemId, Supplier<T> action) {
+        ReentrantLock lock = stripeOf(itemId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Полосы берутся по возрастанию номера, поэтому пакетные операции не могут взаимно заблокироваться
+    public <T> T withLocks(Collection<Long> itemIds, Supplier<T> action) {
+        int[] indexes = itemIds.stream()
+                .mapToInt(this::stripeIndexOf)
+                .distinct()
+                .sorted()
+                .toArray();
+        int locked = 0;
+        try {
+            for (int index : indexes) {
+                stripes[index].lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        }
+    }
+
+    private ReentrantLock stripeOf(Long itemId) {
+        return stripes[stripeIndexOf(itemId)];
+    }
+
+    private int stripeIndexOf(Long itemId) {
+        int hash = Long.hashCode(itemId);
+        hash ^= hash >>> 16;
+        return hash & (stripes.length - 1);
+    }
+}
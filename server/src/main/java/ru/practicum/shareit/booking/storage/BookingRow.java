@@ -0,0 +1,29 @@
+package ru.practicum.shareit.booking.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Бронирование вместе с полями вещи и бронирующего для списков только на чтение.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BookingRow {
+    private final Long id;
+    private final LocalDateTime startDate;
+    private final LocalDateTime endDate;
+    private final BookingStatus status;
+    private final Long itemId;
+    private final String itemName;
+    private final String itemDescription;
+    private final Boolean itemAvailable;
+    private final Long itemRequestId;
+    private final Long bookerId;
+    private final String bookerName;
+    private final String bookerEmail;
+}
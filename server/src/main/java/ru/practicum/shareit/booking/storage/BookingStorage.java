@@ -3,37 +3,94 @@ package ru.practicum.shareit.booking.storage;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.summary.BookingSlot;
+import ru.practicum.shareit.storage.StreamingQueries;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_FLUSH_MODE;
 
 public interface BookingStorage extends JpaRepository<Booking, Long>  {
 
+    // Списки бронирований упорядочены по (start_date desc, id desc) и начинаются сразу после курсора,
+    // поэтому следующая страница выбирается по индексу без OFFSET
+    String AFTER_CURSOR = "and (b.startDate < :cursorStart " +
+            "or (b.startDate = :cursorStart and b.id < :cursorId)) ";
+    String NEWEST_FIRST = "order by b.startDate desc, b.id desc";
+    // Строки списков сразу содержат поля вещи и бронирующего: список выбирается одним запросом
+    // и не загружает сущности в контекст персистентности
+    String BOOKING_ROW = "select new ru.practicum.shareit.booking.storage.BookingRow(" +
+            "b.id, b.startDate, b.endDate, b.status, " +
+            "it.id, it.name, it.description, it.available, it.requestId, " +
+            "bk.id, bk.name, bk.email) " +
+            "from Booking b join b.item it join b.booker bk ";
+
     // Поиск всех бронирований
-    List<Booking> findByBookerId(Long bookerId, Pageable pageable);
+    @Query(BOOKING_ROW +
+            "where b.booker.id = :bookerId " +
+            AFTER_CURSOR + NEWEST_FIRST)
+    List<BookingRow> findByBookerId(@Param("bookerId") Long bookerId,
+                                    @Param("cursorStart") LocalDateTime cursorStart,
+                                    @Param("cursorId") Long cursorId,
+                                    Pageable pageable);
 
     // Поиск текущих бронирований
-    @Query("select b from Booking b " +
+    @Query(BOOKING_ROW +
             "where b.booker.id = :bookerId " +
             "and b.startDate < :now " +
-            "and b.endDate > :now")
-    List<Booking> findCurrentByBookerId(@Param("bookerId") Long bookerId,
-                                        @Param("now") LocalDateTime now,
-                                        Pageable pageable);
+            "and b.endDate > :now " +
+            AFTER_CURSOR + NEWEST_FIRST)
+    List<BookingRow> findCurrentByBookerId(@Param("bookerId") Long bookerId,
+                                           @Param("now") LocalDateTime now,
+                                           @Param("cursorStart") LocalDateTime cursorStart,
+                                           @Param("cursorId") Long cursorId,
+                                           Pageable pageable);
 
     // Поиск будущих бронирований
-    List<Booking> findByBookerIdAndStartDateIsAfter(Long bookerId, LocalDateTime startDate, Pageable pageable);
+    @Query(BOOKING_ROW +
+            "where b.booker.id = :bookerId " +
+            "and b.startDate > :now " +
+            AFTER_CURSOR + NEWEST_FIRST)
+    List<BookingRow> findFutureByBookerId(@Param("bookerId") Long bookerId,
+                                          @Param("now") LocalDateTime now,
+                                          @Param("cursorStart") LocalDateTime cursorStart,
+                                          @Param("cursorId") Long cursorId,
+                                          Pageable pageable);
 
     // Поиск завершённых бронирований
-    List<Booking> findByBookerIdAndEndDateIsBeforeAndStatusNotIn(Long bookerId, LocalDateTime endDate,
-                                                                 Pageable pageable, Set<BookingStatus> statuses);
+    @Query(BOOKING_ROW +
+            "where b.booker.id = :bookerId " +
+            "and b.endDate < :now " +
+            "and b.status not in :statuses " +
+            AFTER_CURSOR + NEWEST_FIRST)
+    List<BookingRow> findPastByBookerId(@Param("bookerId") Long bookerId,
+                                        @Param("now") LocalDateTime now,
+                                        @Param("statuses") Set<BookingStatus> statuses,
+                                        @Param("cursorStart") LocalDateTime cursorStart,
+                                        @Param("cursorId") Long cursorId,
+                                        Pageable pageable);
 
     // Поиск ожидающих подтверждения и отклонённых бронирований
-    List<Booking> findByBookerIdAndStatusIs(Long bookerId, BookingStatus status, Pageable pageable);
+    @Query(BOOKING_ROW +
+            "where b.booker.id = :bookerId " +
+            "and b.status = :status " +
+            AFTER_CURSOR + NEWEST_FIRST)
+    List<BookingRow> findByBookerIdAndStatus(@Param("bookerId") Long bookerId,
+                                             @Param("status") BookingStatus status,
+                                             @Param("cursorStart") LocalDateTime cursorStart,
+                                             @Param("cursorId") Long cursorId,
+                                             Pageable pageable);
 
     // Поиск бронирований для комментария
     @Query("select b " +
@@ -46,66 +103,68 @@ public interface BookingStorage extends JpaRepository<Booking, Long>  {
                                            @Param("itemId") Long itemId,
                                            @Param("currentDate") LocalDateTime currentDate);
 
-    @Query("select b " +
-            "from Booking b " +
-            "where b.item.id in ( " +
-            "select it.id " +
-            "from Item it " +
-            "where it.ownerId = :ownerId)")
     // Поиск всех бронирований по владельцу
-    List<Booking> findAllByOwner(@Param("ownerId") Long ownerId,
-                                 Pageable pageable);
+    @Query(BOOKING_ROW +
+            "where b.itemOwnerId = :ownerId " +
+            AFTER_CURSOR + NEWEST_FIRST)
+    List<BookingRow> findAllByOwner(@Param("ownerId") Long ownerId,
+                                    @Param("cursorStart") LocalDateTime cursorStart,
+                                    @Param("cursorId") Long cursorId,
+                                    Pageable pageable);
+
+    // Выгрузка всех бронирований владельца, строки читаются из курсора БД порциями
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = StreamingQueries.FETCH_SIZE))
+    @Query(BOOKING_ROW +
+            "where b.itemOwnerId = :ownerId " +
+            NEWEST_FIRST)
+    Stream<BookingRow> streamByOwner(@Param("ownerId") Long ownerId);
 
     // Поиск текущих бронирований по владельцу
-    @Query("select b " +
-            "from Booking b " +
-            "where b.startDate < :now " +
+    @Query(BOOKING_ROW +
+            "where b.itemOwnerId = :ownerId " +
+            "and b.startDate < :now " +
             "and b.endDate > :now " +
-            "and b.item.id in ( " +
-            "select it.id " +
-            "from Item it " +
-            "where it.ownerId = :ownerId)")
-    List<Booking> findCurrentByOwner(@Param("ownerId") Long ownerId,
-                                     @Param("now") LocalDateTime now,
-                                     Pageable pageable);
+            AFTER_CURSOR + NEWEST_FIRST)
+    List<BookingRow> findCurrentByOwner(@Param("ownerId") Long ownerId,
+                                        @Param("now") LocalDateTime now,
+                                        @Param("cursorStart") LocalDateTime cursorStart,
+                                        @Param("cursorId") Long cursorId,
+                                        Pageable pageable);
 
     // Поиск будущих бронирований по владельцу
-    @Query("select b " +
-            "from Booking b " +
-            "where b.startDate > :now " +
+    @Query(BOOKING_ROW +
+            "where b.itemOwnerId = :ownerId " +
+            "and b.startDate > :now " +
             "and b.status <> 'REJECTED' " +
-            "and b.item.id in ( " +
-            "select it.id " +
-            "from Item it " +
-            "where it.ownerId = :ownerId)")
-    List<Booking> findFutureByOwner(@Param("ownerId") Long ownerId,
-                                    @Param("now") LocalDateTime now,
-                                    Pageable pageable);
+            AFTER_CURSOR + NEWEST_FIRST)
+    List<BookingRow> findFutureByOwner(@Param("ownerId") Long ownerId,
+                                       @Param("now") LocalDateTime now,
+                                       @Param("cursorStart") LocalDateTime cursorStart,
+                                       @Param("cursorId") Long cursorId,
+                                       Pageable pageable);
 
     // Поиск завершённых бронирований по владельцу
-    @Query("select b " +
-            "from Booking b " +
-            "where b.endDate < :now " +
+    @Query(BOOKING_ROW +
+            "where b.itemOwnerId = :ownerId " +
+            "and b.endDate < :now " +
             "and b.status not in ('REJECTED', 'WAITING') " +
-            "and b.item.id in ( " +
-            "select it.id " +
-            "from Item it " +
-            "where it.ownerId = :ownerId)")
-    List<Booking> findPastByOwner(@Param("ownerId") Long ownerId,
-                                  @Param("now") LocalDateTime now,
-                                  Pageable pageable);
+            AFTER_CURSOR + NEWEST_FIRST)
+    List<BookingRow> findPastByOwner(@Param("ownerId") Long ownerId,
+                                     @Param("now") LocalDateTime now,
+                                     @Param("cursorStart") LocalDateTime cursorStart,
+                                     @Param("cursorId") Long cursorId,
+                                     Pageable pageable);
 
     // Поиск ожидающих подтверждения и отклонённых бронирований по владельцу
-    @Query("select b " +
-            "from Booking b " +
-            "where b.status = :status " +
-            "and b.item.id in ( " +
-            "select it.id " +
-            "from Item it " +
-            "where it.ownerId = :ownerId)")
-    List<Booking> findByOwnerByStatus(@Param("ownerId") Long ownerId,
-                                      @Param("status") BookingStatus status,
-                                      Pageable pageable);
+    @Query(BOOKING_ROW +
+            "where b.itemOwnerId = :ownerId " +
+            "and b.status = :status " +
+            AFTER_CURSOR + NEWEST_FIRST)
+    List<BookingRow> findByOwnerByStatus(@Param("ownerId") Long ownerId,
+                                         @Param("status") BookingStatus status,
+                                         @Param("cursorStart") LocalDateTime cursorStart,
+                                         @Param("cursorId") Long cursorId,
+                                         Pageable pageable);
 
     // Поиск предыдущего и следующего бронирования для вещи
     @Query("select b " +
@@ -148,7 +207,59 @@ public interface BookingStorage extends JpaRepository<Booking, Long>  {
             "AND b.status IN ('APPROVED', 'WAITING') " +
             "AND b.start_date > :currentTime " +
             "ORDER BY b.item_id, B.start_date))", nativeQuery = true)
-    List<Booking> findLastAndNextForItem(@Param("itemId") Set<Long> itemId,
+    List<Booking> findLastAndNextForItem(@Param("itemId") Collection<Long> itemId,
                                          @Param("currentTime") LocalDateTime currentTime);
 
+    @Query("select new ru.practicum.shareit.booking.storage.BookingVersionRow(" +
+            "bk.id, b.itemOwnerId, b.version, it.version, bk.version) " +
+            "from Booking b join b.item it join b.booker bk " +
+            "where b.id = :bookingId")
+    Optional<BookingVersionRow> findVersionRowById(@Param("bookingId") Long bookingId);
+
+    @Query("select b.item.id from Booking b where b.id = :bookingId")
+    Optional<Long> findItemIdById(@Param("bookingId") Long bookingId);
+
+    @Query("select distinct b.item.id from Booking b where b.id in :bookingIds")
+    List<Long> findItemIdsByIdIn(@Param("bookingIds") Collection<Long> bookingIds);
+
+    // Бронирования для пакетного изменения статуса вместе с вещами и бронирующими
+    @Query("select b " +
+            "from Booking b " +
+            "join fetch b.item " +
+            "join fetch b.booker " +
+            "where b.id in :bookingIds")
+    List<Booking> findWithItemByIdIn(@Param("bookingIds") Collection<Long> bookingIds);
+
+    // Пересечение [start, end) с подтверждённым бронированием вещи ищется по индексу bookings_item_start_idx:
+    // условие по b.item.id сравнивает внешний ключ, выведенный из имени метода запрос соединял бы таблицу вещей.
+    // Запрос не сбрасывает изменения контекста, чтобы изменения статусов пакета ушли в базу пакетом при фиксации
+    @QueryHints(@QueryHint(name = HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query("select case when count(b) > 0 then true else false end " +
+            "from Booking b " +
+            "where b.item.id = :itemId " +
+            "and b.status = :status " +
+            "and b.startDate < :end " +
+            "and b.endDate > :start")
+    boolean existsByItemIdAndStatusAndStartDateBeforeAndEndDateAfter(@Param("itemId") Long itemId,
+                                                                    @Param("status") BookingStatus status,
+                                                                    @Param("end") LocalDateTime end,
+                                                                    @Param("start") LocalDateTime start);
+
+    // Снимки бронирований для проекции последнего и следующего бронирования вещей. Закончившиеся до since
+    // бронирования уже не станут ни текущими, ни следующими, из них читается только последнее для каждой вещи
+    @Query("select new ru.practicum.shareit.booking.summary.BookingSlot(" +
+            "b.item.id, b.id, b.startDate, b.endDate, b.status, b.booker.id) " +
+            "from Booking b " +
+            "where b.item.id in :itemIds " +
+            "and b.status <> 'REJECTED' " +
+            "and (b.endDate >= :since " +
+            "or (b.status in ('APPROVED', 'CANCELED') " +
+            "and b.endDate = (" +
+                "select max(p.endDate) " +
+                "from Booking p " +
+                "where p.item.id = b.item.id " +
+                "and p.status in ('APPROVED', 'CANCELED') " +
+                "and p.endDate < :since)))")
+    List<BookingSlot> findSlotsByItemIdIn(@Param("itemIds") Collection<Long> itemIds,
+                                          @Param("since") LocalDateTime since);
 }
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Версии бронирования, вещи и бронирующего для ETag вместе с участниками, которым бронирование видно.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BookingVersionRow {
+    private final Long bookerId;
+    private final Long ownerId;
+    private final Long version;
+    private final Long itemVersion;
+    private final Long bookerVersion;
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.summary;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Снимок бронирования, достаточный для вычисления последнего и следующего бронирования вещи.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BookingSlot {
+    private final Long itemId;
+    private final Long id;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final BookingStatus status;
+    private final Long bookerId;
+}
@@ -0,0 +1,35 @@
+package ru.practicum.shareit.booking.summary;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.Booking;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Передаёт изменения бронирований в проекцию последнего и следующего бронирования.
+ * Снимок бронирования берётся сразу, а применяется проекцией после фиксации транзакции.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingSummaryListener {
+    private final ObjectProvider<ItemBookingSummary> summary;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Booking booking) {
+        BookingSlot slot = new BookingSlot(booking.getItem().getId(), booking.getId(), booking.getStartDate(),
+                booking.getEndDate(), booking.getStatus(), booking.getBooker().getId());
+        summary.ifAvailable(projection -> projection.onSaved(slot));
+    }
+
+    @PostRemove
+    public void onRemove(Booking booking) {
+        Long itemId = booking.getItem().getId();
+        Long bookingId = booking.getId();
+        summary.ifAvailable(projection -> projection.onRemoved(itemId, bookingId));
+    }
+}
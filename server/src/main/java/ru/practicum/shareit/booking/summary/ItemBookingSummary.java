@@ -0,0 +1,134 @@
+package ru.practicum.shareit.booking.summary;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.transaction.AfterCommit;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+/**
+ * Поддерживаемая проекция последнего и следующего бронирования для каждой вещи.
+ * Шкала вещи загружается из базы при первом обращении и дальше обновляется после фиксации транзакций,
+ * изменивших бронирования, так что чтение не требует запросов к базе. Изменения через другие экземпляры
+ * сервера сюда не приходят: их видно после вытеснения шкалы по сроку или сверки {@link ItemBookingSummaryChecker}.
+ * Проекция служит только чтению, пересечения при изменении бронирований проверяются запросом к базе.
+ * Из бронирований, закончившихся раньше shareit.booking-summary.history назад, загружается только последнее.
+ */
+@Slf4j
+@Component
+public class ItemBookingSummary {
+    private final BookingStorage bookingStorage;
+    private final Cache<Long, ItemBookingTimeline> timelines;
+    // Насколько в прошлое шкала знает все бронирования: раньше хранится только последнее закончившееся
+    private final Duration history;
+    // Счётчик изменений не даёт положить в проекцию шкалу, прочитанную до изменения, применённого позже
+    private long modifications;
+
+    public ItemBookingSummary(BookingStorage bookingStorage,
+                              @Value("${shareit.booking-summary.maximum-size:10000}") long maximumSize,
+                              @Value("${shareit.booking-summary.expire-after-write:10m}") Duration expireAfterWrite,
+                              @Value("${shareit.booking-summary.history:30d}") Duration history) {
+        this.bookingStorage = bookingStorage;
+        this.history = history;
+        this.timelines = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    public ItemBookingTimeline get(Long itemId) {
+        return getAll(new long[]{itemId})[0];
+    }
+
+    // Шкалы возвращаются по позициям упорядоченного по возрастанию массива id без повторов,
+    // недостающие загружаются одним запросом на все переданные вещи
+    public ItemBookingTimeline[] getAll(long[] itemIds) {
+        ItemBookingTimeline[] result = new ItemBookingTimeline[itemIds.length];
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < itemIds.length; i++) {
+            result[i] = timelines.getIfPresent(itemIds[i]);
+            if (result[i] == null) missing.add(itemIds[i]);
+        }
+        if (missing.isEmpty()) return result;
+
+        long loadedAt = currentModifications();
+        LocalDateTime since = LocalDateTime.now().minus(history);
+        List<BookingSlot> slots = bookingStorage.findSlotsByItemIdIn(missing, since);
+        // Снимки раскладываются подсчётом: каждой вещи достаётся непрерывный отрезок массива
+        int[] bounds = new int[itemIds.length + 1];
+        for (BookingSlot slot : slots) {
+            bounds[Arrays.binarySearch(itemIds, slot.getItemId()) + 1]++;
+        }
+        for (int i = 0; i < itemIds.length; i++) {
+            bounds[i + 1] += bounds[i];
+        }
+        BookingSlot[] grouped = new BookingSlot[slots.size()];
+        int[] positions = Arrays.copyOf(bounds, itemIds.length);
+        for (BookingSlot slot : slots) {
+            grouped[positions[Arrays.binarySearch(itemIds, slot.getItemId())]++] = slot;
+        }
+        List<BookingSlot> groupedSlots = Arrays.asList(grouped);
+        synchronized (this) {
+            boolean current = modifications == loadedAt;
+            for (int i = 0; i < itemIds.length; i++) {
+                if (result[i] != null) continue;
+                result[i] = ItemBookingTimeline.of(groupedSlots.subList(bounds[i], bounds[i + 1]), since);
+                if (current) {
+                    timelines.asMap().putIfAbsent(itemIds[i], result[i]);
+                }
+            }
+        }
+        return result;
+    }
+
+    public void onSaved(BookingSlot slot) {
+        AfterCommit.run(() -> apply(slot.getItemId(), timeline -> timeline.with(slot)));
+    }
+
+    public void onRemoved(Long itemId, Long bookingId) {
+        AfterCommit.run(() -> apply(itemId, timeline -> timeline.without(bookingId)));
+    }
+
+    // Бронирования удалённой вещи удаляются каскадно в базе, минуя слушатель сущностей
+    public void onItemRemoved(Long itemId) {
+        AfterCommit.run(() -> evict(itemId));
+    }
+
+    // Вместе с пользователем удаляются его вещи и бронирования любых вещей, поэтому проекция сбрасывается целиком
+    public void onUserRemoved(Long userId) {
+        AfterCommit.run(() -> {
+            log.debug("Сброс проекции бронирований после удаления пользователя с id {}.", userId);
+            clear();
+        });
+    }
+
+    public synchronized void evict(Long itemId) {
+        modifications++;
+        timelines.invalidate(itemId);
+    }
+
+    public synchronized void clear() {
+        modifications++;
+        timelines.invalidateAll();
+    }
+
+    Set<Long> cachedItemIds() {
+        return new HashSet<>(timelines.asMap().keySet());
+    }
+
+    private synchronized long currentModifications() {
+        return modifications;
+    }
+
+    private synchronized void apply(Long itemId, UnaryOperator<ItemBookingTimeline> change) {
+        modifications++;
+        timelines.asMap().computeIfPresent(itemId, (id, timeline) -> change.apply(timeline));
+    }
+}
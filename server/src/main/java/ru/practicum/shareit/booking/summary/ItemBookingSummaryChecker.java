@@ -0,0 +1,95 @@
+package ru.practicum.shareit.booking.summary;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Сверяет проекцию последнего и следующего бронирования с запросом к таблице бронирований.
+ * Расходящиеся шкалы вытесняются из проекции и при следующем чтении загружаются заново.
+ * Сверка запускается по расписанию и исправляет шкалы, не получившие изменений с других экземпляров сервера.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemBookingSummaryChecker {
+    private static final int CHUNK_SIZE = 500;
+
+    private final ItemBookingSummary summary;
+    private final BookingStorage bookingStorage;
+
+    @Scheduled(initialDelayString = "${shareit.booking-summary.check-interval:PT1M}",
+            fixedDelayString = "${shareit.booking-summary.check-interval:PT1M}")
+    @Transactional(readOnly = true)
+    public void checkNow() {
+        List<Long> mismatches = check(LocalDateTime.now());
+        if (!mismatches.isEmpty()) {
+            log.info("Сверка проекции бронирований перестроит шкалы {} вещей.", mismatches.size());
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> check(LocalDateTime currentTime) {
+        List<Long> itemIds = new ArrayList<>(summary.cachedItemIds());
+        itemIds.sort(null);
+        List<Long> mismatches = new ArrayList<>();
+        for (int from = 0; from < itemIds.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = itemIds.subList(from, Math.min(from + CHUNK_SIZE, itemIds.size()));
+            long[] chunkIds = chunk.stream().mapToLong(Long::longValue).toArray();
+            Map<Long, BookingSlot[]> expected = new HashMap<>();
+            for (Booking booking : bookingStorage.findLastAndNextForItem(chunk, currentTime)) {
+                BookingSlot slot = new BookingSlot(booking.getItem().getId(), booking.getId(),
+                        booking.getStartDate(), booking.getEndDate(), booking.getStatus(), booking.getBooker().getId());
+                BookingSlot[] lastAndNext = expected.computeIfAbsent(slot.getItemId(), id -> new BookingSlot[2]);
+                if (isLast(slot, currentTime)
+                        && (lastAndNext[0] == null || ItemBookingTimeline.isLater(slot, lastAndNext[0]))) {
+                    lastAndNext[0] = slot;
+                } else if (isNext(slot, currentTime)
+                        && (lastAndNext[1] == null || isEarlier(slot, lastAndNext[1]))) {
+                    lastAndNext[1] = slot;
+                }
+            }
+            ItemBookingTimeline[] timelines = summary.getAll(chunkIds);
+            for (int i = 0; i < chunkIds.length; i++) {
+                BookingSlot[] lastAndNext = expected.getOrDefault(chunkIds[i], new BookingSlot[2]);
+                if (!sameBooking(lastAndNext[0], timelines[i].last(currentTime))
+                        || !sameBooking(lastAndNext[1], timelines[i].next(currentTime))) {
+                    log.warn("Проекция бронирований вещи с id {} расходится с базой и будет перестроена.",
+                            chunkIds[i]);
+                    summary.evict(chunkIds[i]);
+                    mismatches.add(chunkIds[i]);
+                }
+            }
+        }
+        return mismatches;
+    }
+
+    private static boolean isLast(BookingSlot slot, LocalDateTime currentTime) {
+        return (slot.getStatus() == BookingStatus.APPROVED || slot.getStatus() == BookingStatus.CANCELED)
+                && (slot.getEnd().isBefore(currentTime)
+                || (slot.getStart().isBefore(currentTime) && slot.getEnd().isAfter(currentTime)));
+    }
+
+    private static boolean isNext(BookingSlot slot, LocalDateTime currentTime) {
+        return (slot.getStatus() == BookingStatus.APPROVED || slot.getStatus() == BookingStatus.WAITING)
+                && slot.getStart().isAfter(currentTime);
+    }
+
+    private static boolean isEarlier(BookingSlot slot, BookingSlot other) {
+        int compared = slot.getStart().compareTo(other.getStart());
+        return compared < 0 || (compared == 0 && slot.getId() < other.getId());
+    }
+
+    private static boolean sameBooking(BookingSlot expected, BookingSlot actual) {
+        if (expected == null || actual == null) return expected == actual;
+        return expected.getId().equals(actual.getId());
+    }
+}
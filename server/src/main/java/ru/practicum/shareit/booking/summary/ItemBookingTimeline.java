@@ -0,0 +1,176 @@
+package ru.practicum.shareit.booking.summary;
+
+import ru.practicum.shareit.booking.dto.TimeWindowDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Неизменяемая шкала бронирований одной вещи.
+ * Кандидаты в последнее бронирование (APPROVED, CANCELED) и в следующее (APPROVED, WAITING) хранятся
+ * отсортированными по началу, для первых дополнительно хранится индекс максимального окончания на префиксе.
+ * Поэтому ответ для любого момента времени находится двоичным поиском, и шкала не устаревает с течением времени.
+ * Подтверждённые бронирования занимают вещь: по ним так же двоичным поиском проверяется пересечение интервалов.
+ * Шкала может знать не всю историю: из бронирований, закончившихся раньше since, в ней есть только последнее.
+ * Этого достаточно для ответов на любой момент не раньше since, а время до since не считается свободным.
+ */
+public final class ItemBookingTimeline {
+    static final ItemBookingTimeline EMPTY = new ItemBookingTimeline(List.of(), LocalDateTime.MIN);
+
+    private static final Comparator<BookingSlot> BY_START = Comparator.comparing(BookingSlot::getStart)
+            .thenComparing(BookingSlot::getId);
+
+    private final List<BookingSlot> slots;
+    private final LocalDateTime since;
+    private final BookingSlot[] lastCandidates;
+    private final int[] maxEndIndex;
+    private final BookingSlot[] nextCandidates;
+    private final BookingSlot[] approved;
+    private final LocalDateTime[] approvedMaxEnd;
+
+    private ItemBookingTimeline(List<BookingSlot> slots, LocalDateTime since) {
+        this.slots = slots;
+        this.since = since;
+        List<BookingSlot> last = new ArrayList<>();
+        List<BookingSlot> next = new ArrayList<>();
+        List<BookingSlot> occupied = new ArrayList<>();
+        for (BookingSlot slot : slots) {
+            if (slot.getStatus() == BookingStatus.APPROVED) {
+                occupied.add(slot);
+            }
+            if (slot.getStatus() == BookingStatus.APPROVED || slot.getStatus() == BookingStatus.CANCELED) {
+                last.add(slot);
+            }
+            if (slot.getStatus() == BookingStatus.APPROVED || slot.getStatus() == BookingStatus.WAITING) {
+                next.add(slot);
+            }
+        }
+        last.sort(BY_START);
+        next.sort(BY_START);
+        occupied.sort(BY_START);
+        lastCandidates = last.toArray(new BookingSlot[0]);
+        nextCandidates = next.toArray(new BookingSlot[0]);
+        maxEndIndex = new int[lastCandidates.length];
+        for (int i = 0; i < lastCandidates.length; i++) {
+            maxEndIndex[i] = i == 0 || isLater(lastCandidates[i], lastCandidates[maxEndIndex[i - 1]])
+                    ? i : maxEndIndex[i - 1];
+        }
+        approved = occupied.toArray(new BookingSlot[0]);
+        approvedMaxEnd = new LocalDateTime[approved.length];
+        for (int i = 0; i < approved.length; i++) {
+            LocalDateTime end = approved[i].getEnd();
+            approvedMaxEnd[i] = i == 0 || end.isAfter(approvedMaxEnd[i - 1]) ? end : approvedMaxEnd[i - 1];
+        }
+    }
+
+    public static ItemBookingTimeline of(List<BookingSlot> slots) {
+        return of(slots, LocalDateTime.MIN);
+    }
+
+    public static ItemBookingTimeline of(List<BookingSlot> slots, LocalDateTime since) {
+        if (slots.isEmpty() && since.equals(LocalDateTime.MIN)) return EMPTY;
+        return new ItemBookingTimeline(List.copyOf(slots), since);
+    }
+
+    // При равном окончании последним считается бронирование с большим id
+    static boolean isLater(BookingSlot slot, BookingSlot other) {
+        int compared = slot.getEnd().compareTo(other.getEnd());
+        return compared > 0 || (compared == 0 && slot.getId() > other.getId());
+    }
+
+    public BookingSlot last(LocalDateTime currentTime) {
+        int count = countStartedBefore(lastCandidates, currentTime);
+        if (count == 0) return null;
+        BookingSlot last = lastCandidates[maxEndIndex[count - 1]];
+        if (!last.getEnd().isEqual(currentTime)) return last;
+        // Бронирование, заканчивающееся ровно сейчас, не считается ни прошедшим, ни текущим
+        last = null;
+        for (int i = 0; i < count; i++) {
+            BookingSlot slot = lastCandidates[i];
+            if (!slot.getEnd().isEqual(currentTime) && (last == null || isLater(slot, last))) {
+                last = slot;
+            }
+        }
+        return last;
+    }
+
+    public BookingSlot next(LocalDateTime currentTime) {
+        int low = 0;
+        int high = nextCandidates.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (nextCandidates[middle].getStart().isAfter(currentTime)) {
+                high = middle;
+            } else low = middle + 1;
+        }
+        return low < nextCandidates.length ? nextCandidates[low] : null;
+    }
+
+    // Интервал [start, end) пересекается с подтверждённым бронированием, если среди начавшихся до end
+    // хотя бы одно заканчивается позже start
+    public boolean isOccupied(LocalDateTime start, LocalDateTime end) {
+        int count = countStartedBefore(approved, end);
+        return count > 0 && approvedMaxEnd[count - 1].isAfter(start);
+    }
+
+    // Свободные окна внутри [from, to): обход начинается с первого подтверждённого бронирования,
+    // которое может задеть from, поэтому стоимость зависит только от числа бронирований в самом интервале
+    public List<TimeWindowDto> freeWindows(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime start = from.isBefore(since) ? since : from;
+        int low = 0;
+        int high = approved.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (approvedMaxEnd[middle].isAfter(start)) {
+                high = middle;
+            } else low = middle + 1;
+        }
+        List<TimeWindowDto> windows = new ArrayList<>();
+        LocalDateTime cursor = start;
+        for (int i = low; i < approved.length && approved[i].getStart().isBefore(to); i++) {
+            BookingSlot slot = approved[i];
+            if (slot.getStart().isAfter(cursor)) {
+                windows.add(new TimeWindowDto(cursor, slot.getStart()));
+            }
+            if (slot.getEnd().isAfter(cursor)) {
+                cursor = slot.getEnd();
+            }
+        }
+        if (cursor.isBefore(to)) {
+            windows.add(new TimeWindowDto(cursor, to));
+        }
+        return windows;
+    }
+
+    public ItemBookingTimeline with(BookingSlot slot) {
+        List<BookingSlot> updated = new ArrayList<>(slots.size() + 1);
+        for (BookingSlot existing : slots) {
+            if (!existing.getId().equals(slot.getId())) updated.add(existing);
+        }
+        updated.add(slot);
+        return new ItemBookingTimeline(updated, since);
+    }
+
+    public ItemBookingTimeline without(Long bookingId) {
+        List<BookingSlot> updated = new ArrayList<>(slots.size());
+        for (BookingSlot existing : slots) {
+            if (!existing.getId().equals(bookingId)) updated.add(existing);
+        }
+        return updated.size() == slots.size() ? this : of(updated, since);
+    }
+
+    private static int countStartedBefore(BookingSlot[] sorted, LocalDateTime currentTime) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle].getStart().isBefore(currentTime)) {
+                low = middle + 1;
+            } else high = middle;
+        }
+        return low;
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.etag;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Сильный ETag ответа из версий сущностей, от которых этот ответ зависит. Версии выбираются отдельным
+ * лёгким запросом или берутся из кэша представлений, поэтому на If-None-Match с тем же тегом сервер
+ * отвечает 304 без сборки ответа.
+ */
+public final class EntityTag {
+    private EntityTag() {
+    }
+
+    public static String of(Object... parts) {
+        return Arrays.stream(parts)
+                .map(part -> part == null ? "n" : part.toString())
+                .collect(Collectors.joining("-", "\"", "\""));
+    }
+}
@@ -2,6 +2,7 @@ package ru.practicum.shareit.exception;
 
 import lombok.Generated;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -57,6 +58,14 @@ public class ErrorHandler {
                 "errorMessage", e.getMessage());
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Map<String, String> handleConcurrentUpdate(final OptimisticLockingFailureException e) {
+        log(e);
+        return Map.of("error", "Concurrent update",
+                "errorMessage", "The object was changed by another request, please retry.");
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public Map<String, String> handleOtherExc(final Exception e) {
@@ -0,0 +1,50 @@
+package ru.practicum.shareit.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.MediaType;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Пишет выгрузку в ответ в формате NDJSON: каждая запись отдельной строкой JSON по мере чтения из базы,
+ * поэтому расход памяти не зависит от размера выгрузки.
+ */
+public class NdjsonWriter<T> implements Consumer<T> {
+    private final ObjectWriter writer;
+    private final HttpServletResponse response;
+    private OutputStream out;
+
+    public NdjsonWriter(ObjectMapper objectMapper, HttpServletResponse response) {
+        this.writer = objectMapper.writer();
+        this.response = response;
+    }
+
+    @Override
+    public void accept(T row) {
+        try {
+            OutputStream body = body();
+            body.write(writer.writeValueAsBytes(row));
+            body.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void finish() throws IOException {
+        body().flush();
+    }
+
+    // Тип ответа задаётся вместе с первой строкой: до неё ошибку ещё можно отдать обработчиком ошибок как JSON
+    private OutputStream body() throws IOException {
+        if (out == null) {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            out = response.getOutputStream();
+        }
+        return out;
+    }
+}
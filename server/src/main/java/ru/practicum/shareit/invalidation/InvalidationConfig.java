@@ -0,0 +1,22 @@
+package ru.practicum.shareit.invalidation;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Какие области кэша шлюза зависят от изменяемых ресурсов: items - поиск вещей, requests - запросы
+ * других пользователей вместе с вещами-ответами. Бронирования в эти ответы не входят.
+ */
+@Configuration
+public class InvalidationConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Вместе с пользователем удаляются его вещи и запросы, а его имя есть в комментариях
+        registry.addInterceptor(new InvalidationHints("items", "requests"))
+                .addPathPatterns("/users/**", "/items/**");
+        registry.addInterceptor(new InvalidationHints("requests"))
+                .addPathPatterns("/requests/**");
+    }
+}
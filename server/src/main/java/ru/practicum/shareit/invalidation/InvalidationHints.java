@@ -0,0 +1,30 @@
+package ru.practicum.shareit.invalidation;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Подсказка шлюзу, какие закэшированные им ответы устарели после изменяющего запроса.
+ * Заголовок выставляется до обработки: лишний сброс кэша после неудачного запроса безвреден.
+ */
+public class InvalidationHints implements HandlerInterceptor {
+    public static final String HEADER = "X-Shareit-Invalidate";
+
+    private final String regions;
+
+    public InvalidationHints(String... regions) {
+        this.regions = String.join(", ", regions);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        HttpMethod method = HttpMethod.resolve(request.getMethod());
+        if (method != HttpMethod.GET && method != HttpMethod.HEAD && method != HttpMethod.OPTIONS) {
+            response.addHeader(HEADER, regions);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item.cache;
+
+import lombok.Value;
+
+import java.io.Serializable;
+
+/**
+ * Запись узлового уровня кэша: представление вместе с поколением общего уровня, под которым оно прочитано.
+ */
+@Value
+class CachedView implements Serializable {
+    ItemView view;
+    long generation;
+}
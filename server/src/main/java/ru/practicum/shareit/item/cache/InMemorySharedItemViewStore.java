@@ -0,0 +1,78 @@
+package ru.practicum.shareit.item.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.SerializationUtils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Замена внешнего хранилища (Redis) внутри процесса: представления хранятся сериализованными,
+ * как во внешнем хранилище, а поколения выдаются из одной возрастающей последовательности.
+ * Запись поколения живёт дольше любой транзакции чтения, после её вытеснения вещь получает
+ * поколение последнего общего сброса, которое не совпадает ни с одним выданным ей раньше.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.item-cache.shared-store", havingValue = "memory", matchIfMissing = true)
+public class InMemorySharedItemViewStore implements SharedItemViewStore {
+    private final Cache<Long, StoredView> views;
+    private final Cache<Long, Long> generations;
+    private final AtomicLong sequence = new AtomicLong();
+    // Поколение вещей без своей записи, меняется при сбросе всех представлений
+    private volatile long baseGeneration;
+
+    public InMemorySharedItemViewStore(
+            @Value("${shareit.item-cache.shared.maximum-size:10000}") long maximumSize,
+            @Value("${shareit.item-cache.shared.expire-after-write:10m}") Duration expireAfterWrite) {
+        views = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+        generations = Caffeine.newBuilder()
+                .expireAfterWrite(expireAfterWrite.multipliedBy(2))
+                .build();
+    }
+
+    @Override
+    public long generation(Long itemId) {
+        Long generation = generations.getIfPresent(itemId);
+        return generation == null ? baseGeneration : generation;
+    }
+
+    @Override
+    public ItemView get(Long itemId, long generation) {
+        StoredView stored = views.getIfPresent(itemId);
+        if (stored == null || stored.getGeneration() != generation) return null;
+        return (ItemView) SerializationUtils.deserialize(stored.getBytes());
+    }
+
+    @Override
+    public void put(Long itemId, ItemView view, long generation) {
+        if (generation(itemId) == generation) {
+            views.put(itemId, new StoredView(SerializationUtils.serialize(view), generation));
+        }
+    }
+
+    @Override
+    public synchronized void evict(Long itemId) {
+        generations.put(itemId, sequence.incrementAndGet());
+        views.invalidate(itemId);
+    }
+
+    @Override
+    public synchronized void clear() {
+        baseGeneration = sequence.incrementAndGet();
+        generations.invalidateAll();
+        views.invalidateAll();
+    }
+
+    @lombok.Value
+    private static class StoredView {
+        byte[] bytes;
+        long generation;
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.item.cache;
+
+import lombok.Value;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.io.Serializable;
+
+/**
+ * Представление вещи без бронирований вместе с id владельца, по которому выбирается вид ответа,
+ * и версиями, из которых строится ETag: версией вещи, id последнего комментария и суммой версий
+ * авторов комментариев представления, в которое входят их имена.
+ * Представление сериализуемо, чтобы его можно было хранить в общем для узлов кэше.
+ */
+@Value
+public class ItemView implements Serializable {
+    Long ownerId;
+    Long version;
+    Long lastCommentId;
+    Long authorsVersion;
+    ItemDto item;
+}
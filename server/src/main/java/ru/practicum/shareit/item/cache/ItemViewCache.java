@@ -0,0 +1,79 @@
+package ru.practicum.shareit.item.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.transaction.AfterCommit;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Двухуровневый кэш представлений вещей с комментариями. Узловой уровень задаётся через spring.cache.type,
+ * общий для узлов уровень - реализацией {@link SharedItemViewStore}. Запись узлового уровня отдаётся, пока
+ * поколение вещи в общем уровне не изменилось, так что сброс на любом узле виден всем. Записи кладутся
+ * и сбрасываются только после фиксации транзакций.
+ */
+@Slf4j
+@Component
+public class ItemViewCache {
+    public static final String NAME = "items";
+
+    private final Cache cache;
+    private final SharedItemViewStore shared;
+    private final Counter sharedHits;
+    private final Counter sharedMisses;
+
+    public ItemViewCache(CacheManager cacheManager, SharedItemViewStore shared, MeterRegistry registry) {
+        this.cache = Objects.requireNonNull(cacheManager.getCache(NAME));
+        this.shared = shared;
+        this.sharedHits = registry.counter("item.cache.shared.gets", "result", "hit");
+        this.sharedMisses = registry.counter("item.cache.shared.gets", "result", "miss");
+    }
+
+    public ItemView get(Long itemId, Supplier<ItemView> loader) {
+        // Поколение берётся до чтения: изменение вещи после этого момента не даст отдать прочитанное
+        long generation = shared.generation(itemId);
+        CachedView local = cache.get(itemId, CachedView.class);
+        if (local != null && local.getGeneration() == generation) return local.getView();
+
+        ItemView view = shared.get(itemId, generation);
+        if (view != null) {
+            sharedHits.increment();
+            cache.put(itemId, new CachedView(view, generation));
+            return view;
+        }
+        sharedMisses.increment();
+        ItemView loaded = loader.get();
+        AfterCommit.run(() -> {
+            shared.put(itemId, loaded, generation);
+            cache.put(itemId, new CachedView(loaded, generation));
+        });
+        return loaded;
+    }
+
+    public void onItemChanged(Long itemId) {
+        AfterCommit.run(() -> evict(itemId));
+    }
+
+    // Имя автора входит в комментарии любых вещей, а вместе с пользователем удаляются его вещи
+    public void onUserChanged(Long userId) {
+        AfterCommit.run(() -> {
+            log.debug("Сброс кэша вещей после изменения пользователя с id {}.", userId);
+            clear();
+        });
+    }
+
+    public void evict(Long itemId) {
+        shared.evict(itemId);
+        cache.evict(itemId);
+    }
+
+    public void clear() {
+        shared.clear();
+        cache.clear();
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.item.cache;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Общий для узлов сервера уровень кэша представлений вещей. Каждый сброс записи вещи меняет её поколение.
+ * Представление хранится вместе с поколением, под которым его начали читать из базы, и отдаётся только
+ * при совпадении с текущим поколением: чтение, начатое до изменения вещи на любом узле, не вернёт
+ * устаревшее представление, а сброс одной вещи не мешает кэшировать другие.
+ */
+public interface SharedItemViewStore {
+    long generation(Long itemId);
+
+    @Nullable
+    ItemView get(Long itemId, long generation);
+
+    void put(Long itemId, ItemView view, long generation);
+
+    void evict(Long itemId);
+
+    void clear();
+}
@@ -1,15 +1,27 @@
 package ru.practicum.shareit.item.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.booking.dto.TimeWindowDto;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.export.NdjsonWriter;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CreateCommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.service.TaggedItem;
+import ru.practicum.shareit.pagination.KeysetPage;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -19,7 +31,11 @@ import java.util.Map;
 @RequiredArgsConstructor
 @Validated
 public class ItemController {
+    // Владелец вещи для шлюза: запросы вещи от всех остальных пользователей получают один и тот же ответ
+    public static final String OWNER_HEADER = "X-Shareit-Owner";
+
     private final ItemService itemService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ItemDto createItem(@RequestHeader("X-Sharer-User-Id") Long userId,
@@ -45,19 +61,64 @@ public class ItemController {
 
     @GetMapping("/{itemId}")
     public ItemDto getItemById(@PathVariable Long itemId,
-                               @RequestHeader("X-Sharer-User-Id") Long userId) {
+                               @RequestHeader("X-Sharer-User-Id") Long userId,
+                               WebRequest request,
+                               HttpServletResponse response) {
         LocalDateTime currentTime = LocalDateTime.now();
-        return itemService.getById(userId, itemId, currentTime);
+        TaggedItem tagged = itemService.getTaggedById(userId, itemId, currentTime);
+        response.setHeader(OWNER_HEADER, String.valueOf(tagged.getOwnerId()));
+        if (request.checkNotModified(tagged.getTag())) return null;
+        return tagged.getItem();
     }
 
     @GetMapping
     public List<ItemDto> getItemsByUser(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                        @RequestParam int from,
-                                        @RequestParam int size) {
+                                        @RequestParam(required = false) Integer from,
+                                        @RequestParam int size,
+                                        @RequestParam(required = false) Long afterId) {
+        // Страница задаётся либо смещением, либо id последней полученной вещи
+        if (from != null && afterId != null) {
+            throw new BadRequestException("Parameters 'from' and 'afterId' cannot be used together.");
+        }
+        checkPage(from, size);
         LocalDateTime currentTime = LocalDateTime.now();
-        int page = from / size;
+        int page = from == null ? 0 : from / size;
         Pageable pageable = PageRequest.of(page, size);
-        return itemService.getAllByUser(userId, currentTime, pageable);
+        return itemService.getAllByUser(userId, afterId, currentTime, pageable);
+    }
+
+    @GetMapping("/export")
+    public void exportItemsByUser(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                  HttpServletResponse response) throws IOException {
+        NdjsonWriter<ItemDto> writer = new NdjsonWriter<>(objectMapper, response);
+        itemService.exportByOwner(userId, writer);
+        writer.finish();
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public List<TimeWindowDto> getAvailability(@PathVariable Long itemId,
+                                               @RequestHeader("X-Sharer-User-Id") Long userId,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime from,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime to) {
+        return itemService.getAvailability(userId, itemId, from, to);
+    }
+
+    @GetMapping("/{itemId}/comments")
+    public ResponseEntity<List<CommentDto>> getComments(@PathVariable Long itemId,
+                                                        @RequestHeader("X-Sharer-User-Id") Long userId,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "10") int size) {
+        if (size <= 0) {
+            throw new BadRequestException("Parameter 'size' should be positive.");
+        }
+        KeysetPage<CommentDto> page = itemService.getComments(userId, itemId, cursor, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(KeysetPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
 
     @GetMapping("/search")
@@ -65,6 +126,7 @@ public class ItemController {
                                      @RequestParam String text,
                                      @RequestParam int from,
                                      @RequestParam int size) {
+        checkPage(from, size);
         Pageable pageable = PageRequest.of(from, size);
         return itemService.search(userId, text, pageable);
     }
@@ -74,4 +136,14 @@ public class ItemController {
                            @PathVariable Long itemId) {
         return itemService.delete(userId, itemId);
     }
+
+    // Размер и смещение страницы проверяет и шлюз, но к серверу можно обратиться напрямую
+    private static void checkPage(@Nullable Integer from, int size) {
+        if (size <= 0) {
+            throw new BadRequestException("Parameter 'size' should be positive.");
+        }
+        if (from != null && from < 0) {
+            throw new BadRequestException("Parameter 'from' shouldn't be negative.");
+        }
+    }
 }
@@ -3,11 +3,12 @@ package ru.practicum.shareit.item.dto;
 import lombok.Builder;
 import lombok.Value;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 
 @Value
 @Builder
-public class CommentDto {
+public class CommentDto implements Serializable {
     long id;
     String text;
     String authorName;
@@ -5,12 +5,13 @@ import lombok.Value;
 import lombok.With;
 import ru.practicum.shareit.booking.dto.BookingItemDto;
 
+import java.io.Serializable;
 import java.util.List;
 
 @With
 @Value
 @Builder
-public class ItemDto {
+public class ItemDto implements Serializable {
     Long id;
     String name;
     String description;
@@ -18,5 +19,6 @@ public class ItemDto {
     BookingItemDto lastBooking;
     BookingItemDto nextBooking;
     List<CommentDto> comments;
+    Long commentsCount;
     Long requestId;
 }
@@ -0,0 +1,43 @@
+package ru.practicum.shareit.item.mapper;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.Map;
+
+/**
+ * Применяет PATCH-запрос к вещи. Изменять можно только перечисленные поля, остальные ключи отклоняются.
+ */
+@Slf4j
+@Component
+public class ItemPatcher {
+
+    public void patch(Item item, Map<String, Object> fields) {
+        fields.forEach((field, value) -> {
+            switch (field) {
+                case "name":
+                    item.setName(cast(field, value, String.class));
+                    break;
+                case "description":
+                    item.setDescription(cast(field, value, String.class));
+                    break;
+                case "available":
+                    item.setAvailable(cast(field, value, Boolean.class));
+                    break;
+                default:
+                    log.error("BadRequest. Запрос изменить недоступное поле {} вещи с id {}.", field, item.getId());
+                    throw new BadRequestException(String.format("Field '%s' of item cannot be updated.", field));
+            }
+        });
+    }
+
+    private static <T> T cast(String field, Object value, Class<T> type) {
+        if (!type.isInstance(value)) {
+            throw new BadRequestException(String.format("Field '%s' should be of type %s.",
+                    field, type.getSimpleName()));
+        }
+        return type.cast(value);
+    }
+}
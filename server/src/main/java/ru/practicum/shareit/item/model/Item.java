@@ -2,12 +2,12 @@ package ru.practicum.shareit.item.model;
 
 import lombok.*;
 import org.hibernate.Hibernate;
+import ru.practicum.shareit.item.search.ItemSearchIndexListener;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
-import java.util.List;
 import java.util.Objects;
 
 @NoArgsConstructor
@@ -18,6 +18,7 @@ import java.util.Objects;
 @Generated
 @Entity
 @Table(name = "items")
+@EntityListeners(ItemSearchIndexListener.class)
 public class Item {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -32,10 +33,10 @@ public class Item {
     private Boolean available;
     @Column(name = "owner_id")
     private Long ownerId;
-    @OneToMany(mappedBy = "itemId")
-    private List<Comment> comments;
     @Column(name = "request_id")
     private Long requestId;
+    @Version
+    private Long version;
 
     @Override
     public boolean equals(Object o) {
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.storage.ItemRow;
+import ru.practicum.shareit.item.storage.ItemStorage;
+
+import java.util.List;
+
+/**
+ * Поиск средствами БД. На PostgreSQL запрос обслуживается триграммными GIN-индексами
+ * из миграции db/migration/postgresql, поэтому индекс поддерживает сама база.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "database", matchIfMissing = true)
+public class DatabaseItemSearchEngine implements ItemSearchEngine {
+    private final ItemStorage itemStorage;
+
+    @Override
+    public List<ItemRow> search(String text, Pageable pageable) {
+        return itemStorage.search(escapeLike(text), pageable);
+    }
+
+    // % и _ в тексте пользователя ищутся буквально, как во встроенном индексе
+    static String escapeLike(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' || c == '%' || c == '_') {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
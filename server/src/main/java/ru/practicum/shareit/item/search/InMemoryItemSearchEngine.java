@@ -0,0 +1,147 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRow;
+import ru.practicum.shareit.item.storage.ItemStorage;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Встроенный инвертированный индекс по триграммам названия и описания вещи.
+ * Кандидаты берутся из самого короткого списка триграмм запроса и проверяются на вхождение подстроки,
+ * так что результат совпадает с LIKE '%text%', где % и _ из текста экранированы и ищутся буквально.
+ * Используется в профилях ci и test поверх H2.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "memory")
+public class InMemoryItemSearchEngine implements ItemSearchEngine {
+    private static final int GRAM_SIZE = 3;
+
+    private final ItemStorage itemStorage;
+    private final NavigableMap<Long, Document> documents = new ConcurrentSkipListMap<>();
+    private final Map<String, NavigableSet<Long>> postings = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            documents.clear();
+            postings.clear();
+            itemStorage.findAll().forEach(this::index);
+        }
+        log.info("Поисковый индекс вещей построен, проиндексировано {} вещей.", documents.size());
+    }
+
+    @Override
+    public List<ItemRow> search(String text, Pageable pageable) {
+        String query = text.toLowerCase(Locale.ROOT);
+        Iterable<Long> candidates = candidates(query);
+        long toSkip = pageable.getOffset();
+        List<Long> ids = new ArrayList<>(pageable.getPageSize());
+        for (Long id : candidates) {
+            Document document = documents.get(id);
+            if (document == null || !document.matches(query)) {
+                continue;
+            }
+            if (toSkip > 0) {
+                toSkip--;
+                continue;
+            }
+            ids.add(id);
+            if (ids.size() == pageable.getPageSize()) {
+                break;
+            }
+        }
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return itemStorage.findRowsByIdIn(ids);
+    }
+
+    @Override
+    public synchronized void index(Item item) {
+        remove(item.getId());
+        Document document = new Document(item.getName().toLowerCase(Locale.ROOT),
+                item.getDescription().toLowerCase(Locale.ROOT),
+                Boolean.TRUE.equals(item.getAvailable()));
+        documents.put(item.getId(), document);
+        for (String gram : document.grams()) {
+            postings.computeIfAbsent(gram, g -> new ConcurrentSkipListSet<>()).add(item.getId());
+        }
+    }
+
+    @Override
+    public synchronized void remove(Long itemId) {
+        Document document = documents.remove(itemId);
+        if (document == null) {
+            return;
+        }
+        for (String gram : document.grams()) {
+            NavigableSet<Long> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(itemId);
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private Iterable<Long> candidates(String query) {
+        if (query.length() < GRAM_SIZE) {
+            return documents.keySet();
+        }
+        NavigableSet<Long> shortest = null;
+        for (String gram : grams(query)) {
+            NavigableSet<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return Collections.emptySet();
+            }
+            if (shortest == null || ids.size() < shortest.size()) {
+                shortest = ids;
+            }
+        }
+        return shortest;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    private static final class Document {
+        private final String name;
+        private final String description;
+        private final boolean available;
+
+        private Document(String name, String description, boolean available) {
+            this.name = name;
+            this.description = description;
+            this.available = available;
+        }
+
+        private boolean matches(String query) {
+            return available && (name.contains(query) || description.contains(query));
+        }
+
+        private Set<String> grams() {
+            Set<String> grams = InMemoryItemSearchEngine.grams(name);
+            grams.addAll(InMemoryItemSearchEngine.grams(description));
+            return grams;
+        }
+    }
+}
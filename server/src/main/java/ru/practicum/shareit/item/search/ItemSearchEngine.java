@@ -0,0 +1,18 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRow;
+
+import java.util.List;
+
+public interface ItemSearchEngine {
+    // Поиск доступных вещей по подстроке в названии или описании, упорядоченный по id
+    List<ItemRow> search(String text, Pageable pageable);
+
+    default void index(Item item) {
+    }
+
+    default void remove(Long itemId) {
+    }
+}
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.transaction.AfterCommit;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Передаёт изменения вещей в поисковый движок после фиксации транзакции.
+ * Движок берётся лениво: слушатель создаётся вместе с EntityManagerFactory, от которой зависит сам движок.
+ */
+@Component
+@RequiredArgsConstructor
+public class ItemSearchIndexListener {
+    private final ObjectProvider<ItemSearchEngine> searchEngine;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Item item) {
+        AfterCommit.run(() -> searchEngine.ifAvailable(engine -> engine.index(item)));
+    }
+
+    @PostRemove
+    public void onRemove(Item item) {
+        Long itemId = item.getId();
+        AfterCommit.run(() -> searchEngine.ifAvailable(engine -> engine.remove(itemId)));
+    }
+}
@@ -0,0 +1,80 @@
+package ru.practicum.shareit.item.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.CommentMapper;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.storage.CommentPreviewRow;
+import ru.practicum.shareit.item.storage.CommentStorage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Дополняет представления вещей последними комментариями и общим числом комментариев.
+ * Для любого числа вещей выполняется не больше двух запросов.
+ */
+@Component
+public class ItemCommentPreviews {
+    private final CommentStorage commentStorage;
+    private final CommentMapper commentMapper;
+    private final int previewSize;
+
+    public ItemCommentPreviews(CommentStorage commentStorage,
+                               CommentMapper commentMapper,
+                               @Value("${shareit.item.comment-preview-size:10}") int previewSize) {
+        this.commentStorage = commentStorage;
+        this.commentMapper = commentMapper;
+        this.previewSize = previewSize;
+    }
+
+    public ItemDto fill(ItemDto dto) {
+        return fill(List.of(dto)).get(0);
+    }
+
+    // Превью и счётчики раскладываются по массивам, индексированным позицией id вещи в упорядоченном массиве id,
+    // а порядок самих представлений сохраняется
+    public List<ItemDto> fill(List<ItemDto> dtos) {
+        if (dtos.isEmpty()) return dtos;
+        long[] itemIds = new long[dtos.size()];
+        for (int i = 0; i < itemIds.length; i++) {
+            itemIds[i] = dtos.get(i).getId();
+        }
+        Arrays.sort(itemIds);
+        List<Long> itemIdList = new ArrayList<>(itemIds.length);
+        for (long itemId : itemIds) {
+            itemIdList.add(itemId);
+        }
+
+        long[] counts = new long[itemIds.length];
+        List<Long> commentIds = new ArrayList<>();
+        for (CommentPreviewRow row : commentStorage.findPreviewRows(itemIdList, previewSize)) {
+            counts[Arrays.binarySearch(itemIds, row.getItemId())] = row.getTotal();
+            commentIds.add(row.getId());
+        }
+        // Комментарии приходят отсортированными по вещи, поэтому каждой вещи достаётся непрерывный отрезок списка
+        List<CommentDto> comments = new ArrayList<>(commentIds.size());
+        int[] commentBounds = new int[itemIds.length + 1];
+        if (!commentIds.isEmpty()) {
+            for (Comment comment : commentStorage.findWithAuthorByIdIn(commentIds)) {
+                commentBounds[Arrays.binarySearch(itemIds, comment.getItemId()) + 1]++;
+                comments.add(commentMapper.toDto(comment));
+            }
+        }
+        for (int i = 0; i < itemIds.length; i++) {
+            commentBounds[i + 1] += commentBounds[i];
+        }
+
+        ItemDto[] filled = new ItemDto[dtos.size()];
+        for (int i = 0; i < filled.length; i++) {
+            ItemDto dto = dtos.get(i);
+            int index = Arrays.binarySearch(itemIds, dto.getId());
+            filled[i] = dto.withComments(comments.subList(commentBounds[index], commentBounds[index + 1]))
+                    .withCommentsCount(counts[index]);
+        }
+        return Arrays.asList(filled);
+    }
+}
@@ -1,13 +1,16 @@
 package ru.practicum.shareit.item.service;
 
 import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.dto.TimeWindowDto;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CreateCommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.pagination.KeysetPage;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface ItemService {
     ItemDto create(Long userId, ItemDto itemDto);
@@ -20,7 +23,17 @@ public interface ItemService {
 
     ItemDto getById(Long userId, Long itemId, LocalDateTime currentTime);
 
-    List<ItemDto> getAllByUser(Long userId, LocalDateTime currentTime, Pageable pageable);
+    // Вещь в представлении для пользователя вместе с её ETag, NotFoundException, если вещи нет
+    TaggedItem getTaggedById(Long userId, Long itemId, LocalDateTime currentTime);
+
+    List<ItemDto> getAllByUser(Long userId, Long afterId, LocalDateTime currentTime, Pageable pageable);
+
+    // Выгрузка всех вещей владельца без бронирований и комментариев, строки передаются потребителю по мере чтения
+    void exportByOwner(Long userId, Consumer<? super ItemDto> consumer);
+
+    List<TimeWindowDto> getAvailability(Long userId, Long itemId, LocalDateTime from, LocalDateTime to);
 
     List<ItemDto> search(Long userId, String text, Pageable pageable);
+
+    KeysetPage<CommentDto> getComments(Long userId, Long itemId, String cursor, int size);
 }
@@ -2,34 +2,50 @@ package ru.practicum.shareit.item.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.ReflectionUtils;
-import ru.practicum.shareit.booking.dto.BookingItemDto;
+import ru.practicum.shareit.booking.dto.TimeWindowDto;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.booking.summary.BookingSlot;
+import ru.practicum.shareit.booking.summary.ItemBookingSummary;
+import ru.practicum.shareit.booking.summary.ItemBookingTimeline;
+import ru.practicum.shareit.etag.EntityTag;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NoAccessException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.cache.ItemView;
+import ru.practicum.shareit.item.cache.ItemViewCache;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CreateCommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.mapper.ItemPatcher;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
 import ru.practicum.shareit.item.storage.CommentStorage;
+import ru.practicum.shareit.item.storage.ItemRow;
 import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.pagination.KeysetCursor;
+import ru.practicum.shareit.pagination.KeysetPage;
 import ru.practicum.shareit.request.storage.ItemRequestStorage;
-import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserStorage;
 
-import java.lang.reflect.Field;
 import java.time.LocalDateTime;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -41,7 +57,12 @@ public class ItemServiceImpl implements ItemService {
     private final UserStorage userStorage;
     private final BookingStorage bookingStorage;
     private final ItemRequestStorage requestStorage;
+    private final ItemSearchEngine searchEngine;
+    private final ItemBookingSummary bookingSummary;
+    private final ItemViewCache itemCache;
+    private final ItemCommentPreviews commentPreviews;
     private final ItemMapper mapper;
+    private final ItemPatcher patcher;
     private final CommentMapper commentMapper;
     private final BookingMapper bookingMapper;
 
@@ -57,57 +78,32 @@ public class ItemServiceImpl implements ItemService {
 
     @Transactional(readOnly = true)
     private ItemDto getItemDtoWithBookings(Item item, LocalDateTime currentTime) {
-        List<Booking> bookings = bookingStorage.findLastAndNextForItem(item.getId(), currentTime);
-        if (bookings.isEmpty()) {
-            return mapper.toDto(item);
-        }
-        BookingItemDto lastBooking = null;
-        BookingItemDto nextBooking = null;
-        for (Booking booking : bookings) {
-            if ((booking.getEndDate().isBefore(currentTime)
-                    || (booking.getStartDate().isBefore(currentTime) && booking.getEndDate().isAfter(currentTime)))) {
-                lastBooking = bookingMapper.toItemDto(booking);
-            } else nextBooking = bookingMapper.toItemDto(booking);
-        }
-        return mapper.toDto(item, lastBooking, nextBooking);
+        ItemBookingTimeline timeline = bookingSummary.get(item.getId());
+        return mapper.toDto(item, bookingMapper.toItemDto(timeline.last(currentTime)),
+                bookingMapper.toItemDto(timeline.next(currentTime)));
     }
 
+    // Список вещей владельца собирается за фиксированное число запросов: шкалы бронирований и последние
+    // комментарии всех вещей страницы загружаются разом и раскладываются по позициям упорядоченного массива id
     @Transactional(readOnly = true)
     private List<ItemDto> getListItemDtoWithBookings(List<Item> items, LocalDateTime currentTime) {
         if (items.isEmpty()) return new ArrayList<>();
-        Set<Long> itemId = items.stream()
-                .map(Item::getId)
-                .collect(Collectors.toSet());
-
-        List<Booking> bookingList = bookingStorage.findLastAndNextForItem(itemId, currentTime);
-        if (bookingList.isEmpty()) {
-            return items.stream()
-                    .map(mapper::toDto)
-                    .collect(Collectors.toList());
+        int size = items.size();
+        Item[] sortedItems = items.toArray(new Item[size]);
+        Arrays.sort(sortedItems, Comparator.comparing(Item::getId));
+        long[] itemIds = new long[size];
+        for (int i = 0; i < size; i++) {
+            itemIds[i] = sortedItems[i].getId();
         }
-        Map<Long, List<Booking>> bookings = bookingList.stream()
-                .collect(Collectors.groupingBy(b -> b.getItem().getId()));
-        LinkedList<ItemDto> dtos = new LinkedList<>();
-        for (Item item : items) {
-            ItemDto dto;
-            List<Booking> itemBookings = bookings.get(item.getId());
-            BookingItemDto lastBooking = null;
-            BookingItemDto nextBooking = null;
-            if (itemBookings == null) {
-                dto = mapper.toDto(item);
-            } else {
-                for (Booking booking : itemBookings) {
-                    if ((booking.getEndDate().isBefore(currentTime)
-                            || (booking.getStartDate().isBefore(currentTime)
-                            && booking.getEndDate().isAfter(currentTime)))) {
-                        lastBooking = bookingMapper.toItemDto(booking);
-                    } else nextBooking = bookingMapper.toItemDto(booking);
-                }
-                dto = mapper.toDto(item, lastBooking, nextBooking);
-            }
-            dtos.add(dto);
+
+        ItemBookingTimeline[] timelines = bookingSummary.getAll(itemIds);
+        ItemDto[] dtos = new ItemDto[size];
+        for (int i = 0; i < size; i++) {
+            dtos[i] = mapper.toDto(sortedItems[i],
+                    bookingMapper.toItemDto(timelines[i].last(currentTime)),
+                    bookingMapper.toItemDto(timelines[i].next(currentTime)));
         }
-        return dtos;
+        return commentPreviews.fill(Arrays.asList(dtos));
     }
 
     @Override
@@ -124,7 +120,7 @@ public class ItemServiceImpl implements ItemService {
             }
         }
         Item item = mapper.toItem(userId, itemDto);
-        return mapper.toDto(itemStorage.save(item));
+        return mapper.toDto(itemStorage.save(item)).withCommentsCount(0L);
     }
 
     @Override
@@ -144,7 +140,9 @@ public class ItemServiceImpl implements ItemService {
                 bookings.get(0).getBooker(),
                 createdTime,
                 commentRequestDto);
-        return commentMapper.toDto(commentStorage.save(comment));
+        CommentDto saved = commentMapper.toDto(commentStorage.save(comment));
+        itemCache.onItemChanged(itemId);
+        return saved;
     }
 
     @Override
@@ -156,12 +154,9 @@ public class ItemServiceImpl implements ItemService {
             return new NoAccessException("You haven't access to update this item.");
         });
 
-        fields.forEach((k, v) -> {
-            Field field = ReflectionUtils.findField(Item.class, k);
-            field.setAccessible(true);
-            ReflectionUtils.setField(field, item, v);
-        });
-        return getItemDtoWithBookings(itemStorage.save(item), currentTime);
+        patcher.patch(item, fields);
+        itemCache.onItemChanged(itemId);
+        return commentPreviews.fill(getItemDtoWithBookings(itemStorage.save(item), currentTime));
     }
 
     @Override
@@ -173,6 +168,8 @@ public class ItemServiceImpl implements ItemService {
             Item item = optionalItem.get();
             if (item.getOwnerId().equals(userId)) {
                 itemStorage.deleteById(itemId);
+                bookingSummary.onItemRemoved(itemId);
+                itemCache.onItemChanged(itemId);
             } else {
                 log.error("NoAccess. Запрос пользователя с id {} на удаление предмета с id {}.", userId, itemId);
                 throw new NoAccessException("You haven't access to delete this item.");
@@ -184,37 +181,105 @@ public class ItemServiceImpl implements ItemService {
     @Transactional(readOnly = true)
     @Override
     public ItemDto getById(Long userId, Long itemId, LocalDateTime currentTime) {
+        return getTaggedById(userId, itemId, currentTime).getItem();
+    }
+
+    // Тег и тело ответа строятся по одному представлению из кэша, так что тег всегда описывает отданное тело
+    @Transactional(readOnly = true)
+    @Override
+    public TaggedItem getTaggedById(Long userId, Long itemId, LocalDateTime currentTime) {
         log.info("Запрос пользователя с id {} на получение предмета с id {}.", userId, itemId);
 
-        Item item = itemStorage.findById(itemId).orElseThrow(() -> {
-            log.error("NotFound. Запрос получить несуществующий предмет с id {}.", itemId);
-            return new NotFoundException(
-                    String.format("Item with id %d is not exist.", itemId)
-            );
+        ItemView view = getView(itemId);
+        if (!view.getOwnerId().equals(userId)) {
+            return new TaggedItem(EntityTag.of(view.getVersion(), view.getLastCommentId(), view.getAuthorsVersion()),
+                    view.getOwnerId(), view.getItem());
+        }
+        // Владельцу отдаются последнее и следующее бронирования, они тоже входят в тег
+        ItemBookingTimeline timeline = bookingSummary.get(itemId);
+        BookingSlot last = timeline.last(currentTime);
+        BookingSlot next = timeline.next(currentTime);
+        return new TaggedItem(EntityTag.of(view.getVersion(), view.getLastCommentId(), view.getAuthorsVersion(),
+                slotTag(last), slotTag(next)),
+                view.getOwnerId(),
+                view.getItem()
+                        .withLastBooking(bookingMapper.toItemDto(last))
+                        .withNextBooking(bookingMapper.toItemDto(next)));
+    }
+
+    // База читается только при отсутствии представления в кэше
+    private ItemView getView(Long itemId) {
+        return itemCache.get(itemId, () -> {
+            Item item = itemStorage.findById(itemId).orElseThrow(() -> {
+                log.error("NotFound. Запрос получить несуществующий предмет с id {}.", itemId);
+                return new NotFoundException(
+                        String.format("Item with id %d is not exist.", itemId)
+                );
+            });
+            ItemDto dto = commentPreviews.fill(mapper.toDto(item));
+            // Превью комментариев - отрезок общего списка, для кэша оно копируется в сериализуемый список
+            List<CommentDto> comments = List.copyOf(dto.getComments());
+            List<Long> commentIds = comments.stream()
+                    .map(CommentDto::getId)
+                    .collect(Collectors.toList());
+            Long lastCommentId = commentIds.stream().max(Long::compare).orElse(null);
+            Long authorsVersion = commentIds.isEmpty() ? null : commentStorage.sumAuthorVersionsByIdIn(commentIds);
+            return new ItemView(item.getOwnerId(), item.getVersion(), lastCommentId, authorsVersion,
+                    dto.withComments(comments));
         });
-        if (item.getOwnerId().equals(userId)) {
-            return getItemDtoWithBookings(item, currentTime);
-        } else return mapper.toDto(item);
+    }
+
+    private static String slotTag(BookingSlot slot) {
+        return slot == null ? null : slot.getId() + "." + slot.getStatus();
     }
 
     @Transactional(readOnly = true)
     @Override
-    public List<ItemDto> getAllByUser(Long userId, LocalDateTime currentTime, Pageable pageable) {
+    public List<ItemDto> getAllByUser(Long userId, Long afterId, LocalDateTime currentTime, Pageable pageable) {
         log.info("Запрос получить список вещей от пользователя с id {}", userId);
 
-        User user = userStorage.findById(userId).orElseThrow(() -> {
-            log.error("NotFound. Запрос на получение списка предметов от несуществующего пользователя с id {}.", userId);
+        checkUserId(userId);
+        List<Item> items;
+        if (afterId == null) {
+            items = itemStorage.findByOwnerIdOrderById(userId, pageable);
+        } else {
+            items = itemStorage.findByOwnerIdAndIdGreaterThanOrderById(userId, afterId,
+                    PageRequest.of(0, pageable.getPageSize()));
+        }
+        return getListItemDtoWithBookings(items, currentTime);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void exportByOwner(Long userId, Consumer<? super ItemDto> consumer) {
+        log.info("Запрос на выгрузку всех вещей от пользователя с id {}", userId);
+
+        checkUserId(userId);
+        try (Stream<ItemRow> items = itemStorage.streamByOwnerId(userId)) {
+            items.map(mapper::toDto).forEach(consumer);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<TimeWindowDto> getAvailability(Long userId, Long itemId, LocalDateTime from, LocalDateTime to) {
+        log.info("Запрос пользователя с id {} на свободное время предмета с id {}.", userId, itemId);
+
+        checkUserId(userId);
+        if (!from.isBefore(to)) {
+            log.error("BadRequest. Запрос свободного времени предмета с id {} с началом не раньше окончания.", itemId);
+            throw new BadRequestException("The start of the period must be before the end.");
+        }
+        Item item = itemStorage.findById(itemId).orElseThrow(() -> {
+            log.error("NotFound. Запрос свободного времени несуществующего предмета с id {}.", itemId);
             return new NotFoundException(
-                    String.format("User with id %d is not exist.", userId)
+                    String.format("Item with id %d is not exist.", itemId)
             );
         });
-
-        int from = Math.toIntExact(pageable.getOffset());
-        int size = Math.min((from + pageable.getPageSize()), user.getItems().size());
-
-        List<Item> items = user.getItems().subList(from, size);
-        items.sort(Comparator.comparing(Item::getId));
-        return getListItemDtoWithBookings(items, currentTime);
+        if (!item.getAvailable()) {
+            return new ArrayList<>();
+        }
+        return bookingSummary.get(itemId).freeWindows(from, to);
     }
 
     @Transactional(readOnly = true)
@@ -223,8 +288,32 @@ public class ItemServiceImpl implements ItemService {
         log.info("Запрос на поиск вещей от пользователя с id {}", userId);
 
         checkUserId(userId);
-        return itemStorage.search(text, pageable).stream()
+        return commentPreviews.fill(searchEngine.search(text, pageable).stream()
                 .map(mapper::toDto)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public KeysetPage<CommentDto> getComments(Long userId, Long itemId, String cursor, int size) {
+        log.info("Запрос пользователя с id {} на комментарии предмета с id {}.", userId, itemId);
+
+        checkUserId(userId);
+        if (!itemStorage.existsById(itemId)) {
+            log.error("NotFound. Запрос комментариев несуществующего предмета с id {}.", itemId);
+            throw new NotFoundException(
+                    String.format("Item with id %d is not exist.", itemId)
+            );
+        }
+        Pageable pageable = PageRequest.of(0, size + 1);
+        List<Comment> comments;
+        if (cursor == null) {
+            comments = commentStorage.findPageByItemId(itemId, pageable);
+        } else {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            comments = commentStorage.findPageByItemIdBefore(itemId, position.getTime(), position.getId(), pageable);
+        }
+        return KeysetPage.of(comments, size, comment -> new KeysetCursor(comment.getCreated(), comment.getId()))
+                .map(commentMapper::toDto);
     }
 }
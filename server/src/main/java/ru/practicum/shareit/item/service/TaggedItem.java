@@ -0,0 +1,15 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.Value;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+/**
+ * Вещь в представлении для пользователя вместе с ETag, построенным по тому же представлению,
+ * и id владельца, по которому выбирается вид представления.
+ */
+@Value
+public class TaggedItem {
+    String tag;
+    Long ownerId;
+    ItemDto item;
+}
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.item.storage;
+
+/**
+ * Строка выборки последних комментариев: id комментария, его вещь и общее число комментариев вещи.
+ */
+public interface CommentPreviewRow {
+    Long getId();
+
+    Long getItemId();
+
+    Long getTotal();
+}
@@ -1,7 +1,56 @@
 package ru.practicum.shareit.item.storage;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.model.Comment;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 public interface CommentStorage extends JpaRepository<Comment, Long> {
+
+    // Не более limit последних комментариев каждой вещи вместе с общим числом её комментариев
+    @Query(value = "select ranked.id, ranked.item_id as itemId, ranked.total " +
+            "from (select c.id, c.item_id, " +
+            "count(*) over (partition by c.item_id) as total, " +
+            "row_number() over (partition by c.item_id order by c.created_date desc, c.id desc) as comment_rank " +
+            "from comments c " +
+            "where c.item_id in (:itemIds)) ranked " +
+            "where ranked.comment_rank <= :limit", nativeQuery = true)
+    List<CommentPreviewRow> findPreviewRows(@Param("itemIds") Collection<Long> itemIds, @Param("limit") int limit);
+
+    @Query("select c " +
+            "from Comment c " +
+            "join fetch c.author " +
+            "where c.id in :ids " +
+            "order by c.itemId, c.created desc, c.id desc")
+    List<Comment> findWithAuthorByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Сумма версий авторов комментариев меняется при изменении имени любого из них
+    @Query("select coalesce(sum(u.version), 0) " +
+            "from Comment c " +
+            "join c.author u " +
+            "where c.id in :ids")
+    Long sumAuthorVersionsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select c " +
+            "from Comment c " +
+            "join fetch c.author " +
+            "where c.itemId = :itemId " +
+            "order by c.created desc, c.id desc")
+    List<Comment> findPageByItemId(@Param("itemId") Long itemId, Pageable pageable);
+
+    @Query("select c " +
+            "from Comment c " +
+            "join fetch c.author " +
+            "where c.itemId = :itemId " +
+            "and (c.created < :created or (c.created = :created and c.id < :id)) " +
+            "order by c.created desc, c.id desc")
+    List<Comment> findPageByItemIdBefore(@Param("itemId") Long itemId,
+                                         @Param("created") LocalDateTime created,
+                                         @Param("id") Long id,
+                                         Pageable pageable);
 }
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.item.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Поля вещи для ответов только на чтение, выбираются без загрузки сущности в контекст персистентности.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ItemRow {
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final Boolean available;
+    private final Long requestId;
+}
@@ -3,16 +3,47 @@ package ru.practicum.shareit.item.storage;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.storage.StreamingQueries;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface ItemStorage extends JpaRepository<Item, Long> {
+    String ITEM_ROW = "select new ru.practicum.shareit.item.storage.ItemRow(" +
+            "it.id, it.name, it.description, it.available, it.requestId) ";
+
+    // Текст ищется как подстрока: символы LIKE в нём экранируются обратной косой чертой, см. DatabaseItemSearchEngine
+    @Query(ITEM_ROW + "from Item it where it.available = true " +
+            "and (lower(it.name) like lower(concat('%', ?1,'%')) escape '\\' " +
+            "or lower(it.description) like lower(concat('%', ?1,'%')) escape '\\') " +
+            "order by it.id")
+    List<ItemRow> search(String text, Pageable pageable);
+
+    @Query(ITEM_ROW + "from Item it where it.id in :ids order by it.id")
+    List<ItemRow> findRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Вещи, созданные в ответ на запросы страницы, выбираются одним запросом
+    @Query(ITEM_ROW + "from Item it where it.requestId in :requestIds order by it.requestId, it.id")
+    List<ItemRow> findRowsByRequestIdIn(@Param("requestIds") Collection<Long> requestIds);
+
+    // Страница вещей владельца по смещению
+    List<Item> findByOwnerIdOrderById(Long ownerId, Pageable pageable);
+
+    // Страница вещей владельца после вещи с id afterId
+    List<Item> findByOwnerIdAndIdGreaterThanOrderById(Long ownerId, Long afterId, Pageable pageable);
 
-    @Query("select it from Item it where it.available = true and (lower(it.name) like lower(concat('%', ?1,'%')) " +
-            "or lower(it.description) like lower(concat('%', ?1,'%')))")
-    List<Item> search(String text, Pageable pageable);
+    // Выгрузка всех вещей владельца, строки читаются из курсора БД порциями
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = StreamingQueries.FETCH_SIZE))
+    @Query(ITEM_ROW + "from Item it where it.ownerId = :ownerId order by it.id")
+    Stream<ItemRow> streamByOwnerId(@Param("ownerId") Long ownerId);
 
     @Query(value = "SELECT * FROM Items it WHERE it.owner_id = ?1 and it.id = ?2", nativeQuery = true)
     Optional<Item> findItemByOwnerId(Long ownerId, Long itemId);
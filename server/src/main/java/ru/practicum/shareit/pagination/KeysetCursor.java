@@ -0,0 +1,35 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.Value;
+import ru.practicum.shareit.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Позиция в выборке, упорядоченной по времени и id. Клиенту отдаётся непрозрачной строкой,
+ * следующая страница начинается сразу после записи, из которой получен курсор.
+ */
+@Value
+public class KeysetCursor {
+    LocalDateTime time;
+    long id;
+
+    public String encode() {
+        String raw = time + "_" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('_');
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeException | IndexOutOfBoundsException e) {
+            throw new BadRequestException(String.format("Cursor '%s' is invalid.", cursor));
+        }
+    }
+}
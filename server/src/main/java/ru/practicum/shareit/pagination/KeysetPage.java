@@ -0,0 +1,31 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Страница выборки по курсору. Курсор следующей страницы отсутствует, если записей больше нет.
+ */
+@Value
+public class KeysetPage<T> {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    List<T> items;
+    String nextCursor;
+
+    // Строки запрашиваются с одной лишней записью: её наличие означает, что есть следующая страница
+    public static <T> KeysetPage<T> of(List<T> rows, int size, Function<T, KeysetCursor> cursorOf) {
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new KeysetPage<>(items, cursorOf.apply(items.get(size - 1)).encode());
+    }
+
+    public <R> KeysetPage<R> map(Function<T, R> mapper) {
+        return new KeysetPage<>(items.stream().map(mapper).collect(Collectors.toList()), nextCursor);
+    }
+}
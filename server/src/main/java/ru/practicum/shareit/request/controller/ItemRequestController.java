@@ -3,6 +3,8 @@ package ru.practicum.shareit.request.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.request.dto.CreateItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
@@ -26,19 +28,36 @@ public class ItemRequestController {
 
     @GetMapping("/{requestId}")
     public ItemRequestDto getById(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                  @PathVariable Long requestId) {
+                                  @PathVariable Long requestId,
+                                  WebRequest request) {
+        if (request.checkNotModified(itemRequestService.getTag(userId, requestId))) return null;
         return itemRequestService.getById(userId, requestId);
     }
 
+    // Без параметра size отдаются все запросы пользователя
     @GetMapping
-    public List<ItemRequestDto> getByOwner(@RequestHeader("X-Sharer-User-Id") Long userId) {
-        return itemRequestService.getByOwnerId(userId);
+    public List<ItemRequestDto> getByOwner(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                           @RequestParam(defaultValue = "0") int from,
+                                           @RequestParam(defaultValue = "10") int size) {
+        checkPage(from, size);
+        return itemRequestService.getByOwnerId(userId, from, size);
     }
 
     @GetMapping("/all")
     public List<ItemRequestDto> getAll(@RequestHeader("X-Sharer-User-Id") Long userId,
                                        @RequestParam int from,
                                        @RequestParam int size) {
+        checkPage(from, size);
         return itemRequestService.getAll(userId, from, size);
     }
+
+    // Размер и смещение страницы проверяет и шлюз, но к серверу можно обратиться напрямую
+    private static void checkPage(int from, int size) {
+        if (size <= 0) {
+            throw new BadRequestException("Parameter 'size' should be positive.");
+        }
+        if (from < 0) {
+            throw new BadRequestException("Parameter 'from' shouldn't be negative.");
+        }
+    }
 }
@@ -3,12 +3,14 @@ package ru.practicum.shareit.request.mapper;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.request.dto.CreateItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Mapper(uses = {ItemMapper.class}, componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
 public interface ItemRequestMapper {
@@ -16,6 +18,10 @@ public interface ItemRequestMapper {
     @Mapping(source = "itemRequest.items", target = "items", defaultExpression = "java(new ArrayList<>())")
     ItemRequestDto toDto(ItemRequest itemRequest);
 
+    @Mapping(source = "itemRequest.creationDate", target = "created")
+    @Mapping(source = "answers", target = "items")
+    ItemRequestDto toDto(ItemRequest itemRequest, List<ItemDto> answers);
+
     @Mapping(target = "id", expression = "java(null)")
     @Mapping(source = "ownerId", target = "ownerId")
     @Mapping(source = "creationDate", target = "creationDate")
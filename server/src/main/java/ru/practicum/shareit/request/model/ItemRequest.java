@@ -28,6 +28,8 @@ public class ItemRequest {
     private List<Item> items;
     @Column(name = "owner_id", nullable = false)
     private Long ownerId;
+    @Version
+    private Long version;
 
     @Override
     public boolean equals(Object o) {
@@ -12,7 +12,11 @@ public interface ItemRequestService {
 
     ItemRequestDto getById(Long userId, Long requestId);
 
-    List<ItemRequestDto> getByOwnerId(Long userId);
+    // ETag запроса или null, если нет запроса или пользователя
+    String getTag(Long userId, Long requestId);
+
+    // Запросы пользователя и вещи-ответы на них читаются только для страницы from / size
+    List<ItemRequestDto> getByOwnerId(Long userId, int from, int size);
 
     List<ItemRequestDto> getAll(Long userId, int from, int size);
 }
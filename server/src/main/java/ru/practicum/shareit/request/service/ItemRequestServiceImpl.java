@@ -7,17 +7,22 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.etag.EntityTag;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.storage.ItemRow;
+import ru.practicum.shareit.item.storage.ItemStorage;
 import ru.practicum.shareit.request.dto.CreateItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.ItemRequestStorage;
-import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserStorage;
 
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -27,7 +32,9 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ItemRequestServiceImpl implements ItemRequestService {
     private final ItemRequestMapper mapper;
+    private final ItemMapper itemMapper;
     private final ItemRequestStorage itemRequestStorage;
+    private final ItemStorage itemStorage;
     private final UserStorage userStorage;
 
     @Transactional(readOnly = true)
@@ -40,6 +47,30 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         }
     }
 
+    // Вещи-ответы всех запросов страницы выбираются одним запросом и раскладываются по запросам
+    // через отсортированный массив их id, без обхода ленивых коллекций и упаковки ключей
+    @Transactional(readOnly = true)
+    private List<ItemRequestDto> toDtos(List<ItemRequest> requests) {
+        if (requests.isEmpty()) return new ArrayList<>();
+        long[] requestIds = requests.stream()
+                .mapToLong(ItemRequest::getId)
+                .sorted()
+                .toArray();
+        List<List<ItemDto>> answers = new ArrayList<>(requestIds.length);
+        for (int i = 0; i < requestIds.length; i++) {
+            answers.add(new ArrayList<>());
+        }
+        List<Long> ids = Arrays.stream(requestIds).boxed().collect(Collectors.toList());
+        for (ItemRow row : itemStorage.findRowsByRequestIdIn(ids)) {
+            answers.get(Arrays.binarySearch(requestIds, row.getRequestId())).add(itemMapper.toDto(row));
+        }
+        List<ItemRequestDto> dtos = new ArrayList<>(requests.size());
+        for (ItemRequest request : requests) {
+            dtos.add(mapper.toDto(request, answers.get(Arrays.binarySearch(requestIds, request.getId()))));
+        }
+        return dtos;
+    }
+
     @Override
     public ItemRequestDto create(Long userId,
                                  LocalDateTime creationDate,
@@ -63,24 +94,26 @@ public class ItemRequestServiceImpl implements ItemRequestService {
                     String.format("ItemRequest with id %d is not exist.", requestId)
             );
         });
-        return mapper.toDto(request);
+        return toDtos(List.of(request)).get(0);
     }
 
     @Transactional(readOnly = true)
     @Override
-    public List<ItemRequestDto> getByOwnerId(Long userId) {
+    public String getTag(Long userId, Long requestId) {
+        if (!userStorage.existsById(userId)) return null;
+        return itemRequestStorage.findVersionRowById(requestId)
+                .map(row -> EntityTag.of(row.getVersion(), row.getItemsCount(), row.getItemsVersion()))
+                .orElse(null);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<ItemRequestDto> getByOwnerId(Long userId, int from, int size) {
         log.info("Получение запросов от пользователя с id {}", userId);
 
-        User owner = userStorage.findById(userId).orElseThrow(() -> {
-            log.error("NotFound. Запрос получить несуществующего пользователя с id {}.", userId);
-            return new NotFoundException(
-                    String.format("User with id %d is not exist.", userId)
-            );
-        });
-        return owner.getRequests().stream()
-                .sorted(Comparator.comparing(ItemRequest::getCreationDate, Comparator.reverseOrder()))
-                .map(mapper::toDto)
-                .collect(Collectors.toList());
+        checkUser(userId);
+        Pageable pageable = PageRequest.of(from / size, size);
+        return toDtos(itemRequestStorage.findByOwnerIdOrderByCreationDateDescIdDesc(userId, pageable));
     }
 
     @Transactional(readOnly = true)
@@ -91,8 +124,6 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         checkUser(userId);
         int page = from / size;
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "creationDate"));
-        return itemRequestStorage.findByOwnerIdNot(userId, pageable).stream()
-                .map(mapper::toDto)
-                .collect(Collectors.toList());
+        return toDtos(itemRequestStorage.findByOwnerIdNot(userId, pageable));
     }
 }
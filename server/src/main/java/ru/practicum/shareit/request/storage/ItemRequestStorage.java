@@ -2,10 +2,24 @@ package ru.practicum.shareit.request.storage;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.request.model.ItemRequest;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemRequestStorage extends JpaRepository<ItemRequest, Long> {
     List<ItemRequest> findByOwnerIdNot(Long ownerId, Pageable pageable);
+
+    // Запросы пользователя от новых к старым, страница выбирается по индексу (owner_id, creation_date)
+    List<ItemRequest> findByOwnerIdOrderByCreationDateDescIdDesc(Long ownerId, Pageable pageable);
+
+    // Версии для ETag запроса: сам запрос и вещи, созданные в ответ на него
+    @Query("select new ru.practicum.shareit.request.storage.ItemRequestVersionRow(" +
+            "r.version, count(it.id), coalesce(sum(it.version), 0L)) " +
+            "from ItemRequest r left join Item it on it.requestId = r.id " +
+            "where r.id = :requestId " +
+            "group by r.id, r.version")
+    Optional<ItemRequestVersionRow> findVersionRowById(@Param("requestId") Long requestId);
 }
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.request.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Версия запроса и состояние вещей, созданных в ответ на него, для ETag.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ItemRequestVersionRow {
+    private final Long version;
+    private final Long itemsCount;
+    private final Long itemsVersion;
+}
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.storage;
+
+/**
+ * Общие настройки запросов хранилищ, которые отдают строки потоком из курсора БД.
+ */
+public final class StreamingQueries {
+    // Число строк, которое драйвер забирает из курсора БД за одно обращение
+    public static final String FETCH_SIZE = "500";
+
+    private StreamingQueries() {
+    }
+}
@@ -1,13 +1,12 @@
 package ru.practicum.shareit.user.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.util.ReflectionUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserService;
 
-import java.lang.reflect.Field;
 import java.util.List;
 import java.util.Map;
 
@@ -26,13 +25,7 @@ public class UserController {
     @PatchMapping("/{id}")
     public UserDto updateUser(@PathVariable Long id,
                               @RequestBody Map<String, Object> fields) {
-        UserDto userDto = userService.getById(id);
-        fields.forEach((k, v) -> {
-            Field field = ReflectionUtils.findField(UserDto.class, k);
-            field.setAccessible(true);
-            ReflectionUtils.setField(field, userDto, v);
-        });
-        return userService.save(userDto);
+        return userService.update(id, fields);
     }
 
     @GetMapping
@@ -41,7 +34,8 @@ public class UserController {
     }
 
     @GetMapping("/{id}")
-    public UserDto getUserById(@PathVariable Long id) {
+    public UserDto getUserById(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(userService.getTag(id))) return null;
         return userService.getById(id);
     }
 
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.user.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Value;
 import lombok.With;
@@ -7,6 +8,7 @@ import lombok.With;
 @With
 @Value
 @Builder
+@AllArgsConstructor
 public class UserDto {
     Long id;
     String name;
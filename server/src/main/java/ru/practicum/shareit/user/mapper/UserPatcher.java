@@ -0,0 +1,40 @@
+package ru.practicum.shareit.user.mapper;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.Map;
+
+/**
+ * Применяет PATCH-запрос к пользователю. Изменять можно только имя и адрес почты.
+ */
+@Slf4j
+@Component
+public class UserPatcher {
+
+    public void patch(User user, Map<String, Object> fields) {
+        fields.forEach((field, value) -> {
+            switch (field) {
+                case "name":
+                    user.setName(asString(field, value));
+                    break;
+                case "email":
+                    user.setEmail(asString(field, value));
+                    break;
+                default:
+                    log.error("BadRequest. Запрос изменить недоступное поле {} пользователя с id {}.",
+                            field, user.getId());
+                    throw new BadRequestException(String.format("Field '%s' of user cannot be updated.", field));
+            }
+        });
+    }
+
+    private static String asString(String field, Object value) {
+        if (!(value instanceof String)) {
+            throw new BadRequestException(String.format("Field '%s' should be of type String.", field));
+        }
+        return (String) value;
+    }
+}
@@ -31,6 +31,8 @@ public class User {
     @Email(message = "Email must be in email address format.")
     @NotBlank(message = "Email shouldn't be empty.")
     private String email;
+    @Version
+    private Long version;
     @OneToMany(mappedBy = "ownerId")
     private List<Item> items;
     @OneToMany(mappedBy = "ownerId")
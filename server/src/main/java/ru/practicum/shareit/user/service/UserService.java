@@ -3,13 +3,19 @@ package ru.practicum.shareit.user.service;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.util.List;
+import java.util.Map;
 
 public interface UserService {
     UserDto save(UserDto userDto);
 
+    UserDto update(Long id, Map<String, Object> fields);
+
     Long delete(Long id);
 
     UserDto getById(Long id);
 
+    // ETag пользователя или null, если его нет
+    String getTag(Long id);
+
     List<UserDto> getAll();
 }
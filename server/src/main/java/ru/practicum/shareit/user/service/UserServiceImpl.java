@@ -5,15 +5,19 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.summary.ItemBookingSummary;
+import ru.practicum.shareit.etag.EntityTag;
 import ru.practicum.shareit.exception.DuplicateException;
+import ru.practicum.shareit.item.cache.ItemViewCache;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
+import ru.practicum.shareit.user.mapper.UserPatcher;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserStorage;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Slf4j
 @Service
@@ -22,13 +26,19 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService {
     private final UserStorage userStorage;
     private final UserMapper mapper;
+    private final UserPatcher patcher;
+    private final ItemBookingSummary bookingSummary;
+    private final ItemViewCache itemCache;
 
     @Override
     public UserDto save(UserDto userDto) {
         log.info("Запрос создать или обновить пользователя.");
 
         try {
-            User user = userStorage.save(mapper.toUser(userDto));
+            User user = userDto.getId() == null ? userStorage.save(mapper.toUser(userDto)) : replace(userDto);
+            if (userDto.getId() != null) {
+                itemCache.onUserChanged(userDto.getId());
+            }
             return mapper.toDto(user);
         } catch (DataIntegrityViolationException e) {
             log.error("Duplicate. Запрос создать или обновить пользователя с используемым другим "
@@ -37,11 +47,48 @@ public class UserServiceImpl implements UserService {
         }
     }
 
+    // Пользователь с id заменяется целиком, версия берётся из базы
+    private User replace(UserDto userDto) {
+        User user = userStorage.findById(userDto.getId()).orElseThrow(() -> {
+            log.error("NotFound. Запрос заменить несуществующего пользователя с id {}.", userDto.getId());
+            return new NotFoundException(
+                    String.format("User with id %d is not exist.", userDto.getId())
+            );
+        });
+        user.setName(userDto.getName());
+        user.setEmail(userDto.getEmail());
+        return userStorage.saveAndFlush(user);
+    }
+
+    @Override
+    public UserDto update(Long id, Map<String, Object> fields) {
+        log.info("Запрос обновить пользователя с id {}", id);
+
+        User user = userStorage.findById(id).orElseThrow(() -> {
+            log.error("NotFound. Запрос обновить несуществующего пользователя с id {}.", id);
+            return new NotFoundException(
+                    String.format("User with id %d is not exist.", id)
+            );
+        });
+        patcher.patch(user, fields);
+        try {
+            UserDto updated = mapper.toDto(userStorage.saveAndFlush(user));
+            itemCache.onUserChanged(id);
+            return updated;
+        } catch (DataIntegrityViolationException e) {
+            log.error("Duplicate. Запрос обновить пользователя с id {} на используемый другим "
+                    + "пользователем адрес эл. почты {}", id, user.getEmail());
+            throw new DuplicateException("This email is already in use.");
+        }
+    }
+
     @Override
     public Long delete(Long id) {
         log.info("Запрос удалить пользователя с id {}", id);
 
         userStorage.deleteById(id);
+        bookingSummary.onUserRemoved(id);
+        itemCache.onUserChanged(id);
         return id;
     }
 
@@ -59,12 +106,18 @@ public class UserServiceImpl implements UserService {
         return mapper.toDto(user);
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public String getTag(Long id) {
+        return userStorage.findVersionById(id)
+                .map(EntityTag::of)
+                .orElse(null);
+    }
+
     @Transactional(readOnly = true)
     @Override
     public List<UserDto> getAll() {
         log.info("Запрос получить список пользователей");
-        return userStorage.findAll().stream()
-                .map(mapper::toDto)
-                .collect(Collectors.toList());
+        return userStorage.findAllDtos();
     }
 }
@@ -0,0 +1,49 @@
+CREATE TABLE users (
+    id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    name VARCHAR(200) NOT NULL,
+    email VARCHAR(200) NOT NULL,
+    CONSTRAINT UQ_USER_EMAIL UNIQUE (email)
+);
+
+CREATE TABLE item_requests (
+    id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    description VARCHAR(300) NOT NULL,
+    creation_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    owner_id BIGINT REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE TABLE items (
+    id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    name VARCHAR(60) NOT NULL,
+    description VARCHAR(200) NOT NULL,
+    available boolean NOT NULL,
+    owner_id BIGINT REFERENCES users (id) ON DELETE CASCADE,
+    request_id BIGINT REFERENCES item_requests (id) ON DELETE CASCADE,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE bookings (
+    id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    item_id BIGINT REFERENCES items (id) ON DELETE CASCADE,
+    booker_id BIGINT REFERENCES users (id) ON DELETE CASCADE,
+    item_owner_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    status VARCHAR(10) NOT NULL CHECK (status IN ('WAITING', 'APPROVED', 'REJECTED', 'CANCELED')),
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE comments (
+    id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    text VARCHAR(1000),
+    item_id BIGINT REFERENCES items (id) ON DELETE CASCADE,
+    author_id BIGINT REFERENCES users (id) ON DELETE CASCADE,
+    created_date TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+
+CREATE INDEX comments_item_created_idx ON comments (item_id, created_date);
+
+CREATE INDEX bookings_booker_start_idx ON bookings (booker_id, start_date DESC, id DESC);
+CREATE INDEX bookings_owner_status_start_idx ON bookings (item_owner_id, status, start_date);
+CREATE INDEX bookings_owner_end_idx ON bookings (item_owner_id, end_date);
+CREATE INDEX bookings_owner_start_idx ON bookings (item_owner_id, start_date DESC, id DESC);
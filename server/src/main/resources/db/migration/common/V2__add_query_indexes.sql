@@ -0,0 +1,6 @@
+CREATE INDEX bookings_item_start_idx ON bookings (item_id, start_date);
+CREATE INDEX items_owner_idx ON items (owner_id, id);
+CREATE INDEX items_request_idx ON items (request_id);
+CREATE INDEX item_requests_owner_created_idx ON item_requests (owner_id, creation_date);
+CREATE INDEX item_requests_created_idx ON item_requests (creation_date DESC);
+CREATE INDEX comments_author_idx ON comments (author_id);
@@ -0,0 +1,2 @@
+ALTER TABLE users ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE item_requests ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,16 @@
+-- База, созданная прежним schema.sql, отмечается базовой версией 1 (spring.flyway.baseline-version),
+-- V1 к ней не применяется. Миграция доводит такую базу до схемы V1, в базе, созданной V1, она ничего не меняет.
+-- Внешний ключ item_owner_id не добавляется: бронирования удаляются вместе с вещами владельца.
+ALTER TABLE items ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS item_owner_id BIGINT;
+UPDATE bookings SET item_owner_id = (SELECT it.owner_id FROM items it WHERE it.id = bookings.item_id)
+    WHERE item_owner_id IS NULL;
+ALTER TABLE bookings ALTER COLUMN item_owner_id SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS comments_item_created_idx ON comments (item_id, created_date);
+CREATE INDEX IF NOT EXISTS bookings_booker_start_idx ON bookings (booker_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS bookings_owner_status_start_idx ON bookings (item_owner_id, status, start_date);
+CREATE INDEX IF NOT EXISTS bookings_owner_end_idx ON bookings (item_owner_id, end_date);
+CREATE INDEX IF NOT EXISTS bookings_owner_start_idx ON bookings (item_owner_id, start_date DESC, id DESC);
@@ -0,0 +1,2 @@
+-- Проекция бронирований читает по вещи только бронирования, закончившиеся не раньше заданного момента
+CREATE INDEX bookings_item_end_idx ON bookings (item_id, end_date);
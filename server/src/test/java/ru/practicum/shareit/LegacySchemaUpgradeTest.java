@@ -0,0 +1,82 @@
+package ru.practicum.shareit;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LegacySchemaUpgradeTest {
+    private JdbcDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void beforeEach() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:legacy-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    // Миграции запускаются с настройками Flyway из application.properties
+    private Flyway flyway() throws Exception {
+        final Properties properties = PropertiesLoaderUtils.loadProperties(
+                new ClassPathResource("application.properties"));
+        final String[] locations = Arrays.stream(properties.getProperty("spring.flyway.locations").split(","))
+                .map(location -> location.replace("{vendor}", "h2"))
+                .toArray(String[]::new);
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations(locations)
+                .baselineOnMigrate(Boolean.parseBoolean(properties.getProperty("spring.flyway.baseline-on-migrate")))
+                .baselineVersion(properties.getProperty("spring.flyway.baseline-version"))
+                .load();
+    }
+
+    @DisplayName("База, созданная прежним schema.sql, доводится миграциями до текущей схемы с сохранением данных")
+    @Test
+    void shouldUpgradeSchemaCreatedBySchemaSql() throws Exception {
+        new ResourceDatabasePopulator(new ClassPathResource("db/legacy/schema.sql")).execute(dataSource);
+        jdbcTemplate.update("INSERT INTO users (name, email) VALUES ('owner', 'owner@email.ru')");
+        jdbcTemplate.update("INSERT INTO users (name, email) VALUES ('booker', 'booker@email.ru')");
+        jdbcTemplate.update("INSERT INTO items (name, description, available, owner_id) " +
+                "VALUES ('item', 'description', true, 1)");
+        jdbcTemplate.update("INSERT INTO bookings (start_date, end_date, item_id, booker_id, status) " +
+                "VALUES (TIMESTAMP '2030-01-01 10:00:00', TIMESTAMP '2030-01-02 10:00:00', 1, 2, 'APPROVED')");
+
+        final Flyway flyway = flyway();
+        flyway.migrate();
+
+        assertEquals(1L, jdbcTemplate.queryForObject("SELECT item_owner_id FROM bookings WHERE id = 1", Long.class));
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT version FROM bookings WHERE id = 1", Long.class));
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT version FROM items WHERE id = 1", Long.class));
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT version FROM users WHERE id = 1", Long.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM information_schema.indexes " +
+                "WHERE index_name = 'BOOKINGS_OWNER_START_IDX'", Integer.class));
+
+        final MigrationInfo[] applied = flyway.info().applied();
+        assertEquals("1", applied[0].getVersion().getVersion());
+        assertEquals(0, flyway.info().pending().length);
+    }
+
+    @DisplayName("Пустая база создаётся миграциями с V1")
+    @Test
+    void shouldCreateSchemaFromFirstMigration() throws Exception {
+        final Flyway flyway = flyway();
+        flyway.migrate();
+
+        assertFalse(flyway.info().applied()[0].getType().name().contains("BASELINE"));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM bookings", Integer.class));
+        assertEquals(0, flyway.info().pending().length);
+    }
+}
@@ -0,0 +1,145 @@
+package ru.practicum.shareit;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.item.storage.CommentStorage;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.request.storage.ItemRequestStorage;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверяет планы SQL, которые хранилища действительно отправляют в базу: запросы перехватываются
+ * в Hibernate при вызове методов хранилищ и передаются в EXPLAIN вместе с параметрами-заполнителями.
+ * Поиск вещей (ItemStorage.search) не проверяется: LIKE '%text%' в H2 читает таблицу целиком,
+ * в PostgreSQL его обслуживают триграммные индексы items_name_trgm_idx и items_description_trgm_idx.
+ */
+@SpringBootTest
+@Transactional
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class QueryPlanTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private static final List<Long> IDS = List.of(1L, 2L, 3L);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqlRecorder recorder;
+    private final BookingStorage bookingStorage;
+    private final ItemStorage itemStorage;
+    private final ItemRequestStorage requestStorage;
+    private final CommentStorage commentStorage;
+
+    @TestConfiguration
+    static class RecorderConfig {
+        @Bean
+        SqlRecorder sqlRecorder() {
+            return new SqlRecorder();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer sqlRecorderCustomizer(SqlRecorder recorder) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, recorder);
+        }
+    }
+
+    static class SqlRecorder implements StatementInspector {
+        private final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+
+        List<String> record(Runnable call) {
+            statements.clear();
+            call.run();
+            return List.copyOf(statements);
+        }
+    }
+
+    private Map<String, Runnable> queries() {
+        final PageRequest page = PageRequest.of(1, 10);
+        final Set<BookingStatus> rejected = Set.of(BookingStatus.REJECTED, BookingStatus.WAITING);
+        final Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("BookingStorage.findByBookerId", () -> bookingStorage.findByBookerId(1L, NOW, 10L, page));
+        queries.put("BookingStorage.findCurrentByBookerId",
+                () -> bookingStorage.findCurrentByBookerId(1L, NOW, NOW, 10L, page));
+        queries.put("BookingStorage.findFutureByBookerId",
+                () -> bookingStorage.findFutureByBookerId(1L, NOW, NOW, 10L, page));
+        queries.put("BookingStorage.findPastByBookerId",
+                () -> bookingStorage.findPastByBookerId(1L, NOW, rejected, NOW, 10L, page));
+        queries.put("BookingStorage.findByBookerIdAndStatus",
+                () -> bookingStorage.findByBookerIdAndStatus(1L, BookingStatus.WAITING, NOW, 10L, page));
+        queries.put("BookingStorage.findBookingToComment", () -> bookingStorage.findBookingToComment(1L, 1L, NOW));
+        queries.put("BookingStorage.findAllByOwner", () -> bookingStorage.findAllByOwner(1L, NOW, 10L, page));
+        queries.put("BookingStorage.streamByOwner", () -> bookingStorage.streamByOwner(1L).close());
+        queries.put("BookingStorage.findCurrentByOwner",
+                () -> bookingStorage.findCurrentByOwner(1L, NOW, NOW, 10L, page));
+        queries.put("BookingStorage.findFutureByOwner",
+                () -> bookingStorage.findFutureByOwner(1L, NOW, NOW, 10L, page));
+        queries.put("BookingStorage.findPastByOwner", () -> bookingStorage.findPastByOwner(1L, NOW, NOW, 10L, page));
+        queries.put("BookingStorage.findByOwnerByStatus",
+                () -> bookingStorage.findByOwnerByStatus(1L, BookingStatus.WAITING, NOW, 10L, page));
+        queries.put("BookingStorage.findLastAndNextForItem(Long)",
+                () -> bookingStorage.findLastAndNextForItem(1L, NOW));
+        queries.put("BookingStorage.findLastAndNextForItem(Collection)",
+                () -> bookingStorage.findLastAndNextForItem(IDS, NOW));
+        queries.put("BookingStorage.findVersionRowById", () -> bookingStorage.findVersionRowById(1L));
+        queries.put("BookingStorage.findItemIdById", () -> bookingStorage.findItemIdById(1L));
+        queries.put("BookingStorage.findItemIdsByIdIn", () -> bookingStorage.findItemIdsByIdIn(IDS));
+        queries.put("BookingStorage.findWithItemByIdIn", () -> bookingStorage.findWithItemByIdIn(IDS));
+        queries.put("BookingStorage.existsByItemIdAndStatusAndStartDateBeforeAndEndDateAfter",
+                () -> bookingStorage.existsByItemIdAndStatusAndStartDateBeforeAndEndDateAfter(1L,
+                        BookingStatus.APPROVED, NOW.plusDays(1), NOW));
+        queries.put("BookingStorage.findSlotsByItemIdIn", () -> bookingStorage.findSlotsByItemIdIn(IDS, NOW));
+        queries.put("ItemStorage.findRowsByIdIn", () -> itemStorage.findRowsByIdIn(IDS));
+        queries.put("ItemStorage.findRowsByRequestIdIn", () -> itemStorage.findRowsByRequestIdIn(IDS));
+        queries.put("ItemStorage.findByOwnerIdOrderById", () -> itemStorage.findByOwnerIdOrderById(1L, page));
+        queries.put("ItemStorage.findByOwnerIdAndIdGreaterThanOrderById",
+                () -> itemStorage.findByOwnerIdAndIdGreaterThanOrderById(1L, 10L, page));
+        queries.put("ItemStorage.streamByOwnerId", () -> itemStorage.streamByOwnerId(1L).close());
+        queries.put("ItemStorage.findItemByOwnerId", () -> itemStorage.findItemByOwnerId(1L, 2L));
+        queries.put("ItemRequestStorage.findByOwnerIdNot", () -> requestStorage.findByOwnerIdNot(1L,
+                PageRequest.of(1, 10, Sort.by(Sort.Direction.DESC, "creationDate"))));
+        queries.put("ItemRequestStorage.findByOwnerIdOrderByCreationDateDescIdDesc",
+                () -> requestStorage.findByOwnerIdOrderByCreationDateDescIdDesc(1L, page));
+        queries.put("ItemRequestStorage.findVersionRowById", () -> requestStorage.findVersionRowById(1L));
+        queries.put("CommentStorage.findPreviewRows", () -> commentStorage.findPreviewRows(IDS, 10));
+        queries.put("CommentStorage.findWithAuthorByIdIn", () -> commentStorage.findWithAuthorByIdIn(IDS));
+        queries.put("CommentStorage.findPageByItemId", () -> commentStorage.findPageByItemId(1L, page));
+        queries.put("CommentStorage.findPageByItemIdBefore",
+                () -> commentStorage.findPageByItemIdBefore(1L, NOW, 10L, page));
+        queries.put("CommentStorage.sumAuthorVersionsByIdIn", () -> commentStorage.sumAuthorVersionsByIdIn(IDS));
+        return queries;
+    }
+
+    @DisplayName("Запросы хранилищ не читают таблицы целиком")
+    @Test
+    public void shouldNotScanTables() {
+        queries().forEach((name, call) -> {
+            final List<String> statements = recorder.record(call);
+            assertFalse(statements.isEmpty(), name + " sent no SQL");
+            for (String sql : statements) {
+                final String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+                assertFalse(plan.contains("tableScan"), name + ": " + plan);
+            }
+        });
+    }
+}
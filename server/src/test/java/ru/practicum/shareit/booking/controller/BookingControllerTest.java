@@ -13,13 +13,18 @@ import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
 import ru.practicum.shareit.booking.dto.CreateBookingDto;
+import ru.practicum.shareit.booking.dto.UpdateBookingStatusDto;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.pagination.KeysetPage;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
@@ -69,6 +74,35 @@ class BookingControllerTest {
         return result.getResponse();
     }
 
+    @DisplayName("Обновить статусы нескольких бронирований")
+    @Test
+    void shouldUpdateStatuses() throws Exception {
+        bookingDto = createBookingDto().withStatus(BookingStatus.APPROVED);
+        final List<UpdateBookingStatusDto> updates = List.of(
+                UpdateBookingStatusDto.builder().bookingId(1L).approved(true).build(),
+                UpdateBookingStatusDto.builder().bookingId(2L).approved(false).build());
+        final List<BookingStatusResultDto> results = List.of(
+                BookingStatusResultDto.builder().bookingId(1L).status(200).booking(bookingDto).build(),
+                BookingStatusResultDto.builder().bookingId(2L).status(404)
+                        .errorMessage("Booking with id 2 is not exist.").build());
+        when(bookingService.updateStatuses(1L, updates))
+                .thenReturn(results);
+
+        response = mvc.perform(patch("/bookings/batch")
+                        .content(mapper.writeValueAsString(updates))
+                        .header("X-Sharer-User-Id", 1L)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+
+        assertEquals(200, response.getStatus());
+        assertEquals(mapper.writeValueAsString(results), response.getContentAsString());
+        verify(bookingService, times(1)).updateStatuses(1L, updates);
+        verifyNoMoreInteractions(bookingService);
+    }
+
     @DisplayName("Добавить бронирование")
     @Test
     void shouldCreateBooking() throws Exception {
@@ -159,6 +193,8 @@ class BookingControllerTest {
         assertEquals(200, response.getStatus());
         assertEquals(mapper.writeValueAsString(bookingDto), response.getContentAsString());
 
+        verify(bookingService, times(1))
+                .getTag(anyLong(), anyLong());
         verify(bookingService, times(1))
                 .findById(anyLong(), anyLong());
         verifyNoMoreInteractions(bookingService);
@@ -223,4 +259,69 @@ class BookingControllerTest {
                 .findAllByOwnerItems(anyLong(), anyString(), any(LocalDateTime.class), any(Pageable.class));
         verifyNoMoreInteractions(bookingService);
     }
-}
\ No newline at end of file
+
+    @DisplayName("Получить бронирования по курсору")
+    @Test
+    void shouldFindAllByBookerWithCursor() throws Exception {
+        bookingDto = createBookingDto();
+        when(bookingService.findAllByBooker(anyLong(), anyString(), any(LocalDateTime.class), eq("cursor"), eq(5)))
+                .thenReturn(new KeysetPage<>(List.of(bookingDto), "next"));
+
+        result = mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("state", "ALL")
+                        .param("size", "5")
+                        .param("cursor", "cursor")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn();
+        response = result.getResponse();
+
+        assertEquals(200, response.getStatus());
+        assertEquals("next", response.getHeader(KeysetPage.NEXT_CURSOR_HEADER));
+        assertEquals(mapper.writeValueAsString(List.of(bookingDto)), response.getContentAsString());
+
+        verify(bookingService, times(1))
+                .findAllByBooker(anyLong(), anyString(), any(LocalDateTime.class), eq("cursor"), eq(5));
+        verifyNoMoreInteractions(bookingService);
+    }
+
+    @DisplayName("Выгрузить бронирования владельца в NDJSON")
+    @Test
+    void shouldExportByOwner() throws Exception {
+        final BookingDto first = createBookingDto();
+        final BookingDto second = createBookingDto().withId(2L);
+        doAnswer(invocation -> {
+            Consumer<BookingDto> consumer = invocation.getArgument(1);
+            consumer.accept(first);
+            consumer.accept(second);
+            return null;
+        }).when(bookingService).exportByOwnerItems(eq(1L), any());
+
+        response = mvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", 1L))
+                .andReturn()
+                .getResponse();
+
+        assertEquals(200, response.getStatus());
+        assertEquals(MediaType.APPLICATION_NDJSON_VALUE, response.getContentType());
+        assertEquals(mapper.writeValueAsString(first) + "\n" + mapper.writeValueAsString(second) + "\n",
+                response.getContentAsString());
+        verify(bookingService, times(1)).exportByOwnerItems(eq(1L), any());
+        verifyNoMoreInteractions(bookingService);
+    }
+
+    @DisplayName("Ошибка выгрузки до первой строки возвращается как JSON")
+    @Test
+    void shouldReturnErrorWhenExportByUnknownOwner() throws Exception {
+        doThrow(new NotFoundException("User with id 1 is not exist."))
+                .when(bookingService).exportByOwnerItems(eq(1L), any());
+
+        response = mvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", 1L))
+                .andReturn()
+                .getResponse();
+
+        assertEquals(404, response.getStatus());
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, response.getContentType());
+    }
+}
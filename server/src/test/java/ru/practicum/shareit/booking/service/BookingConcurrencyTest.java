@@ -0,0 +1,203 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.CreateBookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.booking.summary.ItemBookingSummaryChecker;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserStorage;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class BookingConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int HOT_ITEMS = 4;
+    private static final int REQUESTS = 2000;
+
+    private final BookingService bookingService;
+    private final BookingStorage bookingStorage;
+    private final ItemStorage itemStorage;
+    private final UserStorage userStorage;
+    private final ItemBookingSummaryChecker checker;
+
+    private ExecutorService executor;
+    private User owner;
+    private List<User> bookers;
+    private List<Item> items;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void beforeEach() {
+        executor = Executors.newFixedThreadPool(THREADS);
+        owner = userStorage.save(User.builder()
+                .name("owner")
+                .email("owner@email.ru")
+                .build());
+        bookers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            bookers.add(userStorage.save(User.builder()
+                    .name("booker" + i)
+                    .email("booker" + i + "@email.ru")
+                    .build()));
+        }
+        items = new ArrayList<>();
+        for (int i = 0; i < HOT_ITEMS; i++) {
+            items.add(itemStorage.save(Item.builder()
+                    .name("item" + i)
+                    .description("description")
+                    .available(true)
+                    .ownerId(owner.getId())
+                    .build()));
+        }
+        start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+    }
+
+    @AfterEach
+    void afterEach() {
+        executor.shutdownNow();
+    }
+
+    private void runAll(List<Callable<Void>> tasks) throws Exception {
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+    }
+
+    @DisplayName("Параллельные бронирования и подтверждения горячих вещей не дают пересечений")
+    @Test
+    public void shouldNotApproveOverlappingBookingsUnderLoad() throws Exception {
+        final AtomicInteger approved = new AtomicInteger();
+        final AtomicInteger conflicts = new AtomicInteger();
+        final Random random = new Random(42);
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            final Long itemId = items.get(random.nextInt(HOT_ITEMS)).getId();
+            final Long bookerId = bookers.get(i % THREADS).getId();
+            final LocalDateTime bookingStart = start.plusHours(random.nextInt(200));
+            final CreateBookingDto creationDto = CreateBookingDto.builder()
+                    .itemId(itemId)
+                    .start(bookingStart)
+                    .end(bookingStart.plusHours(1 + random.nextInt(3)))
+                    .build();
+            tasks.add(() -> {
+                try {
+                    final BookingDto created = bookingService.create(bookerId, creationDto);
+                    bookingService.updateStatus(owner.getId(), created.getId(), true);
+                    approved.incrementAndGet();
+                } catch (BadRequestException e) {
+                    conflicts.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        final long startedAt = System.nanoTime();
+        runAll(tasks);
+        final double seconds = (System.nanoTime() - startedAt) / 1e9;
+        log.info("Бронирований с подтверждением: {}, в секунду: {}, доля конфликтов: {}",
+                REQUESTS, Math.round(REQUESTS / seconds), (double) conflicts.get() / REQUESTS);
+
+        assertEquals(REQUESTS, approved.get() + conflicts.get());
+        assertTrue(approved.get() > 0);
+        final Map<Long, List<Booking>> approvedByItem = bookingStorage.findAll().stream()
+                .filter(booking -> booking.getStatus() == BookingStatus.APPROVED)
+                .collect(Collectors.groupingBy(booking -> booking.getItem().getId()));
+        assertEquals(approved.get(), approvedByItem.values().stream().mapToInt(List::size).sum());
+        for (List<Booking> bookings : approvedByItem.values()) {
+            bookings.sort(Comparator.comparing(Booking::getStartDate));
+            for (int i = 1; i < bookings.size(); i++) {
+                assertFalse(bookings.get(i).getStartDate().isBefore(bookings.get(i - 1).getEndDate()));
+            }
+        }
+        assertTrue(checker.check(start).isEmpty());
+    }
+
+    @DisplayName("Одно бронирование подтверждается параллельно только один раз")
+    @Test
+    public void shouldApproveBookingOnce() throws Exception {
+        final BookingDto booking = bookingService.create(bookers.get(0).getId(), CreateBookingDto.builder()
+                .itemId(items.get(0).getId())
+                .start(start)
+                .end(start.plusHours(1))
+                .build());
+        final AtomicInteger approved = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS * 4; i++) {
+            tasks.add(() -> {
+                try {
+                    bookingService.updateStatus(owner.getId(), booking.getId(), true);
+                    approved.incrementAndGet();
+                } catch (BadRequestException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        runAll(tasks);
+
+        assertEquals(1, approved.get());
+        assertEquals(THREADS * 4 - 1, rejected.get());
+        assertEquals(1L, bookingStorage.findById(booking.getId()).orElseThrow().getVersion());
+    }
+
+    @DisplayName("Удаление бронирования параллельно с его подтверждением не приводит к ошибке сервера")
+    @Test
+    public void shouldDeleteBookingWhileApproving() throws Exception {
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        final List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < THREADS * 4; i++) {
+            final Long bookerId = bookers.get(i % THREADS).getId();
+            final BookingDto booking = bookingService.create(bookerId, CreateBookingDto.builder()
+                    .itemId(items.get(0).getId())
+                    .start(start.plusHours(i))
+                    .end(start.plusHours(i + 1))
+                    .build());
+            bookingIds.add(booking.getId());
+            tasks.add(() -> {
+                try {
+                    bookingService.updateStatus(owner.getId(), booking.getId(), true);
+                } catch (NotFoundException e) {
+                    // Бронирование уже удалено
+                }
+                return null;
+            });
+            tasks.add(() -> {
+                bookingService.delete(bookerId, booking.getId());
+                return null;
+            });
+        }
+
+        runAll(tasks);
+
+        assertTrue(bookingStorage.findAllById(bookingIds).isEmpty());
+        assertTrue(checker.check(start).isEmpty());
+    }
+}
@@ -1,6 +1,8 @@
 package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -11,21 +13,27 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.DirtiesContext;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
 import ru.practicum.shareit.booking.dto.CreateBookingDto;
+import ru.practicum.shareit.booking.dto.UpdateBookingStatusDto;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NoAccessException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.pagination.KeysetPage;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserStorage;
 
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -36,6 +44,7 @@ class BookingServiceImplTest {
     private final BookingService bookingService;
     private final ItemStorage itemStorage;
     private final UserStorage userStorage;
+    private final EntityManagerFactory entityManagerFactory;
 
     private CreateBookingDto creationDto;
     private BookingDto bookingDto;
@@ -137,8 +146,10 @@ class BookingServiceImplTest {
         assertNotNull(dtoApproved.getId());
         assertEquals(expectedApprovedDto, dtoApproved);
 
-        // Проверка с отклонением бронирования
-        final BookingDto secondBookingDto = bookingService.create(booker.getId(), creationDto);
+        // Проверка с отклонением бронирования: второе бронирование начинается сразу после первого
+        final BookingDto secondBookingDto = bookingService.create(booker.getId(), creationDto
+                .withStart(creationDto.getEnd())
+                .withEnd(creationDto.getEnd().plusMinutes(5)));
         assertNotNull(secondBookingDto);
 
         final BookingDto dtoRejected = bookingService.updateStatus(ownerItem.getId(),
@@ -186,7 +197,9 @@ class BookingServiceImplTest {
         assertTrue(changeStatusAfterAppMessage.contains(expectedChangeStatusAfterAppMessage));
 
         // Проверка статуса бронирования: повторно изменить статус бронирования
-        final BookingDto secondBookingDto = bookingService.create(booker.getId(), creationDto);
+        final BookingDto secondBookingDto = bookingService.create(booker.getId(), creationDto
+                .withStart(creationDto.getEnd())
+                .withEnd(creationDto.getEnd().plusMinutes(5)));
         assertNotNull(secondBookingDto);
         final BookingDto dtoRejected = bookingService.updateStatus(ownerItem.getId(),
                 secondBookingDto.getId(),
@@ -201,6 +214,128 @@ class BookingServiceImplTest {
         assertTrue(changeStatusAfterRejMessage.contains(expectedChangeStatusAfterRejMessage));
     }
 
+    @DisplayName("Исключения при бронировании занятого времени")
+    @Test
+    public void shouldThrowWhenBookingOverlapsApproved() {
+        bookingDto = bookingService.create(booker.getId(), creationDto);
+        final BookingDto competingDto = bookingService.create(booker.getId(), creationDto
+                .withStart(creationDto.getStart().plusMinutes(2))
+                .withEnd(creationDto.getEnd().plusMinutes(2)));
+        bookingService.updateStatus(ownerItem.getId(), bookingDto.getId(), true);
+
+        // Проверка создания бронирования, пересекающегося с подтверждённым
+        final String expectedMessage = String.format("Item with id %d is already booked for this time.",
+                item.getId());
+        final Exception createException = assertThrows(BadRequestException.class, () -> {
+            bookingService.create(booker.getId(), creationDto
+                    .withStart(creationDto.getStart().minusMinutes(2))
+                    .withEnd(creationDto.getStart().plusMinutes(1)));
+        });
+        assertTrue(createException.getMessage().contains(expectedMessage));
+
+        // Проверка подтверждения бронирования, ожидавшего одновременно с подтверждённым
+        final Exception approveException = assertThrows(BadRequestException.class, () -> {
+            bookingService.updateStatus(ownerItem.getId(), competingDto.getId(), true);
+        });
+        assertTrue(approveException.getMessage().contains(expectedMessage));
+
+        // Отклонить пересекающееся бронирование можно
+        assertEquals(BookingStatus.REJECTED,
+                bookingService.updateStatus(ownerItem.getId(), competingDto.getId(), false).getStatus());
+    }
+
+    @DisplayName("Обновить статусы нескольких бронирований одним запросом")
+    @Test
+    public void shouldUpdateStatusesInBatch() {
+        bookingDto = bookingService.create(booker.getId(), creationDto);
+        final BookingDto overlappingDto = bookingService.create(booker.getId(), creationDto
+                .withStart(creationDto.getStart().plusMinutes(1)));
+        final BookingDto laterDto = bookingService.create(booker.getId(), creationDto
+                .withStart(creationDto.getEnd())
+                .withEnd(creationDto.getEnd().plusMinutes(5)));
+        final Long itemVersion = itemStorage.findById(item.getId()).orElseThrow().getVersion();
+
+        final List<BookingStatusResultDto> results = bookingService.updateStatuses(ownerItem.getId(), List.of(
+                UpdateBookingStatusDto.builder().bookingId(bookingDto.getId()).approved(true).build(),
+                UpdateBookingStatusDto.builder().bookingId(overlappingDto.getId()).approved(true).build(),
+                UpdateBookingStatusDto.builder().bookingId(laterDto.getId()).approved(false).build(),
+                UpdateBookingStatusDto.builder().bookingId(laterDto.getId()).approved(true).build(),
+                UpdateBookingStatusDto.builder().bookingId(9999L).approved(true).build()));
+
+        assertEquals(List.of(bookingDto.getId(), overlappingDto.getId(), laterDto.getId(), laterDto.getId(), 9999L),
+                results.stream().map(BookingStatusResultDto::getBookingId).collect(Collectors.toList()));
+        assertEquals(List.of(200, 400, 200, 400, 404),
+                results.stream().map(BookingStatusResultDto::getStatus).collect(Collectors.toList()));
+        assertEquals(bookingDto.withStatus(BookingStatus.APPROVED), results.get(0).getBooking());
+        assertEquals(laterDto.withStatus(BookingStatus.REJECTED), results.get(2).getBooking());
+        assertNull(results.get(1).getBooking());
+        assertEquals(String.format("Item with id %d is already booked for this time.", item.getId()),
+                results.get(1).getErrorMessage());
+
+        assertEquals(BookingStatus.APPROVED, bookingService.findById(booker.getId(), bookingDto.getId()).getStatus());
+        assertEquals(BookingStatus.WAITING,
+                bookingService.findById(booker.getId(), overlappingDto.getId()).getStatus());
+        assertEquals(BookingStatus.REJECTED, bookingService.findById(booker.getId(), laterDto.getId()).getStatus());
+        assertEquals(itemVersion + 1, itemStorage.findById(item.getId()).orElseThrow().getVersion());
+
+        // Чужие бронирования владелец не видит
+        final List<BookingStatusResultDto> foreignResults = bookingService.updateStatuses(booker.getId(),
+                List.of(UpdateBookingStatusDto.builder().bookingId(overlappingDto.getId()).approved(false).build()));
+        assertEquals(404, foreignResults.get(0).getStatus());
+    }
+
+    @DisplayName("Отклонить элемент пакета без решения о бронировании")
+    @Test
+    public void shouldRejectBatchEntryWithoutApproved() {
+        bookingDto = bookingService.create(booker.getId(), creationDto);
+
+        final List<BookingStatusResultDto> results = bookingService.updateStatuses(ownerItem.getId(), List.of(
+                UpdateBookingStatusDto.builder().bookingId(bookingDto.getId()).build()));
+
+        assertEquals(400, results.get(0).getStatus());
+        assertEquals("Parameter 'approved' shouldn't be null.", results.get(0).getErrorMessage());
+        assertEquals(BookingStatus.WAITING, bookingService.findById(booker.getId(), bookingDto.getId()).getStatus());
+    }
+
+    @DisplayName("Исключение при пустом пакете изменений статуса")
+    @Test
+    public void shouldThrowWhenBatchIsEmpty() {
+        assertThrows(BadRequestException.class,
+                () -> bookingService.updateStatuses(ownerItem.getId(), List.of()));
+        assertThrows(BadRequestException.class,
+                () -> bookingService.updateStatuses(ownerItem.getId(), null));
+        assertThrows(BadRequestException.class,
+                () -> bookingService.updateStatuses(ownerItem.getId(), Collections.singletonList(null)));
+    }
+
+    @DisplayName("Изменения статусов пакета уходят в базу пакетами JDBC")
+    @Test
+    public void shouldFlushBatchStatusesInJdbcBatches() {
+        final List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            bookingIds.add(bookingService.create(booker.getId(), creationDto
+                    .withStart(creationDto.getStart().plusHours(i))
+                    .withEnd(creationDto.getEnd().plusHours(i))).getId());
+        }
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        statistics.clear();
+        bookingService.updateStatuses(ownerItem.getId(), bookingIds.subList(0, 2).stream()
+                .map(id -> UpdateBookingStatusDto.builder().bookingId(id).approved(false).build())
+                .collect(Collectors.toList()));
+        final long twoUpdatesStatements = statistics.getPrepareStatementCount();
+        assertEquals(2, statistics.getEntityUpdateCount());
+
+        // Без пакетов JDBC каждое изменение готовило бы собственный оператор UPDATE
+        statistics.clear();
+        bookingService.updateStatuses(ownerItem.getId(), bookingIds.subList(2, 6).stream()
+                .map(id -> UpdateBookingStatusDto.builder().bookingId(id).approved(false).build())
+                .collect(Collectors.toList()));
+        assertEquals(twoUpdatesStatements, statistics.getPrepareStatementCount());
+        assertEquals(4, statistics.getEntityUpdateCount());
+    }
+
     @DisplayName("Удалить бронирование")
     @Test
     public void shouldDeleteBooking() {
@@ -277,10 +412,18 @@ class BookingServiceImplTest {
     @DisplayName("Получить бронирования по id бронирующего")
     @Test
     public void findAllByBooker() {
+        // Второе бронирование пересекается с первым по времени, поэтому относится к другому предмету
+        final Item secondItem = itemStorage.save(Item.builder()
+                .name("second item")
+                .description("description")
+                .available(true)
+                .ownerId(ownerItem.getId())
+                .build());
         bookingDto = bookingService.create(booker.getId(), creationDto);
         final CreateBookingDto creationSecondDto = creationDto
                 .withStart(LocalDateTime.now().plusMinutes(11).truncatedTo(ChronoUnit.MICROS))
-                .withEnd(LocalDateTime.now().plusMinutes(16).truncatedTo(ChronoUnit.MICROS));
+                .withEnd(LocalDateTime.now().plusMinutes(16).truncatedTo(ChronoUnit.MICROS))
+                .withItemId(secondItem.getId());
         final BookingDto secondDto = bookingService.create(booker.getId(), creationSecondDto);
         assertNotNull(bookingDto);
         assertNotNull(secondDto);
@@ -661,4 +804,126 @@ class BookingServiceImplTest {
         final String wrongUserMessage = wrongUserException.getMessage();
         assertTrue(wrongUserMessage.contains(expectedWrongUserMessage));
     }
-}
\ No newline at end of file
+
+    @DisplayName("Получить бронирования по курсору")
+    @Test
+    public void shouldFindAllByCursor() {
+        // Бронирования попарно начинаются одновременно, порядок внутри пары задаёт id
+        final LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.MICROS);
+        final List<BookingDto> created = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            created.add(bookingService.create(booker.getId(), creationDto
+                    .withStart(start.plusHours(i / 2))
+                    .withEnd(start.plusHours(i / 2).plusMinutes(30))));
+        }
+        final List<Long> expectedIds = created.stream()
+                .sorted(Comparator.comparing(BookingDto::getStart).thenComparing(BookingDto::getId).reversed())
+                .map(BookingDto::getId)
+                .collect(Collectors.toList());
+        final LocalDateTime currentTime = LocalDateTime.now();
+
+        final List<Long> bookerIds = new ArrayList<>();
+        final List<Long> ownerIds = new ArrayList<>();
+        String bookerCursor = null;
+        String ownerCursor = null;
+        do {
+            KeysetPage<BookingDto> bookerPage = bookingService.findAllByBooker(booker.getId(), "FUTURE",
+                    currentTime, bookerCursor, 3);
+            KeysetPage<BookingDto> ownerPage = bookingService.findAllByOwnerItems(ownerItem.getId(), "ALL",
+                    currentTime, ownerCursor, 3);
+            bookerPage.getItems().forEach(dto -> bookerIds.add(dto.getId()));
+            ownerPage.getItems().forEach(dto -> ownerIds.add(dto.getId()));
+            bookerCursor = bookerPage.getNextCursor();
+            ownerCursor = ownerPage.getNextCursor();
+        } while (bookerCursor != null);
+
+        assertNull(ownerCursor);
+        assertEquals(expectedIds, bookerIds);
+        assertEquals(expectedIds, ownerIds);
+
+        // Режим совместимости со смещением возвращает тот же порядок
+        final List<Long> offsetIds = bookingService.findAllByBooker(booker.getId(), "ALL", currentTime,
+                        PageRequest.of(1, 3)).stream()
+                .map(BookingDto::getId)
+                .collect(Collectors.toList());
+        assertEquals(expectedIds.subList(3, 6), offsetIds);
+    }
+
+    @DisplayName("Страница бронирований читается постоянным числом запросов без загрузки сущностей")
+    @Test
+    public void shouldLoadBookingPageWithConstantStatements() {
+        // У каждого бронирования своя вещь и свой бронирующий, поэтому ленивая загрузка дала бы запрос на каждое
+        final LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.MICROS);
+        for (int i = 0; i < 4; i++) {
+            Item otherItem = itemStorage.save(Item.builder()
+                    .name("item" + i)
+                    .description("description" + i)
+                    .available(true)
+                    .ownerId(ownerItem.getId())
+                    .build());
+            User otherBooker = userStorage.save(User.builder()
+                    .name("booker" + i)
+                    .email("booker" + i + "@email.ru")
+                    .build());
+            bookingService.create(booker.getId(), creationDto
+                    .withItemId(otherItem.getId())
+                    .withStart(start.plusHours(i))
+                    .withEnd(start.plusHours(i).plusMinutes(30)));
+            bookingService.create(otherBooker.getId(), creationDto
+                    .withItemId(otherItem.getId())
+                    .withStart(start.plusDays(1).plusHours(i))
+                    .withEnd(start.plusDays(1).plusHours(i).plusMinutes(30)));
+        }
+        final LocalDateTime currentTime = LocalDateTime.now();
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        statistics.clear();
+        bookingService.findAllByBooker(booker.getId(), "ALL", currentTime, null, 1);
+        final long singleBookingStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        final KeysetPage<BookingDto> bookerPage = bookingService.findAllByBooker(booker.getId(), "ALL",
+                currentTime, null, 4);
+        assertEquals(singleBookingStatements, statistics.getPrepareStatementCount());
+        // Сущностью загружается только бронирующий при проверке его существования, строки списка — проекции
+        assertEquals(1, statistics.getEntityLoadCount());
+        assertEquals(List.of("item3", "item2", "item1", "item0"), bookerPage.getItems().stream()
+                .map(dto -> dto.getItem().getName())
+                .collect(Collectors.toList()));
+
+        statistics.clear();
+        final KeysetPage<BookingDto> ownerPage = bookingService.findAllByOwnerItems(ownerItem.getId(), "FUTURE",
+                currentTime, null, 8);
+        assertEquals(singleBookingStatements, statistics.getPrepareStatementCount());
+        assertEquals(5, ownerPage.getItems().stream()
+                .map(dto -> dto.getBooker().getId())
+                .distinct()
+                .count());
+
+        statistics.clear();
+        final List<BookingDto> offsetPage = bookingService.findAllByOwnerItems(ownerItem.getId(), "WAITING",
+                currentTime, PageRequest.of(0, 8));
+        assertEquals(singleBookingStatements, statistics.getPrepareStatementCount());
+        assertEquals(8, offsetPage.size());
+    }
+
+    @DisplayName("Выгрузить все бронирования владельца вещей")
+    @Test
+    public void shouldExportByOwnerItems() {
+        final LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.MICROS);
+        for (int i = 0; i < 5; i++) {
+            bookingService.create(booker.getId(), creationDto
+                    .withStart(start.plusHours(i))
+                    .withEnd(start.plusHours(i).plusMinutes(30)));
+        }
+        final List<BookingDto> expected = bookingService.findAllByOwnerItems(ownerItem.getId(), "ALL",
+                LocalDateTime.now(), null, 10).getItems();
+
+        final List<BookingDto> exported = new ArrayList<>();
+        bookingService.exportByOwnerItems(ownerItem.getId(), exported::add);
+        assertEquals(expected, exported);
+
+        assertThrows(NoAccessException.class, () -> bookingService.exportByOwnerItems(9999L, exported::add));
+    }
+}
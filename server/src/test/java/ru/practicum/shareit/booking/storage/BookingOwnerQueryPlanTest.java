@@ -0,0 +1,42 @@
+package ru.practicum.shareit.booking.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class BookingOwnerQueryPlanTest {
+    private static final String NOW = "TIMESTAMP '2030-01-01 00:00:00'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Условия повторяют запросы владельца из BookingStorage вместе с условием курсора и порядком
+    private String explain(String condition) {
+        return jdbcTemplate.queryForObject("EXPLAIN SELECT b.id FROM bookings b " +
+                "WHERE b.item_owner_id = 1 " + condition +
+                "AND (b.start_date < " + NOW + " OR (b.start_date = " + NOW + " AND b.id < 10)) " +
+                "ORDER BY b.start_date DESC, b.id DESC LIMIT 10", String.class);
+    }
+
+    private void assertUsesOwnerIndex(String condition) {
+        final String plan = explain(condition);
+        assertTrue(plan.contains("PUBLIC.BOOKINGS_OWNER_"), plan);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    @DisplayName("Запросы бронирований владельца используют индексы по item_owner_id")
+    @Test
+    public void shouldUseOwnerIndexes() {
+        assertUsesOwnerIndex("");
+        assertUsesOwnerIndex("AND b.start_date < " + NOW + " AND b.end_date > " + NOW + " ");
+        assertUsesOwnerIndex("AND b.start_date > " + NOW + " AND b.status <> 'REJECTED' ");
+        assertUsesOwnerIndex("AND b.end_date < " + NOW + " AND b.status NOT IN ('REJECTED', 'WAITING') ");
+        assertUsesOwnerIndex("AND b.status = 'WAITING' ");
+    }
+}
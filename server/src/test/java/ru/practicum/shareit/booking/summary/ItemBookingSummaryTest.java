@@ -0,0 +1,228 @@
+package ru.practicum.shareit.booking.summary;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.TimeWindowDto;
+import ru.practicum.shareit.booking.dto.BookingStatusResultDto;
+import ru.practicum.shareit.booking.dto.CreateBookingDto;
+import ru.practicum.shareit.booking.dto.UpdateBookingStatusDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserStorage;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ItemBookingSummaryTest {
+    private final ItemBookingSummary summary;
+    private final ItemBookingSummaryChecker checker;
+    private final BookingService bookingService;
+    private final ItemService itemService;
+    private final ItemStorage itemStorage;
+    private final UserStorage userStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final BookingStorage bookingStorage;
+    private final ScheduledTaskHolder scheduledTasks;
+
+    private User owner;
+    private User booker;
+    private Item item;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void beforeEach() {
+        owner = userStorage.save(User.builder()
+                .name("owner")
+                .email("owner@email.ru")
+                .build());
+        booker = userStorage.save(User.builder()
+                .name("booker")
+                .email("booker@email.ru")
+                .build());
+        item = itemStorage.save(Item.builder()
+                .name("item")
+                .description("description")
+                .available(true)
+                .ownerId(owner.getId())
+                .build());
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private BookingDto book(int startHours, int endHours) {
+        return bookingService.create(booker.getId(), CreateBookingDto.builder()
+                .start(now.plusHours(startHours))
+                .end(now.plusHours(endHours))
+                .itemId(item.getId())
+                .build());
+    }
+
+    @DisplayName("Проекция обновляется при создании, подтверждении и удалении бронирований")
+    @Test
+    public void shouldFollowBookingChanges() {
+        // Шкала загружается до появления бронирований, дальше обновляется только слушателем
+        ItemDto itemDto = itemService.getById(owner.getId(), item.getId(), now);
+        assertNull(itemDto.getLastBooking());
+        assertNull(itemDto.getNextBooking());
+
+        final BookingDto first = book(1, 2);
+        final BookingDto second = book(3, 4);
+        itemDto = itemService.getById(owner.getId(), item.getId(), now);
+        assertNull(itemDto.getLastBooking());
+        assertEquals(first.getId(), itemDto.getNextBooking().getId());
+
+        // Отклонённое бронирование не может быть следующим
+        bookingService.updateStatus(owner.getId(), first.getId(), false);
+        itemDto = itemService.getById(owner.getId(), item.getId(), now);
+        assertEquals(second.getId(), itemDto.getNextBooking().getId());
+
+        // С течением времени подтверждённое бронирование становится последним без перестроения проекции
+        bookingService.updateStatus(owner.getId(), second.getId(), true);
+        itemDto = itemService.getById(owner.getId(), item.getId(), now.plusHours(5));
+        assertEquals(second.getId(), itemDto.getLastBooking().getId());
+        assertNull(itemDto.getNextBooking());
+        itemDto = itemService.getById(owner.getId(), item.getId(), now.plusMinutes(210));
+        assertEquals(second.getId(), itemDto.getLastBooking().getId());
+
+        bookingService.delete(booker.getId(), second.getId());
+        itemDto = itemService.getById(owner.getId(), item.getId(), now.plusHours(5));
+        assertNull(itemDto.getLastBooking());
+
+        assertTrue(checker.check(now).isEmpty());
+        assertTrue(checker.check(now.plusHours(5)).isEmpty());
+    }
+
+    @DisplayName("Сверка находит и перестраивает шкалу, изменённую в обход приложения")
+    @Test
+    public void shouldRepairTimelineChangedOutsideApplication() {
+        final BookingDto booking = book(1, 2);
+        bookingService.updateStatus(owner.getId(), booking.getId(), true);
+        assertEquals(booking.getId(), summary.get(item.getId()).next(now).getId());
+        assertTrue(checker.check(now).isEmpty());
+
+        jdbcTemplate.update("UPDATE bookings SET status = 'REJECTED' WHERE id = ?", booking.getId());
+
+        assertEquals(List.of(item.getId()), checker.check(now));
+        assertNull(summary.get(item.getId()).next(now));
+        assertTrue(checker.check(now).isEmpty());
+    }
+
+    @DisplayName("Подтверждение, не дошедшее до проекции, не даёт создать и подтвердить пересекающееся бронирование")
+    @Test
+    public void shouldCheckOverlapAgainstDatabase() {
+        final BookingDto first = book(1, 2);
+        final BookingDto waiting = book(1, 2);
+        assertFalse(summary.get(item.getId()).isOccupied(now.plusHours(1), now.plusHours(2)));
+
+        // Так выглядит подтверждение через другой экземпляр сервера
+        jdbcTemplate.update("UPDATE bookings SET status = 'APPROVED' WHERE id = ?", first.getId());
+
+        assertThrows(BadRequestException.class, () -> book(1, 3));
+        assertThrows(BadRequestException.class,
+                () -> bookingService.updateStatus(owner.getId(), waiting.getId(), true));
+        final List<BookingStatusResultDto> results = bookingService.updateStatuses(owner.getId(),
+                List.of(UpdateBookingStatusDto.builder()
+                        .bookingId(waiting.getId())
+                        .approved(true)
+                        .build()));
+        assertEquals(400, results.get(0).getStatus());
+
+        // Проверки идут в базу и не перестраивают шкалу, подтверждение в обход приложения исправит только сверка
+        assertFalse(summary.get(item.getId()).isOccupied(now.plusHours(1), now.plusHours(2)));
+    }
+
+    @DisplayName("Проекция сбрасывается при удалении вещи и пользователя")
+    @Test
+    public void shouldForgetRemovedItemsAndUsers() {
+        book(1, 2);
+        assertNotNull(summary.get(item.getId()).next(now));
+
+        itemService.delete(owner.getId(), item.getId());
+        assertFalse(summary.cachedItemIds().contains(item.getId()));
+
+        summary.get(item.getId());
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", booker.getId());
+        summary.onUserRemoved(booker.getId());
+        assertTrue(summary.cachedItemIds().isEmpty());
+    }
+
+    @DisplayName("Шкалы вытесняются из проекции по сроку жизни")
+    @Test
+    public void shouldExpireTimelines() {
+        final ItemBookingSummary expiring = new ItemBookingSummary(bookingStorage, 10, Duration.ZERO,
+                Duration.ofDays(30));
+        book(1, 2);
+
+        assertNotNull(expiring.get(item.getId()).next(now));
+        assertTrue(expiring.cachedItemIds().isEmpty());
+    }
+
+    private Booking saveBooking(LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        return bookingStorage.save(Booking.builder()
+                .startDate(start)
+                .endDate(end)
+                .item(item)
+                .booker(booker)
+                .status(status)
+                .build());
+    }
+
+    @DisplayName("Из давно закончившихся бронирований шкала загружает только последнее")
+    @Test
+    public void shouldLoadOnlyLastOfOldBookings() {
+        final Booking older = saveBooking(now.minusDays(60), now.minusDays(59), BookingStatus.APPROVED);
+        final Booking old = saveBooking(now.minusDays(50), now.minusDays(49), BookingStatus.CANCELED);
+        final Booking oldWaiting = saveBooking(now.minusDays(45), now.minusDays(44), BookingStatus.WAITING);
+        final Booking recent = saveBooking(now.minusDays(2), now.minusDays(1), BookingStatus.REJECTED);
+        final Booking next = saveBooking(now.plusDays(1), now.plusDays(2), BookingStatus.APPROVED);
+
+        final List<Long> loaded = bookingStorage.findSlotsByItemIdIn(List.of(item.getId()), now.minusDays(30))
+                .stream()
+                .map(BookingSlot::getId)
+                .sorted()
+                .collect(Collectors.toList());
+        assertEquals(List.of(old.getId(), next.getId()), loaded);
+        assertFalse(loaded.contains(older.getId()) || loaded.contains(oldWaiting.getId())
+                || loaded.contains(recent.getId()));
+
+        final ItemBookingTimeline timeline = summary.get(item.getId());
+        assertEquals(old.getId(), timeline.last(now).getId());
+        assertEquals(next.getId(), timeline.next(now).getId());
+        assertTrue(checker.check(now).isEmpty());
+        // Время раньше загруженной истории не считается свободным
+        assertEquals(List.of(new TimeWindowDto(now.minusDays(20), next.getStartDate())),
+                timeline.freeWindows(now.minusDays(20), next.getStartDate()));
+        assertTrue(timeline.freeWindows(now.minusDays(60), now.minusDays(40)).isEmpty());
+    }
+
+    @DisplayName("Сверка проекции запускается по расписанию")
+    @Test
+    public void shouldScheduleCheck() {
+        assertTrue(scheduledTasks.getScheduledTasks().stream()
+                .anyMatch(task -> task.getTask().getRunnable().toString()
+                        .equals(ItemBookingSummaryChecker.class.getName() + ".checkNow")));
+    }
+}
@@ -0,0 +1,207 @@
+package ru.practicum.shareit.item.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.util.SerializationUtils;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.service.TaggedItem;
+import ru.practicum.shareit.item.storage.CommentStorage;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.user.storage.UserStorage;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ItemViewCacheTest {
+    private final ItemService itemService;
+    private final ItemStorage itemStorage;
+    private final UserStorage userStorage;
+    private final UserService userService;
+    private final CommentStorage commentStorage;
+    private final EntityManagerFactory entityManagerFactory;
+    private final MeterRegistry meterRegistry;
+    private final CacheManager cacheManager;
+    private final ItemViewCache itemViewCache;
+    private final SharedItemViewStore sharedStore;
+
+    private User owner;
+    private User user;
+    private Item item;
+    private Statistics statistics;
+
+    @BeforeEach
+    void beforeEach() {
+        owner = userStorage.save(User.builder()
+                .name("owner")
+                .email("owner@email.ru")
+                .build());
+        user = userStorage.save(User.builder()
+                .name("user")
+                .email("user@email.ru")
+                .build());
+        item = itemStorage.save(Item.builder()
+                .name("item")
+                .description("description")
+                .available(true)
+                .ownerId(owner.getId())
+                .build());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @DisplayName("Повторное чтение вещи не обращается к базе")
+    @Test
+    public void shouldReadItemFromCache() {
+        final ItemDto loaded = itemService.getById(user.getId(), item.getId(), LocalDateTime.now());
+
+        statistics.clear();
+        final ItemDto cached = itemService.getById(user.getId(), item.getId(), LocalDateTime.now());
+        assertEquals(loaded, cached);
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        // Владельцу отдаётся то же представление, дополненное бронированиями
+        final ItemDto ownerDto = itemService.getById(owner.getId(), item.getId(), LocalDateTime.now());
+        assertEquals(loaded, ownerDto);
+
+        assertEquals(2, meterRegistry.get("cache.gets")
+                .tag("cache", ItemViewCache.NAME)
+                .tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @DisplayName("ETag и тело вещи строятся по одному представлению из кэша")
+    @Test
+    public void shouldTagItemFromCache() {
+        final TaggedItem loaded = itemService.getTaggedById(user.getId(), item.getId(), LocalDateTime.now());
+
+        statistics.clear();
+        final TaggedItem cached = itemService.getTaggedById(user.getId(), item.getId(), LocalDateTime.now());
+        assertEquals(loaded, cached);
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertNotEquals(loaded.getTag(),
+                itemService.getTaggedById(owner.getId(), item.getId(), LocalDateTime.now()).getTag());
+
+        itemService.update(item.getId(), owner.getId(), Map.of("name", "updated"), LocalDateTime.now());
+        final TaggedItem updated = itemService.getTaggedById(user.getId(), item.getId(), LocalDateTime.now());
+        assertNotEquals(loaded.getTag(), updated.getTag());
+        assertEquals("updated", updated.getItem().getName());
+    }
+
+    @DisplayName("ETag вещи меняется вместе с именем автора комментария")
+    @Test
+    public void shouldRetagItemWhenCommentAuthorRenamed() {
+        commentStorage.save(Comment.builder()
+                .text("comment")
+                .itemId(item.getId())
+                .author(user)
+                .created(LocalDateTime.now())
+                .build());
+        final TaggedItem loaded = itemService.getTaggedById(user.getId(), item.getId(), LocalDateTime.now());
+        assertEquals("user", loaded.getItem().getComments().get(0).getAuthorName());
+
+        userService.update(user.getId(), Map.of("name", "renamed"));
+        final TaggedItem renamed = itemService.getTaggedById(user.getId(), item.getId(), LocalDateTime.now());
+        assertEquals("renamed", renamed.getItem().getComments().get(0).getAuthorName());
+        assertNotEquals(loaded.getTag(), renamed.getTag());
+    }
+
+    @DisplayName("Представление вещи из кэша сериализуется")
+    @Test
+    public void shouldSerializeCachedView() {
+        itemService.getById(user.getId(), item.getId(), LocalDateTime.now());
+
+        final CachedView cached = cacheManager.getCache(ItemViewCache.NAME).get(item.getId(), CachedView.class);
+        assertNotNull(cached);
+        assertEquals(cached.getView(), SerializationUtils.deserialize(SerializationUtils.serialize(cached.getView())));
+    }
+
+    @DisplayName("После потери узлового уровня представление отдаётся из общего уровня без обращения к базе")
+    @Test
+    public void shouldReadItemFromSharedStore() {
+        final ItemDto loaded = itemService.getById(user.getId(), item.getId(), LocalDateTime.now());
+        cacheManager.getCache(ItemViewCache.NAME).clear();
+
+        statistics.clear();
+        assertEquals(loaded, itemService.getById(user.getId(), item.getId(), LocalDateTime.now()));
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, meterRegistry.get("item.cache.shared.gets").tag("result", "hit").counter().count());
+    }
+
+    @DisplayName("Представление, прочитанное до изменения вещи, не кэшируется, а изменение другой вещи не мешает")
+    @Test
+    public void shouldGuardStalePutPerItem() {
+        final AtomicInteger loads = new AtomicInteger();
+        final ItemView view = new ItemView(owner.getId(), 0L, null, null,
+                ItemDto.builder().id(item.getId()).build());
+
+        itemViewCache.get(item.getId(), () -> {
+            loads.incrementAndGet();
+            itemViewCache.evict(item.getId());
+            return view;
+        });
+        itemViewCache.get(item.getId(), () -> {
+            loads.incrementAndGet();
+            itemViewCache.evict(item.getId() + 1);
+            return view;
+        });
+        assertEquals(view, itemViewCache.get(item.getId(), () -> {
+            loads.incrementAndGet();
+            return view;
+        }));
+        assertEquals(2, loads.get());
+    }
+
+    @DisplayName("Сброс вещи на одном узле виден узловому уровню другого узла")
+    @Test
+    public void shouldEvictItemOnOtherNode() {
+        final ItemViewCache otherNode = new ItemViewCache(new ConcurrentMapCacheManager(ItemViewCache.NAME),
+                sharedStore, new SimpleMeterRegistry());
+        final ItemDto loaded = itemService.getById(user.getId(), item.getId(), LocalDateTime.now());
+        final ItemView fromShared = otherNode.get(item.getId(), () -> fail("view should come from the shared store"));
+        assertEquals(loaded, fromShared.getItem());
+
+        itemService.update(item.getId(), owner.getId(), Map.of("name", "updated"), LocalDateTime.now());
+        final ItemView reloaded = otherNode.get(item.getId(),
+                () -> new ItemView(owner.getId(), 1L, null, null, loaded.withName("updated")));
+        assertEquals("updated", reloaded.getItem().getName());
+    }
+
+    @DisplayName("Кэш сбрасывается при изменении и удалении вещи")
+    @Test
+    public void shouldEvictChangedItem() {
+        itemService.getById(user.getId(), item.getId(), LocalDateTime.now());
+
+        itemService.update(item.getId(), owner.getId(), Map.of("name", "updated"), LocalDateTime.now());
+        final ItemDto updated = itemService.getById(user.getId(), item.getId(), LocalDateTime.now());
+        assertEquals("updated", updated.getName());
+
+        itemService.delete(owner.getId(), item.getId());
+        assertThrows(NotFoundException.class, () -> {
+            itemService.getById(user.getId(), item.getId(), LocalDateTime.now());
+        });
+    }
+}
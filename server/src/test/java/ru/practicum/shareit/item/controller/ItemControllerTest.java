@@ -8,14 +8,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.booking.dto.TimeWindowDto;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CreateCommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.service.TaggedItem;
+import ru.practicum.shareit.pagination.KeysetPage;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
@@ -177,18 +181,105 @@ class ItemControllerTest {
     @Test
     void shouldGetItemById() throws Exception {
         itemDto = createItemDto();
-        when(itemService.getById(anyLong(), anyLong(), any(LocalDateTime.class)))
-                .thenReturn(itemDto);
+        when(itemService.getTaggedById(anyLong(), anyLong(), any(LocalDateTime.class)))
+                .thenReturn(new TaggedItem("\"3\"", 2L, itemDto));
 
         response = getItemByIdResponse(1L, 1L);
         assertEquals(200, response.getStatus());
+        assertEquals("\"3\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals("2", response.getHeader(ItemController.OWNER_HEADER));
         assertEquals(mapper.writeValueAsString(itemDto), response.getContentAsString());
 
         verify(itemService, times(1))
-                .getById(anyLong(), anyLong(), any(LocalDateTime.class));
+                .getTaggedById(anyLong(), anyLong(), any(LocalDateTime.class));
+        verifyNoMoreInteractions(itemService);
+    }
+
+    @DisplayName("Ответить 304 на запрос предмета с актуальным ETag")
+    @Test
+    void shouldNotGetItemWhenNotModified() throws Exception {
+        when(itemService.getTaggedById(anyLong(), anyLong(), any(LocalDateTime.class)))
+                .thenReturn(new TaggedItem("\"3\"", 2L, createItemDto()));
+
+        response = mvc.perform(get("/items/1")
+                        .header("X-Sharer-User-Id", 1L)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+
+        assertEquals(304, response.getStatus());
+        assertEquals("2", response.getHeader(ItemController.OWNER_HEADER));
+        assertEquals("", response.getContentAsString());
+        verify(itemService, times(1))
+                .getTaggedById(anyLong(), anyLong(), any(LocalDateTime.class));
         verifyNoMoreInteractions(itemService);
     }
 
+    @DisplayName("Получить свободное время предмета")
+    @Test
+    void shouldGetAvailability() throws Exception {
+        final LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+        final LocalDateTime to = from.plusDays(1);
+        final List<TimeWindowDto> windows = List.of(new TimeWindowDto(from, from.plusHours(2)),
+                new TimeWindowDto(from.plusHours(5), to));
+        when(itemService.getAvailability(1L, 1L, from, to))
+                .thenReturn(windows);
+
+        response = mvc.perform(get("/items/1/availability")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("from", from.toString())
+                        .param("to", to.toString())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+
+        assertEquals(200, response.getStatus());
+        assertEquals(mapper.writeValueAsString(windows), response.getContentAsString());
+
+        verify(itemService, times(1))
+                .getAvailability(1L, 1L, from, to);
+        verifyNoMoreInteractions(itemService);
+    }
+
+    @DisplayName("Получить комментарии предмета по курсору")
+    @Test
+    void shouldGetComments() throws Exception {
+        commentDto = createCommentDto();
+        when(itemService.getComments(1L, 1L, "cursor", 1))
+                .thenReturn(new KeysetPage<>(List.of(commentDto), "next"));
+
+        response = mvc.perform(get("/items/1/comments")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("cursor", "cursor")
+                        .param("size", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+
+        assertEquals(200, response.getStatus());
+        assertEquals("next", response.getHeader(KeysetPage.NEXT_CURSOR_HEADER));
+        assertEquals(mapper.writeValueAsString(List.of(commentDto)), response.getContentAsString());
+
+        verify(itemService, times(1))
+                .getComments(1L, 1L, "cursor", 1);
+        verifyNoMoreInteractions(itemService);
+    }
+
+    @DisplayName("Исключение при нулевом размере страницы комментариев")
+    @Test
+    void shouldThrowWhenCommentsSizeIsNotPositive() throws Exception {
+        response = mvc.perform(get("/items/1/comments")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("size", "0")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+
+        assertEquals(400, response.getStatus());
+        verifyNoInteractions(itemService);
+    }
+
     private MockHttpServletResponse getItemsByUserResponse(Long userId,
                                                            int from,
                                                            int size) throws Exception {
@@ -205,7 +296,7 @@ class ItemControllerTest {
     @Test
     void shouldGetItemsByUser() throws Exception {
         itemDto = createItemDto();
-        when(itemService.getAllByUser(anyLong(), any(LocalDateTime.class), any(Pageable.class)))
+        when(itemService.getAllByUser(anyLong(), any(), any(LocalDateTime.class), any(Pageable.class)))
                 .thenReturn(List.of(itemDto));
 
         response = getItemsByUserResponse(1L, 0, 5);
@@ -214,10 +305,70 @@ class ItemControllerTest {
         assertEquals(mapper.writeValueAsString(List.of(itemDto)), response.getContentAsString());
 
         verify(itemService, times(1))
-                .getAllByUser(anyLong(), any(LocalDateTime.class), any(Pageable.class));
+                .getAllByUser(anyLong(), any(), any(LocalDateTime.class), any(Pageable.class));
+        verifyNoMoreInteractions(itemService);
+    }
+
+    @DisplayName("Получить следующую страницу предметов владельца после id")
+    @Test
+    void shouldGetItemsByUserAfterId() throws Exception {
+        itemDto = createItemDto();
+        when(itemService.getAllByUser(anyLong(), anyLong(), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(itemDto));
+
+        result = mvc.perform(get("/items")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("size", "5")
+                        .param("afterId", "3")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn();
+        response = result.getResponse();
+
+        assertEquals(200, response.getStatus());
+        assertEquals(mapper.writeValueAsString(List.of(itemDto)), response.getContentAsString());
+
+        verify(itemService, times(1))
+                .getAllByUser(anyLong(), anyLong(), any(LocalDateTime.class), any(Pageable.class));
         verifyNoMoreInteractions(itemService);
     }
 
+    @DisplayName("Исключение при запросе предметов владельца одновременно со смещением и после id")
+    @Test
+    void shouldNotGetItemsByUserWithFromAndAfterId() throws Exception {
+        result = mvc.perform(get("/items")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("from", "0")
+                        .param("size", "5")
+                        .param("afterId", "3")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn();
+        response = result.getResponse();
+
+        assertEquals(400, response.getStatus());
+        verifyNoInteractions(itemService);
+    }
+
+    @DisplayName("Исключение при нулевом размере страницы предметов владельца")
+    @Test
+    void shouldNotGetItemsByUserWithZeroSize() throws Exception {
+        response = getItemsByUserResponse(1L, 0, 0);
+
+        assertEquals(400, response.getStatus());
+        verifyNoInteractions(itemService);
+    }
+
+    @DisplayName("Исключение при отрицательном смещении или размере страницы предметов владельца")
+    @Test
+    void shouldNotGetItemsByUserWithNegativeFromOrSize() throws Exception {
+        response = getItemsByUserResponse(1L, -1, 5);
+        assertEquals(400, response.getStatus());
+
+        response = getItemsByUserResponse(1L, 0, -5);
+        assertEquals(400, response.getStatus());
+
+        verifyNoInteractions(itemService);
+    }
+
     private MockHttpServletResponse searchItemsResponse(Long userId, String text, int from, int size) throws Exception {
         result = mvc.perform(get("/items/search")
                         .header("X-Sharer-User-Id", userId)
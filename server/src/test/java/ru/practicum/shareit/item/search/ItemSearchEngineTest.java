@@ -0,0 +1,115 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRow;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserStorage;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ItemSearchEngineTest {
+    private final ItemSearchEngine searchEngine;
+    private final ItemStorage itemStorage;
+    private final UserStorage userStorage;
+
+    private Item drill;
+    private Item hammer;
+    private Item unavailableDrill;
+
+    @BeforeEach
+    void beforeEach() {
+        User owner = userStorage.save(User.builder()
+                .name("owner")
+                .email("owner@email.ru")
+                .build());
+        drill = itemStorage.save(Item.builder()
+                .name("Дрель")
+                .description("Простая дрель")
+                .available(true)
+                .ownerId(owner.getId())
+                .build());
+        hammer = itemStorage.save(Item.builder()
+                .name("Молоток")
+                .description("Молоток для дрели не нужен")
+                .available(true)
+                .ownerId(owner.getId())
+                .build());
+        unavailableDrill = itemStorage.save(Item.builder()
+                .name("Дрель ударная")
+                .description("В ремонте")
+                .available(false)
+                .ownerId(owner.getId())
+                .build());
+    }
+
+    private List<Long> ids(List<ItemRow> items) {
+        return items.stream()
+                .map(ItemRow::getId)
+                .collect(Collectors.toList());
+    }
+
+    @DisplayName("Встроенный индекс совпадает с поиском в БД")
+    @Test
+    public void shouldMatchDatabaseSearch() {
+        final ItemSearchEngine databaseEngine = new DatabaseItemSearchEngine(itemStorage);
+        for (String text : List.of("дрел", "ДРЕЛЬ", "мол", "о", "ремонт", "отсутствует")) {
+            assertEquals(ids(databaseEngine.search(text, PageRequest.of(0, 10))),
+                    ids(searchEngine.search(text, PageRequest.of(0, 10))), text);
+        }
+    }
+
+    @DisplayName("Символы шаблона LIKE ищутся буквально")
+    @Test
+    public void shouldSearchLikeWildcardsLiterally() {
+        final Item wrench = itemStorage.save(Item.builder()
+                .name("Ключ 10_12")
+                .description("Скидка 50% на прокат, путь C:\\tools")
+                .available(true)
+                .ownerId(drill.getOwnerId())
+                .build());
+        final ItemSearchEngine databaseEngine = new DatabaseItemSearchEngine(itemStorage);
+        for (String text : List.of("%", "_", "50%", "0_1", "0%1", "\\", ":\\t")) {
+            assertEquals(ids(databaseEngine.search(text, PageRequest.of(0, 10))),
+                    ids(searchEngine.search(text, PageRequest.of(0, 10))), text);
+        }
+        assertEquals(List.of(wrench.getId()), ids(databaseEngine.search("%", PageRequest.of(0, 10))));
+        assertTrue(databaseEngine.search("0%1", PageRequest.of(0, 10)).isEmpty());
+    }
+
+    @DisplayName("Поиск учитывает доступность, порядок по id и пагинацию")
+    @Test
+    public void shouldSearchAvailableWithPagination() {
+        assertEquals(List.of(drill.getId(), hammer.getId()), ids(searchEngine.search("дрел", PageRequest.of(0, 10))));
+        assertEquals(List.of(drill.getId()), ids(searchEngine.search("дрел", PageRequest.of(0, 1))));
+        assertEquals(List.of(hammer.getId()), ids(searchEngine.search("дрел", PageRequest.of(1, 1))));
+        assertTrue(searchEngine.search("ремонт", PageRequest.of(0, 10)).isEmpty());
+    }
+
+    @DisplayName("Индекс обновляется при изменении и удалении вещи")
+    @Test
+    public void shouldReindexChangedItems() {
+        unavailableDrill.setAvailable(true);
+        itemStorage.save(unavailableDrill);
+        assertEquals(List.of(unavailableDrill.getId()), ids(searchEngine.search("ремонт", PageRequest.of(0, 10))));
+
+        hammer.setDescription("Обычный молоток");
+        itemStorage.save(hammer);
+        itemStorage.deleteById(drill.getId());
+        assertEquals(List.of(unavailableDrill.getId()), ids(searchEngine.search("дрел", PageRequest.of(0, 10))));
+    }
+}
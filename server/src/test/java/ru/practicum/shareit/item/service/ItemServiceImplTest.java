@@ -1,6 +1,8 @@
 package ru.practicum.shareit.item.service;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,6 +12,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.annotation.DirtiesContext;
 import ru.practicum.shareit.booking.dto.BookingItemDto;
+import ru.practicum.shareit.booking.dto.TimeWindowDto;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
@@ -21,19 +24,24 @@ import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CreateCommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.CommentStorage;
 import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.pagination.KeysetPage;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.ItemRequestStorage;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserStorage;
 
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -48,6 +56,8 @@ class ItemServiceImplTest {
     private final BookingStorage bookingStorage;
     private final BookingMapper bookingMapper;
     private final ItemRequestStorage requestStorage;
+    private final CommentStorage commentStorage;
+    private final EntityManagerFactory entityManagerFactory;
 
     private Item itemWithBookings;
     private Item itemWithoutBookings;
@@ -100,6 +110,7 @@ class ItemServiceImplTest {
                 .description("description")
                 .available(true)
                 .comments(new ArrayList<>())
+                .commentsCount(0L)
                 .build();
     }
 
@@ -253,6 +264,18 @@ class ItemServiceImplTest {
         final String expectedCommentMessage = "You haven't access to update this item.";
         final String commentMessage = commentException.getMessage();
         assertTrue(commentMessage.contains(expectedCommentMessage));
+
+        final Exception fieldException = assertThrows(BadRequestException.class, () -> {
+            itemService.update(itemWithoutBookings.getId(), owner.getId(),
+                    Map.of("owner", user.getId()), LocalDateTime.now());
+        });
+        assertTrue(fieldException.getMessage().contains("Field 'owner' of item cannot be updated."));
+
+        final Exception typeException = assertThrows(BadRequestException.class, () -> {
+            itemService.update(itemWithoutBookings.getId(), owner.getId(),
+                    Map.of("available", "yes"), LocalDateTime.now());
+        });
+        assertTrue(typeException.getMessage().contains("Field 'available' should be of type Boolean."));
     }
 
     @DisplayName("Удалить предмет")
@@ -292,7 +315,7 @@ class ItemServiceImplTest {
     @Test
     public void shouldGetByIdItem() {
         // Проверка получения предмета без бронирований
-        final ItemDto expectedDto = itemMapper.toDto(itemWithoutBookings);
+        final ItemDto expectedDto = itemMapper.toDto(itemWithoutBookings).withCommentsCount(0L);
         final ItemDto savedDto = itemService.getById(owner.getId(),
                 itemWithoutBookings.getId(), LocalDateTime.now());
 
@@ -303,7 +326,7 @@ class ItemServiceImplTest {
         final BookingItemDto lastBookingItem = bookingMapper.toItemDto(lastBooking);
         final BookingItemDto nextBookingItem = bookingMapper.toItemDto(nextBooking);
         final ItemDto expectedWithBookingDto = itemMapper.toDto(itemWithBookings,
-                lastBookingItem, nextBookingItem);
+                lastBookingItem, nextBookingItem).withCommentsCount(0L);
         final ItemDto savedWithBookingDto = itemService.getById(owner.getId(),
                 itemWithBookings.getId(), LocalDateTime.now());
 
@@ -311,7 +334,7 @@ class ItemServiceImplTest {
         assertEquals(expectedWithBookingDto, savedWithBookingDto);
 
         //Проверка получения предмета с бронированиями не владельцем предмета
-        final ItemDto expectedWithoutBookingDto = itemMapper.toDto(itemWithBookings);
+        final ItemDto expectedWithoutBookingDto = itemMapper.toDto(itemWithBookings).withCommentsCount(0L);
         final ItemDto savedWithoutBookingDto = itemService.getById(user.getId(),
                 itemWithBookings.getId(), LocalDateTime.now());
 
@@ -319,6 +342,33 @@ class ItemServiceImplTest {
         assertEquals(expectedWithoutBookingDto, savedWithoutBookingDto);
     }
 
+    @DisplayName("Получить свободное время предмета")
+    @Test
+    public void shouldGetAvailability() {
+        final LocalDateTime from = lastBooking.getStartDate().minusMinutes(10);
+        final LocalDateTime to = nextBooking.getEndDate().plusMinutes(10);
+
+        // Ожидающее подтверждения бронирование время не занимает
+        assertEquals(List.of(new TimeWindowDto(from, lastBooking.getStartDate()),
+                        new TimeWindowDto(lastBooking.getEndDate(), to)),
+                itemService.getAvailability(user.getId(), itemWithBookings.getId(), from, to));
+
+        nextBooking.setStatus(BookingStatus.APPROVED);
+        bookingStorage.save(nextBooking);
+        assertEquals(List.of(new TimeWindowDto(from, lastBooking.getStartDate()),
+                        new TimeWindowDto(lastBooking.getEndDate(), nextBooking.getStartDate()),
+                        new TimeWindowDto(nextBooking.getEndDate(), to)),
+                itemService.getAvailability(user.getId(), itemWithBookings.getId(), from, to));
+
+        // Период целиком внутри бронирования
+        assertTrue(itemService.getAvailability(user.getId(), itemWithBookings.getId(),
+                lastBooking.getStartDate(), lastBooking.getEndDate()).isEmpty());
+
+        assertThrows(BadRequestException.class, () -> itemService.getAvailability(user.getId(),
+                itemWithBookings.getId(), to, from));
+        assertThrows(NotFoundException.class, () -> itemService.getAvailability(user.getId(), 9999L, from, to));
+    }
+
     @DisplayName("Исключение при получении предмета по id")
     @Test
     public void shouldThrowWhenGetByIdItem() {
@@ -364,7 +414,7 @@ class ItemServiceImplTest {
         final Pageable pageable = PageRequest.of(0, 5);
         final LocalDateTime currentTime = LocalDateTime.now().minusMinutes(25);
 
-        final List<ItemDto> emptyList = itemService.getAllByUser(user.getId(), LocalDateTime.now(), pageable);
+        final List<ItemDto> emptyList = itemService.getAllByUser(user.getId(), null, LocalDateTime.now(), pageable);
         assertNotNull(emptyList);
         assertTrue(emptyList.isEmpty());
 
@@ -376,7 +426,7 @@ class ItemServiceImplTest {
         final ItemDto dtoWithComment = createNewItemDtoWithBookingsAndComment(currentTime);
 
         // Проверка получения списка предметов
-        final List<ItemDto> savedItemsDto = itemService.getAllByUser(owner.getId(), currentTime, pageable);
+        final List<ItemDto> savedItemsDto = itemService.getAllByUser(owner.getId(), null, currentTime, pageable);
 
         assertNotNull(savedItemsDto);
         assertEquals(3, savedItemsDto.size());
@@ -389,7 +439,7 @@ class ItemServiceImplTest {
         final Long wrongUserId = 9999L;
         final Pageable pageable = PageRequest.of(0, 5);
         final Exception commentException = assertThrows(NotFoundException.class, () -> {
-            itemService.getAllByUser(wrongUserId, LocalDateTime.now(), pageable);
+            itemService.getAllByUser(wrongUserId, null, LocalDateTime.now(), pageable);
         });
         final String expectedCommentMessage = String.format("User with id %d is not exist.", wrongUserId);
         final String commentMessage = commentException.getMessage();
@@ -435,19 +485,29 @@ class ItemServiceImplTest {
 
         // Проверка с getAllByUser
         final Pageable pageableAt0 = PageRequest.of(0, 2);
-        final List<ItemDto> itemsTwoDto = itemService.getAllByUser(owner.getId(), LocalDateTime.now(), pageableAt0);
+        final List<ItemDto> itemsTwoDto = itemService.getAllByUser(owner.getId(), null,
+                LocalDateTime.now(), pageableAt0);
 
         assertNotNull(itemsTwoDto);
         assertEquals(2, itemsTwoDto.size());
         assertTrue(itemsTwoDto.containsAll(List.of(dtoWithoutBookings, dtoWithBookings)));
 
         final Pageable pageableAt3 = PageRequest.of(3 / 2, 2);
-        final List<ItemDto> itemsOneDto = itemService.getAllByUser(owner.getId(), LocalDateTime.now(), pageableAt3);
+        final List<ItemDto> itemsOneDto = itemService.getAllByUser(owner.getId(), null,
+                LocalDateTime.now(), pageableAt3);
 
         assertNotNull(itemsOneDto);
         assertEquals(1, itemsOneDto.size());
         assertTrue(itemsOneDto.contains(thirdDto));
 
+        // Проверка постраничного получения после известного id
+        final Long lastSeenId = itemsTwoDto.get(itemsTwoDto.size() - 1).getId();
+        final List<ItemDto> itemsAfterDto = itemService.getAllByUser(owner.getId(), lastSeenId,
+                LocalDateTime.now(), pageableAt0);
+
+        assertNotNull(itemsAfterDto);
+        assertEquals(List.of(thirdDto), itemsAfterDto);
+
         // Проверка с search
         final List<ItemDto> searchTwoDto = itemService.search(1L, "item", pageableAt0);
 
@@ -463,4 +523,122 @@ class ItemServiceImplTest {
         assertEquals(1, searchOneDto.size());
         assertTrue(searchOneDto.contains(thirdDto));
     }
-}
\ No newline at end of file
+
+    private void createItemsWithBookingsAndComments(int count) {
+        for (int i = 0; i < count; i++) {
+            final Item newItem = itemStorage.save(Item.builder()
+                    .name("item " + i)
+                    .description("description " + i)
+                    .available(true)
+                    .ownerId(owner.getId())
+                    .build());
+            bookingStorage.save(Booking.builder()
+                    .startDate(LocalDateTime.now().minusMinutes(40 + i).truncatedTo(ChronoUnit.MICROS))
+                    .endDate(LocalDateTime.now().minusMinutes(30 + i).truncatedTo(ChronoUnit.MICROS))
+                    .item(newItem)
+                    .booker(user)
+                    .status(BookingStatus.APPROVED)
+                    .build());
+            bookingStorage.save(Booking.builder()
+                    .startDate(LocalDateTime.now().plusMinutes(30 + i).truncatedTo(ChronoUnit.MICROS))
+                    .endDate(LocalDateTime.now().plusMinutes(40 + i).truncatedTo(ChronoUnit.MICROS))
+                    .item(newItem)
+                    .booker(user)
+                    .status(BookingStatus.WAITING)
+                    .build());
+            commentStorage.save(Comment.builder()
+                    .text("comment " + i)
+                    .itemId(newItem.getId())
+                    .author(user)
+                    .created(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS))
+                    .build());
+        }
+    }
+
+    private long countStatementsOfGetAllByUser(Pageable pageable) {
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        final List<ItemDto> items = itemService.getAllByUser(owner.getId(), null, LocalDateTime.now(), pageable);
+        assertEquals(pageable.getPageSize(), items.size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    @DisplayName("Число запросов при получении вещей владельца не зависит от размера страницы")
+    @Test
+    public void shouldGetAllByUserWithFixedNumberOfStatements() {
+        createItemsWithBookingsAndComments(40);
+
+        // Обе страницы состоят из вещей с бронированиями и комментариями
+        final long smallPageStatements = countStatementsOfGetAllByUser(PageRequest.of(1, 2));
+        final long largePageStatements = countStatementsOfGetAllByUser(PageRequest.of(1, 20));
+
+        assertEquals(smallPageStatements, largePageStatements);
+
+        final List<ItemDto> items = itemService.getAllByUser(owner.getId(), null,
+                LocalDateTime.now(), PageRequest.of(0, 42));
+        for (ItemDto item : items.subList(2, items.size())) {
+            assertNotNull(item.getLastBooking());
+            assertNotNull(item.getNextBooking());
+            assertEquals(1, item.getComments().size());
+        }
+    }
+
+    @DisplayName("Получить комментарии предмета по курсору")
+    @Test
+    public void shouldGetCommentsByCursor() {
+        final LocalDateTime created = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        for (int i = 0; i < 15; i++) {
+            commentStorage.save(Comment.builder()
+                    .text("comment " + i)
+                    .itemId(itemWithBookings.getId())
+                    .author(user)
+                    .created(created.minusMinutes(i % 5))
+                    .build());
+        }
+
+        // В представлении предмета только последние комментарии и общее число
+        final ItemDto itemDto = itemService.getById(user.getId(), itemWithBookings.getId(), LocalDateTime.now());
+        assertEquals(15L, itemDto.getCommentsCount());
+        assertEquals(10, itemDto.getComments().size());
+        assertEquals(created, itemDto.getComments().get(0).getCreated());
+
+        final List<CommentDto> received = new ArrayList<>();
+        KeysetPage<CommentDto> page = itemService.getComments(user.getId(), itemWithBookings.getId(), null, 4);
+        received.addAll(page.getItems());
+        while (page.getNextCursor() != null) {
+            page = itemService.getComments(user.getId(), itemWithBookings.getId(), page.getNextCursor(), 4);
+            received.addAll(page.getItems());
+        }
+        assertEquals(15, received.size());
+        assertEquals(15, received.stream().map(CommentDto::getId).distinct().count());
+        for (int i = 1; i < received.size(); i++) {
+            assertFalse(received.get(i).getCreated().isAfter(received.get(i - 1).getCreated()));
+        }
+
+        assertThrows(BadRequestException.class, () -> {
+            itemService.getComments(user.getId(), itemWithBookings.getId(), "broken", 4);
+        });
+        assertThrows(NotFoundException.class, () -> {
+            itemService.getComments(user.getId(), 9999L, null, 4);
+        });
+    }
+
+    @DisplayName("Выгрузить все вещи владельца")
+    @Test
+    public void shouldExportByOwner() {
+        final List<ItemDto> exported = new ArrayList<>();
+        itemService.exportByOwner(owner.getId(), exported::add);
+
+        assertEquals(List.of(itemWithBookings.getId(), itemWithoutBookings.getId()), exported.stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList()));
+        assertEquals("item without booking", exported.get(1).getName());
+
+        final List<ItemDto> empty = new ArrayList<>();
+        itemService.exportByOwner(user.getId(), empty::add);
+        assertTrue(empty.isEmpty());
+
+        assertThrows(NotFoundException.class, () -> itemService.exportByOwner(9999L, exported::add));
+    }
+}
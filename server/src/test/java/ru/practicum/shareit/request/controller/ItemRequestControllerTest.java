@@ -11,6 +11,7 @@ import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.invalidation.InvalidationHints;
 import ru.practicum.shareit.request.dto.CreateItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
@@ -72,6 +73,7 @@ class ItemRequestControllerTest {
 
         assertEquals(200, response.getStatus());
         assertEquals(mapper.writeValueAsString(requestDto), response.getContentAsString());
+        assertEquals("requests", response.getHeader(InvalidationHints.HEADER));
 
         verify(itemRequestService, times(1))
                 .create(anyLong(), any(LocalDateTime.class), any(CreateItemRequestDto.class));
@@ -98,6 +100,8 @@ class ItemRequestControllerTest {
         assertEquals(200, response.getStatus());
         assertEquals(mapper.writeValueAsString(requestDto), response.getContentAsString());
 
+        verify(itemRequestService, times(1))
+                .getTag(anyLong(), anyLong());
         verify(itemRequestService, times(1))
                 .getById(anyLong(), anyLong());
         verifyNoMoreInteractions(itemRequestService);
@@ -115,7 +119,7 @@ class ItemRequestControllerTest {
     @Test
     public void shouldGetItemRequestsByOwner() throws Exception {
         requestDto = createRequestDto();
-        when(itemRequestService.getByOwnerId(anyLong()))
+        when(itemRequestService.getByOwnerId(anyLong(), anyInt(), anyInt()))
                 .thenReturn(List.of(requestDto));
 
         response = getItemRequestsByOwnerResponse(1L);
@@ -123,8 +127,9 @@ class ItemRequestControllerTest {
         assertEquals(200, response.getStatus());
         assertEquals(mapper.writeValueAsString(List.of(requestDto)), response.getContentAsString());
 
+        // Без from и size отдаётся первая страница размера по умолчанию
         verify(itemRequestService, times(1))
-                .getByOwnerId(anyLong());
+                .getByOwnerId(1L, 0, 10);
         verifyNoMoreInteractions(itemRequestService);
     }
 
@@ -154,4 +159,22 @@ class ItemRequestControllerTest {
                 .getAll(anyLong(), anyInt(), anyInt());
         verifyNoMoreInteractions(itemRequestService);
     }
+
+    @DisplayName("Исключение при нулевом размере страницы запросов")
+    @Test
+    public void shouldThrowWhenSizeIsNotPositive() throws Exception {
+        response = mvc.perform(get("/requests")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("from", "0")
+                        .param("size", "0")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+        assertEquals(400, response.getStatus());
+
+        response = getAllItemRequestsResponse(1L, 0, 0);
+        assertEquals(400, response.getStatus());
+
+        verifyNoInteractions(itemRequestService);
+    }
 }
\ No newline at end of file
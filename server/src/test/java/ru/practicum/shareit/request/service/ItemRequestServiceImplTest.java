@@ -8,6 +8,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.request.dto.CreateItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.user.model.User;
@@ -24,6 +26,7 @@ import static org.junit.jupiter.api.Assertions.*;
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class ItemRequestServiceImplTest {
     private final ItemRequestService itemRequestService;
+    private final ItemService itemService;
     private final UserStorage userStorage;
 
     private User user;
@@ -108,7 +111,7 @@ public class ItemRequestServiceImplTest {
         requestDto = itemRequestService.create(user.getId(), creationTime, creationRequestDto);
 
         // Проверка получения списка запросов
-        final List<ItemRequestDto> receivedList = itemRequestService.getByOwnerId(user.getId());
+        final List<ItemRequestDto> receivedList = itemRequestService.getByOwnerId(user.getId(), 0, 10);
         assertNotNull(receivedList);
         assertEquals(1, receivedList.size());
         assertTrue(receivedList.contains(requestDto));
@@ -119,18 +122,60 @@ public class ItemRequestServiceImplTest {
                 .email("newuser@email.ru")
                 .build());
         assertNotNull(user);
-        final List<ItemRequestDto> listNewUser = itemRequestService.getByOwnerId(newUser.getId());
+        final List<ItemRequestDto> listNewUser = itemRequestService.getByOwnerId(newUser.getId(), 0, 10);
         assertNotNull(listNewUser);
         assertTrue(listNewUser.isEmpty());
     }
 
+    @DisplayName("Получить страницу запросов владельца с вещами-ответами")
+    @Test
+    public void shouldGetOwnerPageWithAnswers() {
+        final LocalDateTime creationTime = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        final ItemRequestDto first = itemRequestService.create(user.getId(), creationTime, creationRequestDto);
+        final ItemRequestDto second = itemRequestService.create(user.getId(), creationTime.plusSeconds(1),
+                creationRequestDto);
+        final ItemRequestDto third = itemRequestService.create(user.getId(), creationTime.plusSeconds(2),
+                creationRequestDto);
+
+        User answerer = userStorage.save(User.builder()
+                .name("answerer")
+                .email("answerer@email.ru")
+                .build());
+        final ItemDto firstAnswer = itemService.create(answerer.getId(), createItemDto("drill", first.getId()));
+        final ItemDto thirdAnswer = itemService.create(answerer.getId(), createItemDto("saw", third.getId()));
+        final ItemDto secondThirdAnswer = itemService.create(answerer.getId(), createItemDto("axe", third.getId()));
+
+        final List<ItemRequestDto> page = itemRequestService.getByOwnerId(user.getId(), 0, 2);
+        assertEquals(List.of(third.getId(), second.getId()),
+                List.of(page.get(0).getId(), page.get(1).getId()));
+        assertEquals(List.of(thirdAnswer.getId(), secondThirdAnswer.getId()),
+                List.of(page.get(0).getItems().get(0).getId(), page.get(0).getItems().get(1).getId()));
+        assertTrue(page.get(1).getItems().isEmpty());
+
+        final List<ItemRequestDto> nextPage = itemRequestService.getByOwnerId(user.getId(), 2, 2);
+        assertEquals(1, nextPage.size());
+        assertEquals(first.getId(), nextPage.get(0).getId());
+        assertEquals(1, nextPage.get(0).getItems().size());
+        assertEquals(firstAnswer.getId(), nextPage.get(0).getItems().get(0).getId());
+        assertEquals(first.getId(), nextPage.get(0).getItems().get(0).getRequestId());
+    }
+
+    private ItemDto createItemDto(String name, Long requestId) {
+        return ItemDto.builder()
+                .name(name)
+                .description(name + " description")
+                .available(true)
+                .requestId(requestId)
+                .build();
+    }
+
     @DisplayName("Исключение при получении запросов по id владельца")
     @Test
     public void shouldThrowWhenGetByOwnerIdItemRequest() {
         // Проверка проброса исключения NotFoundException с несуществующим userId
         final Long userId = 9999L;
         final Exception exception = assertThrows(NotFoundException.class, () -> {
-            itemRequestService.getByOwnerId(userId);
+            itemRequestService.getByOwnerId(userId, 0, 10);
         });
         final String expectedMessage = String.format("User with id %d is not exist.", userId);
         final String actualMessage = exception.getMessage();
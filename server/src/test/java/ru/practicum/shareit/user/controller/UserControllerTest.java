@@ -7,10 +7,12 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.invalidation.InvalidationHints;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserService;
 
@@ -65,6 +67,7 @@ public class UserControllerTest {
 
         assertEquals(200, response.getStatus());
         assertEquals(mapper.writeValueAsString(userDto), response.getContentAsString());
+        assertEquals("items, requests", response.getHeader(InvalidationHints.HEADER));
 
         verify(userService, times(1))
                 .save(any(UserDto.class));
@@ -93,9 +96,7 @@ public class UserControllerTest {
                 "email", "updated@email"
         );
 
-        when(userService.getById(anyLong()))
-                .thenReturn(userDto);
-        when(userService.save(any(UserDto.class)))
+        when(userService.update(anyLong(), anyMap()))
                 .thenReturn(expectedUpdatedDto);
 
         response = updateUserResponse(userDto.getId(), updatedFields);
@@ -103,8 +104,7 @@ public class UserControllerTest {
         assertEquals(200, response.getStatus());
         assertEquals(mapper.writeValueAsString(expectedUpdatedDto), response.getContentAsString());
 
-        verify(userService, times(1)).getById(anyLong());
-        verify(userService, times(1)).save(any(UserDto.class));
+        verify(userService, times(1)).update(userDto.getId(), updatedFields);
         verifyNoMoreInteractions(userService);
     }
 
@@ -143,10 +143,31 @@ public class UserControllerTest {
         assertEquals(200, response.getStatus());
         assertEquals(mapper.writeValueAsString(userDto), response.getContentAsString());
 
+        verify(userService, times(1)).getTag(anyLong());
         verify(userService, times(1)).getById(anyLong());
         verifyNoMoreInteractions(userService);
     }
 
+    @DisplayName("Ответить 304 на запрос пользователя с актуальным ETag")
+    @Test
+    public void shouldNotGetUserWhenNotModified() throws Exception {
+        when(userService.getTag(anyLong()))
+                .thenReturn("\"3\"");
+
+        result = mvc.perform(get("/users/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn();
+        response = result.getResponse();
+
+        assertEquals(304, response.getStatus());
+        assertEquals("\"3\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals("", response.getContentAsString());
+
+        verify(userService, times(1)).getTag(anyLong());
+        verifyNoMoreInteractions(userService);
+    }
+
     private MockHttpServletResponse deleteUserResponse(Long id) throws Exception {
         result = mvc.perform(delete("/users/" + id)
                         .accept(MediaType.APPLICATION_JSON))
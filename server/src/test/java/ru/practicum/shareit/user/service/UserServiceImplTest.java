@@ -6,11 +6,13 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.DuplicateException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -104,4 +106,49 @@ public class UserServiceImplTest {
         final String actualMessage = exception.getMessage();
         assertTrue(actualMessage.contains(expectedMessage));
     }
+
+    @DisplayName("Частично обновить пользователя")
+    @Test
+    public void shouldPatchUser() {
+        dto = service.save(createUserDto());
+        final UserDto other = service.save(UserDto.builder()
+                .name("other")
+                .email("other@email.ru")
+                .build());
+
+        final UserDto updated = service.update(dto.getId(), Map.of("name", "updated"));
+        assertEquals(dto.withName("updated"), updated);
+
+        final Exception fieldException = assertThrows(BadRequestException.class, () -> {
+            service.update(dto.getId(), Map.of("id", 100));
+        });
+        assertTrue(fieldException.getMessage().contains("Field 'id' of user cannot be updated."));
+
+        final Exception typeException = assertThrows(BadRequestException.class, () -> {
+            service.update(dto.getId(), Map.of("email", 1));
+        });
+        assertTrue(typeException.getMessage().contains("Field 'email' should be of type String."));
+
+        assertThrows(DuplicateException.class, () -> {
+            service.update(dto.getId(), Map.of("email", other.getEmail()));
+        });
+        assertThrows(NotFoundException.class, () -> {
+            service.update(100L, Map.of("name", "updated"));
+        });
+    }
+
+    @DisplayName("ETag пользователя меняется после обновления")
+    @Test
+    public void shouldChangeTagOnUpdate() {
+        dto = service.save(createUserDto());
+
+        final String tag = service.getTag(dto.getId());
+        assertNotNull(tag);
+        assertEquals(tag, service.getTag(dto.getId()));
+
+        service.update(dto.getId(), Map.of("name", "updated"));
+        assertNotEquals(tag, service.getTag(dto.getId()));
+
+        assertNull(service.getTag(100L));
+    }
 }